@@ -0,0 +1,31 @@
+package GameEngine.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with the allocation rate and the garbage collections
+ * next to the throughput. Takes the usual JMH command line options, for example a regular expression selecting the
+ * benchmarks to run or -p bodyCount=1000 to run only some of the parameters.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options
+     * @throws RunnerException             if a benchmark fails
+     * @throws CommandLineOptionException if the options can't be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException{
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package GameEngine.benchmarks;
+
+import GameEngine.Body;
+import GameEngine.CollisionChecker;
+import GameEngine.CollisionInfo;
+import GameEngine.ConvexShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the polygon collision check of the narrowphase for hulls of different vertex counts, for a pair that
+ * overlaps and for one that the first axes separate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    /**
+     * Number of vertices in both hulls.
+     */
+    @Param({"4", "8", "16", "32", "64", "128"})
+    public int vertexCount;
+
+    /**
+     * The first body.
+     */
+    Body body;
+    /**
+     * A body overlapping the first one.
+     */
+    Body overlapping;
+    /**
+     * A body next to the first one but not touching it.
+     */
+    Body separate;
+    /**
+     * The edge normals of the first body in the world.
+     */
+    double[] normals;
+    /**
+     * The edge normals of the overlapping body in the world.
+     */
+    double[] overlappingNormals;
+    /**
+     * Reused result of the checks.
+     */
+    CollisionInfo info = new CollisionInfo();
+
+    /**
+     * Creates the bodies.
+     */
+    @Setup
+    public void setUp(){
+        body = new Body(0, 0, null, regularPolygon(vertexCount, 50));
+        overlapping = new Body(70, 10, null, regularPolygon(vertexCount, 50));
+        separate = new Body(110, 10, null, regularPolygon(vertexCount, 50));
+        overlapping.setAngle(0.3);
+        separate.setAngle(0.3);
+        normals = worldNormals(body);
+        overlappingNormals = worldNormals(overlapping);
+    }
+
+    /**
+     * Creates a regular polygon around the point (radius, radius).
+     *
+     * @param vertexCount the number of vertices
+     * @param radius      the distance of the vertices from the center
+     * @return the shape
+     */
+    static ConvexShape regularPolygon(int vertexCount, double radius){
+        double[] vertices = new double[vertexCount * 2];
+        for(int i = 0; i < vertexCount; i++){
+            double angle = Math.PI * 2 * i / vertexCount;
+            vertices[i * 2] = radius + Math.cos(angle) * radius;
+            vertices[i * 2 + 1] = radius + Math.sin(angle) * radius;
+        }
+        return new ConvexShape(vertices);
+    }
+
+    /**
+     * Checks an overlapping pair, finding the axis, the depth and the contact points.
+     *
+     * @return true if the bodies collide
+     */
+    @Benchmark
+    public boolean checkOverlapping(){
+        return CollisionChecker.checkCollision(body, overlapping, info);
+    }
+
+    /**
+     * Checks a pair that doesn't touch.
+     *
+     * @return true if the bodies collide
+     */
+    @Benchmark
+    public boolean checkSeparate(){
+        return CollisionChecker.checkCollision(body, separate, info);
+    }
+
+    /**
+     * Checks an overlapping pair with the overlap only test used for sensors.
+     *
+     * @return true if the bodies overlap
+     */
+    @Benchmark
+    public boolean overlapOnly(){
+        return CollisionChecker.overlaps(body.getWorldVertices(), normals, overlapping.getWorldVertices(),
+                overlappingNormals);
+    }
+
+    /**
+     * Rotates the edge normals of a body's shape to the world.
+     *
+     * @param body the body
+     * @return the normals as x0, y0, x1, y1...
+     */
+    static double[] worldNormals(Body body){
+        double[] local = body.getShape().getNormals();
+        double cos = Math.cos(body.getAngle());
+        double sin = Math.sin(body.getAngle());
+        double[] normals = new double[local.length];
+        for(int i = 0; i < local.length; i += 2){
+            normals[i] = local[i] * cos - local[i + 1] * sin;
+            normals[i + 1] = local[i] * sin + local[i + 1] * cos;
+        }
+        return normals;
+    }
+}
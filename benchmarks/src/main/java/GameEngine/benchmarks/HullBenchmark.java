@@ -0,0 +1,135 @@
+package GameEngine.benchmarks;
+
+import GameEngine.GrahamScanner;
+import GameEngine.HullBuilder;
+import GameEngine.ShapeCreator;
+import GameEngine.Vector2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building collision shapes from images of different sizes: the whole hullShapeFromImg, and the Graham scan
+ * and the monotone chain of HullBuilder on the edge pixels alone. The images are ragged blobs, so the edge has many
+ * pixels that aren't on the hull.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HullBenchmark {
+
+    /**
+     * Width and height of the image in pixels.
+     */
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    /**
+     * The image.
+     */
+    BufferedImage image;
+    /**
+     * The edge pixels of the image.
+     */
+    LinkedList<Vector2D> edgePixels;
+    /**
+     * The edge pixels of the image as a bitmask.
+     */
+    long[] edgeMask;
+    /**
+     * Copy of the edge pixels for one call of the Graham scan, which reorders and removes points of its input.
+     */
+    LinkedList<Vector2D> scanInput;
+    /**
+     * Builder reused between the hulls, like ShapeCreator would if it kept one.
+     */
+    HullBuilder builder = new HullBuilder();
+
+    /**
+     * Draws the image and finds its edge pixels.
+     */
+    @Setup
+    public void setUp(){
+        image = blob(size, new Random(size));
+        edgePixels = ShapeCreator.findEdgePixels(ShapeCreator.mapSeethroughPixels(image));
+        edgeMask = ShapeCreator.findEdgeMask(image, null);
+    }
+
+    /**
+     * Copies the edge pixels for the next Graham scan. The copy is outside the measured time.
+     */
+    @Setup(Level.Invocation)
+    public void copyEdgePixels(){
+        scanInput = new LinkedList<Vector2D>(edgePixels);
+    }
+
+    /**
+     * Draws a disc with a ragged edge filling most of an image.
+     *
+     * @param size   the width and height of the image
+     * @param random the source of the raggedness
+     * @return the image
+     */
+    static BufferedImage blob(int size, Random random){
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        double center = size / 2.0;
+        for(int y = 0; y < size; y++){
+            for(int x = 0; x < size; x++){
+                double dx = x + 0.5 - center;
+                double dy = y + 0.5 - center;
+                double radius = center * (0.85 + random.nextDouble() * 0.1);
+                if(dx * dx + dy * dy <= radius * radius){
+                    img.setRGB(x, y, 0xFF000000 | random.nextInt());
+                }
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Builds the shape from the image, from reading the pixels to the simplified hull.
+     *
+     * @return the vertices of the hull
+     */
+    @Benchmark
+    public double[] hullShapeFromImg(){
+        return ShapeCreator.hullShapeFromImg(image, 1);
+    }
+
+    /**
+     * Builds the hull of the edge pixels with the Graham scan.
+     *
+     * @return the vertices of the hull
+     */
+    @Benchmark
+    public LinkedList<Vector2D> grahamScan(){
+        return new GrahamScanner().convexHull(scanInput);
+    }
+
+    /**
+     * Builds the hull of the edge pixels with the monotone chain of HullBuilder.
+     *
+     * @return the vertices of the hull
+     */
+    @Benchmark
+    public double[] hullBuilder(){
+        return builder.hullShape(edgeMask, size, size, 1);
+    }
+}
@@ -0,0 +1,133 @@
+package GameEngine.benchmarks;
+
+import GameEngine.Body;
+import GameEngine.BodyPrototype;
+import GameEngine.ConvexShape;
+import GameEngine.PhysicsWorld;
+import GameEngine.Vector2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one step of a world of boxes and octagons falling into a walled pit, from 10 to 10 000 bodies. The world is
+ * built again for every iteration, so every iteration measures bodies falling and piling up instead of a pile that
+ * has fallen asleep. Sleeping is turned off so that the bodies at rest are solved like in a busy scene.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldStepBenchmark {
+
+    /**
+     * Length of a step in seconds.
+     */
+    static final double STEP = 1.0 / 60.0;
+
+    /**
+     * Number of moving bodies in the world.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int bodyCount;
+
+    /**
+     * The world.
+     */
+    PhysicsWorld world;
+
+    /**
+     * Builds the world with the bodies scattered above the pit.
+     */
+    @Setup(Level.Iteration)
+    public void setUp(){
+        world = new PhysicsWorld(50, new Vector2D(0, 10));
+        world.setAllowSleeping(false);
+        Random random = new Random(bodyCount);
+        int columns = (int) Math.ceil(Math.sqrt(bodyCount));
+        double width = columns * 30;
+
+        addWall(-20, 0, 20, columns * 30 + 20);
+        addWall(width, 0, 20, columns * 30 + 20);
+        addWall(-20, columns * 30 + 20, width + 40, 20);
+
+        BodyPrototype box = new BodyPrototype(rectangle(20, 20), world.getPixelsPerMeter());
+        BodyPrototype octagon = new BodyPrototype(octagon(12), world.getPixelsPerMeter());
+        for(int i = 0; i < bodyCount; i++){
+            double x = (i % columns) * 30 + random.nextDouble() * 5;
+            double y = (i / columns) * 30 + random.nextDouble() * 5;
+            Body body = world.createBody(i % 2 == 0 ? box : octagon, x, y);
+            body.setAngle(random.nextDouble());
+        }
+    }
+
+    /**
+     * Adds an immovable box to the world.
+     *
+     * @param x      the x coordinate of the top left corner
+     * @param y      the y coordinate of the top left corner
+     * @param width  the width
+     * @param height the height
+     */
+    void addWall(double x, double y, double width, double height){
+        Body wall = world.createBody(new BodyPrototype(rectangle(width, height), world.getPixelsPerMeter()), x, y);
+        wall.setMass(Double.POSITIVE_INFINITY);
+        wall.setMmoi(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Creates a rectangle with the top left corner at the origin.
+     *
+     * @param width  the width
+     * @param height the height
+     * @return the shape
+     */
+    static ConvexShape rectangle(double width, double height){
+        return new ConvexShape(new double[]{
+                0, 0,
+                width, 0,
+                width, height,
+                0, height});
+    }
+
+    /**
+     * Creates a regular octagon around the point (radius, radius).
+     *
+     * @param radius the distance of the vertices from the center
+     * @return the shape
+     */
+    static ConvexShape octagon(double radius){
+        double[] vertices = new double[16];
+        for(int i = 0; i < 8; i++){
+            double angle = Math.PI * 2 * i / 8;
+            vertices[i * 2] = radius + Math.cos(angle) * radius;
+            vertices[i * 2 + 1] = radius + Math.sin(angle) * radius;
+        }
+        return new ConvexShape(vertices);
+    }
+
+    /**
+     * Steps the world once.
+     *
+     * @return the world
+     */
+    @Benchmark
+    public PhysicsWorld updateWorld(){
+        world.updateWorld(STEP);
+        return world;
+    }
+}
@@ -1,12 +1,10 @@
 package ExampleGame;
 
 import GameEngine.*;
-import javafx.geometry.Point2D;
 import javafx.event.EventHandler;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Polygon;
 import javafx.stage.Stage;
 
 import javax.imageio.ImageIO;
@@ -29,6 +27,7 @@ public class App extends GameWindow {
     double horizontalDir;
 
     BufferedImage test;
+    AssetLoader loader = new AssetLoader();
 
     public static void main(String[] args) {
         launch(args);
@@ -39,14 +38,16 @@ public class App extends GameWindow {
 
 
         System.out.println("Author: Jaakko Mäntylä");
-        setWorld( new PhysicsWorld(10.0, new Point2D(0, 0)));
+        setWorld( new PhysicsWorld(10.0, new Vector2D(0, 0)));
         horizontalDir=0;
         verticalDir = 0;
-        go = new GameObject(150,150,70,"C:\\Users\\Jaakko\\IdeaProjects\\Game_engine\\resources\\HeMan.png", this, GameObjectType.SOLID);
-        car = new GameObject(350,150,70,"C:\\Users\\Jaakko\\IdeaProjects\\Game_engine\\resources\\car.png", this, GameObjectType.SOLID);
-        //add your game objects to gameObjects ArrayList so they are added to the scene
-        getGameObjects().add(go);
-        getGameObjects().add(car);
+        // the images are read and the hulls built in the background, the objects are added to the game when ready
+        loader.loadGameObject(150,150,70,"C:\\Users\\Jaakko\\IdeaProjects\\Game_engine\\resources\\HeMan.png", this, GameObjectType.SOLID)
+                .thenAccept(loaded -> go = loaded)
+                .exceptionally(error -> { error.printStackTrace(); return null; });
+        loader.loadGameObject(350,150,70,"C:\\Users\\Jaakko\\IdeaProjects\\Game_engine\\resources\\car.png", this, GameObjectType.SOLID)
+                .thenAccept(loaded -> car = loaded)
+                .exceptionally(error -> { error.printStackTrace(); return null; });
 
         super.start(primaryStage);
 
@@ -57,17 +58,26 @@ public class App extends GameWindow {
     @Override
     public void gameLoop(long now){
         // gameloop here
+        if(go == null || car == null){
+            // still loading
+            return;
+        }
 
-        go.setRotate(go.getRotate()+1);
+        go.getBody().setAngle(go.getBody().getAngle()+Math.toRadians(1));
 
-        go.getBody().applyForce(new Point2D(horizontalDir*800, verticalDir*800), new Point2D(70*horizontalDir, 0));
+        go.getBody().applyForce(new Vector2D(horizontalDir*800, verticalDir*800), new Vector2D(70*horizontalDir, 0));
 
-        //go.getBody().getShapes().get(0).setRotate(go.getBody().getShapes().get(0).getRotate()+1);
-        System.out.println(CollisionChecker.checkCollision((Polygon)go.getBody().getShapes().get(0),(Polygon) car.getBody().getShapes().get(0)) );
+        System.out.println(CollisionChecker.checkCollision(go.getBody(), car.getBody()) );
 
 
     }
 
+    @Override
+    public void stop() throws Exception {
+        loader.shutdown();
+        super.stop();
+    }
+
     public void setKeyListeners(){
         getScene().setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
@@ -0,0 +1,113 @@
+package GameEngine;
+
+/**
+ * Axis aligned bounding box. Used by the broadphase to find bodies that might be colliding before the more
+ * expensive polygon collision check is done.
+ */
+public class AABB {
+    /**
+     * The minimum x coordinate.
+     */
+    double minX;
+    /**
+     * The minimum y coordinate.
+     */
+    double minY;
+    /**
+     * The maximum x coordinate.
+     */
+    double maxX;
+    /**
+     * The maximum y coordinate.
+     */
+    double maxY;
+
+    /**
+     * Instantiates a new empty AABB.
+     */
+    public AABB(){
+    }
+
+    /**
+     * Instantiates a new AABB.
+     *
+     * @param minX the minimum x coordinate
+     * @param minY the minimum y coordinate
+     * @param maxX the maximum x coordinate
+     * @param maxY the maximum y coordinate
+     */
+    public AABB(double minX, double minY, double maxX, double maxY){
+        set(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Sets all the bounds of the box.
+     *
+     * @param minX the minimum x coordinate
+     * @param minY the minimum y coordinate
+     * @param maxX the maximum x coordinate
+     * @param maxY the maximum y coordinate
+     */
+    public void set(double minX, double minY, double maxX, double maxY){
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Checks if this box overlaps the given box. Touching boxes are counted as overlapping.
+     *
+     * @param other the other box
+     * @return true if the boxes overlap
+     */
+    public boolean overlaps(AABB other){
+        return minX <= other.maxX && maxX >= other.minX && minY <= other.maxY && maxY >= other.minY;
+    }
+
+    /**
+     * Gets min x.
+     *
+     * @return the min x
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Gets min y.
+     *
+     * @return the min y
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Gets max x.
+     *
+     * @return the max x
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Gets max y.
+     *
+     * @return the max y
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public String toString() {
+        return "AABB{" +
+                "minX=" + minX +
+                ", minY=" + minY +
+                ", maxX=" + maxX +
+                ", maxY=" + maxY +
+                '}';
+    }
+}
@@ -0,0 +1,639 @@
+package GameEngine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dynamic bounding volume tree of bodies. Every body is stored in a leaf with a fattened AABB, so small movements
+ * don't change the tree at all. When a body moves out of its fattened box the leaf is removed and inserted again
+ * and the tree is kept balanced with rotations. Used by PhysicsWorld for area, point and ray queries.
+ *
+ * Nodes are kept in parallel arrays and referred to by their index. The queries reuse the same traversal stack, so
+ * one tree shouldn't be queried from several threads at once.
+ */
+public class AABBTree {
+
+    /**
+     * Index used for missing nodes.
+     */
+    static final int NULL_NODE = -1;
+
+    /**
+     * Default amount the leaf boxes are fattened by on each side in JavaFX units.
+     */
+    public static final double DEFAULT_MARGIN = 10;
+
+    /**
+     * How many times the last movement of a body the fattened box is extended to the direction of the movement.
+     */
+    static final double DISPLACEMENT_MULTIPLIER = 2;
+
+    /**
+     * Amount the leaf boxes are fattened by on each side.
+     */
+    double margin;
+
+    /**
+     * Bounds of the nodes.
+     */
+    double[] minX;
+    double[] minY;
+    double[] maxX;
+    double[] maxY;
+    /**
+     * Parent node of each node, or the next free node for nodes in the free list.
+     */
+    int[] parent;
+    /**
+     * First child of each node. NULL_NODE for leaves.
+     */
+    int[] child1;
+    /**
+     * Second child of each node. NULL_NODE for leaves.
+     */
+    int[] child2;
+    /**
+     * Height of the node in the tree. Leaves have height 0 and free nodes -1.
+     */
+    int[] height;
+    /**
+     * The body held by each leaf.
+     */
+    Body[] bodies;
+
+    /**
+     * The root node.
+     */
+    int root = NULL_NODE;
+    /**
+     * First node of the free list.
+     */
+    int freeList;
+    /**
+     * Number of nodes in use.
+     */
+    int nodeCount;
+
+    /**
+     * Stack used for traversing the tree in the queries.
+     */
+    int[] stack = new int[64];
+    /**
+     * Fractions along the ray of the bodies hit by the last raycast.
+     */
+    double[] hitFractions = new double[16];
+
+    /**
+     * Instantiates a new AABB tree.
+     *
+     * @param margin amount the leaf boxes are fattened by on each side in JavaFX units
+     */
+    public AABBTree(double margin){
+        this.margin = margin;
+        allocate(16);
+    }
+
+    /**
+     * Grows the node arrays and links the new nodes to the free list.
+     *
+     * @param capacity the new capacity
+     */
+    void allocate(int capacity){
+        int oldCapacity = parent == null ? 0 : parent.length;
+        minX = grow(minX, capacity);
+        minY = grow(minY, capacity);
+        maxX = grow(maxX, capacity);
+        maxY = grow(maxY, capacity);
+        parent = grow(parent, capacity);
+        child1 = grow(child1, capacity);
+        child2 = grow(child2, capacity);
+        height = grow(height, capacity);
+        bodies = bodies == null ? new Body[capacity] : Arrays.copyOf(bodies, capacity);
+
+        for(int i = oldCapacity; i < capacity; i++){
+            parent[i] = i + 1 < capacity ? i + 1 : NULL_NODE;
+            height[i] = -1;
+        }
+        freeList = oldCapacity;
+    }
+
+    static double[] grow(double[] array, int capacity){
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    static int[] grow(int[] array, int capacity){
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * Takes a node from the free list.
+     *
+     * @return index of the node
+     */
+    int allocateNode(){
+        if(freeList == NULL_NODE){
+            allocate(parent.length * 2);
+        }
+        int node = freeList;
+        freeList = parent[node];
+        parent[node] = NULL_NODE;
+        child1[node] = NULL_NODE;
+        child2[node] = NULL_NODE;
+        height[node] = 0;
+        bodies[node] = null;
+        nodeCount++;
+        return node;
+    }
+
+    /**
+     * Returns a node to the free list.
+     *
+     * @param node index of the node
+     */
+    void freeNode(int node){
+        parent[node] = freeList;
+        height[node] = -1;
+        bodies[node] = null;
+        freeList = node;
+        nodeCount--;
+    }
+
+    /**
+     * Adds a body to the tree.
+     *
+     * @param body the body
+     * @param box  the current bounding box of the body
+     * @return id of the proxy that represents the body in the tree
+     */
+    public int createProxy(Body body, AABB box){
+        int proxyId = allocateNode();
+        minX[proxyId] = box.minX - margin;
+        minY[proxyId] = box.minY - margin;
+        maxX[proxyId] = box.maxX + margin;
+        maxY[proxyId] = box.maxY + margin;
+        bodies[proxyId] = body;
+        insertLeaf(proxyId);
+        return proxyId;
+    }
+
+    /**
+     * Removes a body from the tree.
+     *
+     * @param proxyId id of the proxy
+     */
+    public void destroyProxy(int proxyId){
+        removeLeaf(proxyId);
+        freeNode(proxyId);
+    }
+
+    /**
+     * Updates the box of a moved body. Nothing is done if the body is still inside its fattened box.
+     *
+     * @param proxyId id of the proxy
+     * @param box     the current bounding box of the body
+     * @param dx      movement of the body on the x axis since the last update
+     * @param dy      movement of the body on the y axis since the last update
+     * @return true if the proxy was moved in the tree
+     */
+    public boolean moveProxy(int proxyId, AABB box, double dx, double dy){
+        if(minX[proxyId] <= box.minX && minY[proxyId] <= box.minY
+                && maxX[proxyId] >= box.maxX && maxY[proxyId] >= box.maxY){
+            return false;
+        }
+
+        removeLeaf(proxyId);
+
+        double x0 = box.minX - margin;
+        double y0 = box.minY - margin;
+        double x1 = box.maxX + margin;
+        double y1 = box.maxY + margin;
+        // extend the box to where the body is heading so that a moving body isn't reinserted every step
+        dx *= DISPLACEMENT_MULTIPLIER;
+        dy *= DISPLACEMENT_MULTIPLIER;
+        if(dx < 0){
+            x0 += dx;
+        }else{
+            x1 += dx;
+        }
+        if(dy < 0){
+            y0 += dy;
+        }else{
+            y1 += dy;
+        }
+        minX[proxyId] = x0;
+        minY[proxyId] = y0;
+        maxX[proxyId] = x1;
+        maxY[proxyId] = y1;
+
+        insertLeaf(proxyId);
+        return true;
+    }
+
+    /**
+     * Perimeter of the union of two nodes. Used as the cost of placing nodes together.
+     */
+    double unionPerimeter(int a, int b){
+        double w = Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]);
+        double h = Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]);
+        return 2 * (w + h);
+    }
+
+    double perimeter(int node){
+        return 2 * (maxX[node] - minX[node] + maxY[node] - minY[node]);
+    }
+
+    /**
+     * Sets the box of a node to the union of two other nodes.
+     */
+    void setUnion(int node, int a, int b){
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
+    }
+
+    boolean isLeaf(int node){
+        return child1[node] == NULL_NODE;
+    }
+
+    /**
+     * Inserts a leaf to the place where it grows the total perimeter of the tree the least.
+     *
+     * @param leaf index of the leaf
+     */
+    void insertLeaf(int leaf){
+        if(root == NULL_NODE){
+            root = leaf;
+            parent[root] = NULL_NODE;
+            return;
+        }
+
+        // find the best sibling for the leaf
+        int index = root;
+        while(!isLeaf(index)){
+            int c1 = child1[index];
+            int c2 = child2[index];
+
+            double area = perimeter(index);
+            double combinedArea = unionPerimeter(index, leaf);
+            // cost of creating a new parent for this node and the new leaf
+            double cost = 2 * combinedArea;
+            // minimum cost of pushing the leaf further down the tree
+            double inheritanceCost = 2 * (combinedArea - area);
+
+            double cost1 = unionPerimeter(c1, leaf) + inheritanceCost;
+            if(!isLeaf(c1)){
+                cost1 -= perimeter(c1);
+            }
+            double cost2 = unionPerimeter(c2, leaf) + inheritanceCost;
+            if(!isLeaf(c2)){
+                cost2 -= perimeter(c2);
+            }
+
+            if(cost < cost1 && cost < cost2){
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+        int sibling = index;
+
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        setUnion(newParent, leaf, sibling);
+        height[newParent] = height[sibling] + 1;
+
+        if(oldParent != NULL_NODE){
+            if(child1[oldParent] == sibling){
+                child1[oldParent] = newParent;
+            }else{
+                child2[oldParent] = newParent;
+            }
+        }else{
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        refitAncestors(parent[leaf]);
+    }
+
+    /**
+     * Removes a leaf from the tree without freeing it.
+     *
+     * @param leaf index of the leaf
+     */
+    void removeLeaf(int leaf){
+        if(leaf == root){
+            root = NULL_NODE;
+            return;
+        }
+
+        int oldParent = parent[leaf];
+        int grandParent = parent[oldParent];
+        int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+
+        if(grandParent != NULL_NODE){
+            if(child1[grandParent] == oldParent){
+                child1[grandParent] = sibling;
+            }else{
+                child2[grandParent] = sibling;
+            }
+            parent[sibling] = grandParent;
+            freeNode(oldParent);
+            refitAncestors(grandParent);
+        }else{
+            root = sibling;
+            parent[sibling] = NULL_NODE;
+            freeNode(oldParent);
+        }
+    }
+
+    /**
+     * Walks from the given node to the root balancing the nodes and fixing their boxes and heights.
+     *
+     * @param index the first node to fix
+     */
+    void refitAncestors(int index){
+        while(index != NULL_NODE){
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * Rotates the subtree of the given node if its children's heights differ by more than one.
+     *
+     * @param a index of the node
+     * @return index of the node that is now at the place of the given node
+     */
+    int balance(int a){
+        if(isLeaf(a) || height[a] < 2){
+            return a;
+        }
+
+        int b = child1[a];
+        int c = child2[a];
+        int balance = height[c] - height[b];
+
+        if(balance > 1){
+            rotateUp(a, c, b, false);
+            return c;
+        }
+        if(balance < -1){
+            rotateUp(a, b, c, true);
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Rotates the higher child of a node to the node's place.
+     *
+     * @param a          the node
+     * @param up         the higher child that is moved up
+     * @param other      the other child
+     * @param upIsFirst  is the child moved up the first child of the node
+     */
+    void rotateUp(int a, int up, int other, boolean upIsFirst){
+        int f = child1[up];
+        int g = child2[up];
+
+        child1[up] = a;
+        parent[up] = parent[a];
+        parent[a] = up;
+
+        if(parent[up] != NULL_NODE){
+            if(child1[parent[up]] == a){
+                child1[parent[up]] = up;
+            }else{
+                child2[parent[up]] = up;
+            }
+        }else{
+            root = up;
+        }
+
+        // the higher grandchild stays under the rotated node, the lower one is given to the old node
+        int keep = height[f] > height[g] ? f : g;
+        int give = keep == f ? g : f;
+
+        child2[up] = keep;
+        if(upIsFirst){
+            child1[a] = give;
+        }else{
+            child2[a] = give;
+        }
+        parent[give] = a;
+
+        setUnion(a, other, give);
+        setUnion(up, a, keep);
+        height[a] = 1 + Math.max(height[other], height[give]);
+        height[up] = 1 + Math.max(height[a], height[keep]);
+    }
+
+    /**
+     * Pushes a node to the traversal stack.
+     *
+     * @param top   current size of the stack
+     * @param node  the node to push
+     * @return new size of the stack
+     */
+    int push(int top, int node){
+        if(top == stack.length){
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[top] = node;
+        return top + 1;
+    }
+
+    /**
+     * Finds the bodies whose bounding boxes overlap the given area.
+     *
+     * @param area    the area
+     * @param results list the found bodies are added to
+     */
+    public void query(AABB area, List<Body> results){
+        if(root == NULL_NODE){
+            return;
+        }
+        int top = push(0, root);
+        while(top > 0){
+            int node = stack[--top];
+            if(minX[node] > area.maxX || maxX[node] < area.minX || minY[node] > area.maxY || maxY[node] < area.minY){
+                continue;
+            }
+            if(isLeaf(node)){
+                if(bodies[node].getAABB().overlaps(area)){
+                    results.add(bodies[node]);
+                }
+            }else{
+                top = push(top, child1[node]);
+                top = push(top, child2[node]);
+            }
+        }
+    }
+
+    /**
+     * Finds the bodies whose collision shape contains the given point.
+     *
+     * @param x       x coordinate of the point
+     * @param y       y coordinate of the point
+     * @param results list the found bodies are added to
+     */
+    public void queryPoint(double x, double y, List<Body> results){
+        if(root == NULL_NODE){
+            return;
+        }
+        int top = push(0, root);
+        while(top > 0){
+            int node = stack[--top];
+            if(minX[node] > x || maxX[node] < x || minY[node] > y || maxY[node] < y){
+                continue;
+            }
+            if(isLeaf(node)){
+                if(bodies[node].containsPoint(x, y)){
+                    results.add(bodies[node]);
+                }
+            }else{
+                top = push(top, child1[node]);
+                top = push(top, child2[node]);
+            }
+        }
+    }
+
+    /**
+     * Finds the bodies whose collision shape is hit by the line segment from (x1, y1) to (x2, y2). The bodies are
+     * added to the results in the order they are hit.
+     *
+     * @param x1          x coordinate of the start of the ray
+     * @param y1          y coordinate of the start of the ray
+     * @param x2          x coordinate of the end of the ray
+     * @param y2          y coordinate of the end of the ray
+     * @param closestOnly if true only the first body hit is searched for. Subtrees farther than the closest hit found
+     *                    so far are skipped.
+     * @param results     list the found bodies are added to
+     */
+    public void raycast(double x1, double y1, double x2, double y2, boolean closestOnly, List<Body> results){
+        if(root == NULL_NODE){
+            return;
+        }
+        int firstResult = results.size();
+        int hitCount = 0;
+        double maxFraction = 1;
+        Body closest = null;
+
+        int top = push(0, root);
+        while(top > 0){
+            int node = stack[--top];
+            if(!segmentOverlapsNode(node, x1, y1, x2, y2, maxFraction)){
+                continue;
+            }
+            if(isLeaf(node)){
+                double fraction = bodies[node].raycast(x1, y1, x2, y2);
+                if(fraction < 0 || fraction > maxFraction){
+                    continue;
+                }
+                if(closestOnly){
+                    maxFraction = fraction;
+                    closest = bodies[node];
+                }else{
+                    if(hitCount == hitFractions.length){
+                        hitFractions = Arrays.copyOf(hitFractions, hitCount * 2);
+                    }
+                    // insertion sort by fraction, the hit lists are short
+                    int i = hitCount++;
+                    results.add(bodies[node]);
+                    while(i > 0 && hitFractions[i - 1] > fraction){
+                        hitFractions[i] = hitFractions[i - 1];
+                        results.set(firstResult + i, results.get(firstResult + i - 1));
+                        i--;
+                    }
+                    hitFractions[i] = fraction;
+                    results.set(firstResult + i, bodies[node]);
+                }
+            }else{
+                top = push(top, child1[node]);
+                top = push(top, child2[node]);
+            }
+        }
+        if(closest != null){
+            results.add(closest);
+        }
+    }
+
+    /**
+     * Slab test between a line segment and the box of a node.
+     *
+     * @return true if the part of the segment up to maxFraction touches the box
+     */
+    boolean segmentOverlapsNode(int node, double x1, double y1, double x2, double y2, double maxFraction){
+        double tMin = 0;
+        double tMax = maxFraction;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+
+        if(dx == 0){
+            if(x1 < minX[node] || x1 > maxX[node]){
+                return false;
+            }
+        }else{
+            double t1 = (minX[node] - x1) / dx;
+            double t2 = (maxX[node] - x1) / dx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        if(dy == 0){
+            if(y1 < minY[node] || y1 > maxY[node]){
+                return false;
+            }
+        }else{
+            double t1 = (minY[node] - y1) / dy;
+            double t2 = (maxY[node] - y1) / dy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return tMin <= tMax;
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height, 0 for an empty tree
+     */
+    public int getHeight() {
+        return root == NULL_NODE ? 0 : height[root];
+    }
+
+    /**
+     * Gets the number of bodies in the tree.
+     *
+     * @return the body count
+     */
+    public int getBodyCount() {
+        return (nodeCount + 1) / 2;
+    }
+
+    /**
+     * Gets margin.
+     *
+     * @return the margin
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Sets the margin. Only affects boxes of bodies that are inserted or moved after the change.
+     *
+     * @param margin the margin
+     */
+    public void setMargin(double margin) {
+        this.margin = margin;
+    }
+}
@@ -0,0 +1,215 @@
+package GameEngine;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads the images and collision shapes of game objects on a pool of background threads, so the window can be shown
+ * while they load. Reading and decoding an image, converting it for JavaFX and building its hull all happen on the
+ * pool and the loader hands out futures of the results. Every file is read once, concurrent requests for the same
+ * file share the same future.
+ *
+ * Game objects are created and added to the game window on the JavaFX application thread once their image and shape
+ * are ready, since the scene may only be changed on that thread.
+ */
+public class AssetLoader {
+
+    /**
+     * Number of loaders created, for naming the threads.
+     */
+    private static final AtomicInteger loaderCount = new AtomicInteger();
+
+    /**
+     * Threads reading the files and building the shapes.
+     */
+    private final ExecutorService pool;
+    /**
+     * Runs the tasks that change the scene, on the JavaFX application thread.
+     */
+    private final Executor sceneExecutor;
+    /**
+     * Decoded images by file path.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> bufferedImages =
+            new ConcurrentHashMap<String, CompletableFuture<BufferedImage>>();
+    /**
+     * Images converted for JavaFX by file path.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Image>> images =
+            new ConcurrentHashMap<String, CompletableFuture<Image>>();
+
+    /**
+     * Instantiates a new Asset loader with a thread for each core.
+     */
+    public AssetLoader(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiates a new Asset loader.
+     *
+     * @param threads the number of threads loading assets
+     */
+    public AssetLoader(int threads){
+        this(createPool(threads), Platform::runLater);
+    }
+
+    /**
+     * Instantiates a new Asset loader running on the given executors.
+     *
+     * @param pool          the threads reading the files and building the shapes
+     * @param sceneExecutor runs the tasks that change the scene
+     */
+    AssetLoader(ExecutorService pool, Executor sceneExecutor){
+        this.pool = pool;
+        this.sceneExecutor = sceneExecutor;
+    }
+
+    /**
+     * Creates a pool of daemon threads, so loading doesn't keep the application running after the window closes.
+     *
+     * @param threads the number of threads
+     * @return the pool
+     */
+    static ExecutorService createPool(int threads){
+        if(threads < 1){
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        }
+        final int loader = loaderCount.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "AssetLoader-" + loader + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads and decodes an image file.
+     *
+     * @param filePath the path of the image file
+     * @return the future of the image, failing with an UncheckedIOException if the file can't be read
+     */
+    public CompletableFuture<BufferedImage> loadBufferedImage(final String filePath){
+        return dedupe(bufferedImages, filePath, () -> CompletableFuture.supplyAsync(() -> {
+            try{
+                BufferedImage img = ImageIO.read(new File(filePath));
+                if(img == null){
+                    throw new IOException("Not an image: " + filePath);
+                }
+                return img;
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }, pool));
+    }
+
+    /**
+     * Reads an image file and converts it for JavaFX.
+     *
+     * @param filePath the path of the image file
+     * @return the future of the image
+     */
+    public CompletableFuture<Image> loadImage(final String filePath){
+        return dedupe(images, filePath,
+                () -> loadBufferedImage(filePath).thenApplyAsync(img -> SwingFXUtils.toFXImage(img, null), pool));
+    }
+
+    /**
+     * Builds the collision shape of an image file scaled to the given height. The shape comes from the ShapeCache, so
+     * it is only built if no body has used the file at this height before.
+     *
+     * @param filePath the path of the image file
+     * @param height   the height the image is scaled to
+     * @return the future of the shape
+     */
+    public CompletableFuture<ConvexShape> loadShape(final String filePath, final double height){
+        return loadBufferedImage(filePath).thenApplyAsync(img -> {
+            try{
+                return ShapeCache.getShape(filePath, img, height);
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }, pool);
+    }
+
+    /**
+     * Loads the image and the shape of a game object and then creates the game object and adds it to the game window
+     * on the JavaFX application thread. Decorative objects don't have a body, so their shape isn't built.
+     *
+     * @param x          the x coordinate
+     * @param y          the y coordinate
+     * @param height     the height of the object
+     * @param filePath   the file path to an image used as visual representation of the object
+     * @param gameWindow the game window the object is added to
+     * @param type       the type of game object
+     * @return the future of the game object, completed once it has been added to the window
+     */
+    public CompletableFuture<GameObject> loadGameObject(final double x, final double y, final double height,
+                                                        final String filePath, final GameWindow gameWindow,
+                                                        final GameObjectType type){
+        CompletableFuture<ConvexShape> shape = type == GameObjectType.DECORATIVE
+                ? CompletableFuture.completedFuture(null) : loadShape(filePath, height);
+        return loadImage(filePath).thenCombineAsync(shape, (image, convexShape) -> {
+            GameObject gameObject = new GameObject(x, y, height, image, convexShape, gameWindow, type);
+            gameWindow.addGameObject(gameObject);
+            return gameObject;
+        }, sceneExecutor);
+    }
+
+    /**
+     * Returns the future of a path from a map, creating it if there is none. A future that fails is removed, so the
+     * file is read again when it is next asked for.
+     *
+     * @param futures  the futures by path
+     * @param filePath the path
+     * @param factory  creates the future
+     * @param <T>      the type of the result
+     * @return the future
+     */
+    private <T> CompletableFuture<T> dedupe(final ConcurrentHashMap<String, CompletableFuture<T>> futures,
+                                            final String filePath,
+                                            final Supplier<CompletableFuture<T>> factory){
+        CompletableFuture<T> future = futures.get(filePath);
+        if(future != null){
+            return future;
+        }
+        future = futures.computeIfAbsent(filePath, k -> factory.get());
+        final CompletableFuture<T> created = future;
+        future.whenComplete((result, error) -> {
+            if(error != null){
+                futures.remove(filePath, created);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Removes the loaded images, so they are read again when next asked for. Loads already running aren't affected.
+     */
+    public void clear(){
+        bufferedImages.clear();
+        images.clear();
+    }
+
+    /**
+     * Stops the threads of the loader. Loads that haven't started are cancelled.
+     */
+    public void shutdown(){
+        pool.shutdownNow();
+    }
+}
@@ -1,43 +1,38 @@
 package GameEngine;
 
-import javafx.geometry.Point2D;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Shape;
-
-
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.LinkedList;
 
 /**
  * Body holds information about physical properties of a game object
  * and calculates the effects of external forces to location and speed of the object.
+ * Body doesn't depend on JavaFX, the view showing it on the screen reads the position and angle from the body.
+ *
+ * Position, velocities, angle and inverse mass and inertia are kept in a BodyStorage. A body in a world uses a slot
+ * of the world's storage and a body that hasn't been added to a world has a storage of its own.
  */
 public class Body {
 
     /**
-     * The Shapes that form the area on screen.
+     * The convex collision shape of the body.
      */
-    ArrayList<Shape> shapes;
+    ConvexShape shape;
     /**
-     * The host game object that holds the body.
+     * The prototype the body was made from, sharing the shape and the mass properties with other bodies.
      */
-    GameObject host;
-
+    BodyPrototype prototype;
     /**
-     * The mass of the body.
+     * Object using this body, for example the game object showing it on the screen.
      */
-    double mass;
+    Object userData;
+
     /**
-     * The Linear velocity of the body.
+     * The storage holding the state of the body.
      */
-    Point2D linearVelocity;
+    BodyStorage storage;
     /**
-     * The Angular velocity of the body.
+     * The slot of the body in the storage.
      */
-    double angularVelocity;
+    int slot;
     /**
      * The Density of the body.
      */
@@ -50,154 +45,453 @@ public class Body {
      * The World where body is located.
      */
     PhysicsWorld world;
+
     /**
-     * The Centroid of the body.
+     * Id of the body in its world, -1 if the body isn't in a world. Ids aren't reused, so they identify pairs of
+     * bodies in the contact cache even when the bodies move to other slots.
      */
-    Point2D centroid;
+    int id = -1;
+
     /**
-     * Debug centroid showing on the screen.
+     * Is the body swept for continuous collisions. A bullet moving far in one step is stopped where it first touches
+     * another body instead of passing through it.
      */
-    Circle debugCentroid;
+    boolean bullet;
+
     /**
-     * The moment of inertia of the body.
+     * Is the body a sensor. Sensors only register which bodies overlap them, they don't push or stop anything.
      */
-    double mmoi;
+    boolean sensor;
+
     /**
-     * The Torque of the body.
+     * Axis aligned bounding box of the body's collision shape, updated together with the world vertices.
      */
-    double torque;
+    AABB aabb = new AABB();
+
     /**
-     * The Angle of the body in radians.
+     * Id of the proxy representing this body in the world's AABB tree, -1 if the body isn't in the tree.
      */
-    double angle;
+    int proxyId = -1;
 
     /**
-     * List of bodies this body is currently colliding
+     * The vertices of the collision shape in world coordinates, reused between steps.
      */
-    LinkedList<Body> inCollisionWith;
+    double[] worldVertices;
+    /**
+     * The edge normals of the collision shape rotated to the world, reused between steps.
+     */
+    double[] worldNormals;
+    /**
+     * The x coordinate of the centroid the world vertices were calculated for.
+     */
+    double transformX = Double.NaN;
+    /**
+     * The y coordinate of the centroid the world vertices were calculated for.
+     */
+    double transformY = Double.NaN;
+    /**
+     * The angle the world vertices were calculated for.
+     */
+    double transformAngle = Double.NaN;
 
     /**
      * Instantiates a new Body.
      *
-     * @param x    the x coordinate
-     * @param y    the y coordinate
-     * @param host the host game object
+     * @param x     the x coordinate of the origin of the shape's coordinates in the world
+     * @param y     the y coordinate of the origin of the shape's coordinates in the world
+     * @param world the world where the body is
+     * @param shape the collision shape of the body
      */
-    Body(double x, double y, GameObject host){
+    public Body(double x, double y, PhysicsWorld world, ConvexShape shape){
+        this(x, y, world, new BodyPrototype(shape, world == null ? 1 : world.getPixelsPerMeter()));
+    }
+
+    /**
+     * Instantiates a new Body sharing the shape and the mass properties of a prototype. Use PhysicsWorld.createBody
+     * to make a body straight in a world.
+     *
+     * @param x         the x coordinate of the origin of the shape's coordinates in the world
+     * @param y         the y coordinate of the origin of the shape's coordinates in the world
+     * @param world     the world where the body is
+     * @param prototype the prototype of the body
+     */
+    public Body(double x, double y, PhysicsWorld world, BodyPrototype prototype){
+        this(x, y, world, prototype, new BodyStorage(1));
+    }
 
+    /**
+     * Instantiates a new Body in a slot of the given storage.
+     *
+     * @param x         the x coordinate of the origin of the shape's coordinates in the world
+     * @param y         the y coordinate of the origin of the shape's coordinates in the world
+     * @param world     the world where the body is
+     * @param prototype the prototype of the body
+     * @param storage   the storage holding the state of the body
+     */
+    Body(double x, double y, PhysicsWorld world, BodyPrototype prototype, BodyStorage storage){
+        this.world = world;
+        this.storage = storage;
+        slot = storage.allocate(this);
+        reset(x, y, prototype);
+    }
 
-        this.host = host;
-        shapes = new ArrayList<Shape>() ;
+    /**
+     * Sets up the body as a new body made from a prototype, reusing the buffers of the world geometry when they are
+     * big enough. The slot of the body has to be freshly allocated, so its state is already cleared.
+     *
+     * @param x         the x coordinate of the origin of the shape's coordinates in the world
+     * @param y         the y coordinate of the origin of the shape's coordinates in the world
+     * @param prototype the prototype of the body
+     */
+    void reset(double x, double y, BodyPrototype prototype){
+        this.prototype = prototype;
+        shape = prototype.shape;
+        density = prototype.density;
+        pixelsPerMeter = prototype.pixelsPerMeter;
+        if(worldVertices == null || worldVertices.length != shape.getVertices().length){
+            worldVertices = new double[shape.getVertices().length];
+            worldNormals = new double[shape.getNormals().length];
+        }
+        transformX = Double.NaN;
+        transformY = Double.NaN;
+        transformAngle = Double.NaN;
+        bullet = false;
+        sensor = false;
+        userData = null;
+        setMass(prototype.mass);
+        setMmoi(prototype.mmoi);
+        storage.positionX[slot] = x + shape.getCentroidX();
+        storage.positionY[slot] = y + shape.getCentroidY();
+        storage.previousX[slot] = storage.positionX[slot];
+        storage.previousY[slot] = storage.positionY[slot];
     }
 
     /**
-     * Instantiates a new Body.
+     * Instantiates a new Body. The shape is taken from the shape cache, so bodies made from the same image share it.
      *
      * @param x      the x coordinate
      * @param y      the y coordinate
-     * @param host   the host game object
+     * @param world  the world where the body is
      * @param img    the image from which body is calculated
      * @param height the height of the body
      */
-    Body(double x, double y, GameObject host, BufferedImage img, double height){
+    public Body(double x, double y, PhysicsWorld world, BufferedImage img, double height){
+        this(x, y, world, ShapeCache.getShape(img, height));
+    }
+
+    /**
+     * Gets the collision shape.
+     *
+     * @return the shape
+     */
+    public ConvexShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the prototype the body was made from. The mass and the moment of inertia of the body can have been changed
+     * since, the prototype keeps the values the body started with.
+     *
+     * @return the prototype
+     */
+    public BodyPrototype getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * Gets the radius of the circle around the centroid that contains the collision shape at any angle.
+     *
+     * @return the bounding radius
+     */
+    public double getBoundingRadius() {
+        return shape.boundingRadius;
+    }
 
-        density = 1;
-        angle = 0;
-        linearVelocity = new Point2D(0.0,0.0);
-        angularVelocity = 0;
-        world = host.getGameWindow().getWorld();
-        pixelsPerMeter = world.getPixelsPerMeter();
-        this.host = host;
-        shapes = new ArrayList<Shape>();
-        torque = 0;
-        inCollisionWith = new LinkedList<Body>();
+    /**
+     * Returns the axis aligned bounding box of the collision shape, recalculated if the body has moved or turned.
+     *
+     * @return the updated bounding box
+     */
+    public AABB updateAABB(){
+        updateWorldGeometry();
+        return aabb;
+    }
 
-        double scaler = height/img.getHeight();
-        Shape s = ShapeCreator.hullShapeFromImg(img, scaler);
-        s.setLayoutX(x);
-        s.setLayoutY(y);
-        s.setStroke(Color.BLUE);
-        s.setFill(null);
-        //s.setStrokeWidth(1);
-        shapes.add(s);
-        //TODO  area calculation returns negative when it should return positive value
-        mass = Math.abs(PhysicEngineUtils.calculatePolygonArea((Polygon) s))/(pixelsPerMeter*pixelsPerMeter);
-        centroid = PhysicEngineUtils.calculateCentroid((Polygon) s);
-        mmoi = PhysicEngineUtils.polygonMmoi((Polygon)s, centroid)/(pixelsPerMeter*pixelsPerMeter);
-        System.out.println("inertia " + mmoi);
-        System.out.println("mass " + mass);
-        debugCentroid = new Circle(centroid.getX(), centroid.getY(),1.0);
+    /**
+     * Transforms the vertices and edge normals of the collision shape to the world and recalculates the bounding box.
+     * The results are written to buffers of the body so nothing is allocated, and they are only recalculated when the
+     * position or the angle of the body has changed since the last call. Bodies that are resting or static aren't
+     * transformed again.
+     */
+    void updateWorldGeometry(){
+        double x = storage.positionX[slot];
+        double y = storage.positionY[slot];
+        double angle = storage.angle[slot];
+        if(x == transformX && y == transformY && angle == transformAngle){
+            return;
+        }
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        if(angle != transformAngle){
+            // normals don't depend on the position, so they are only rotated when the body has turned
+            double[] localNormals = shape.normals;
+            for(int i = 0; i < localNormals.length; i += 2){
+                double nx = localNormals[i];
+                double ny = localNormals[i + 1];
+                worldNormals[i] = nx * cos - ny * sin;
+                worldNormals[i + 1] = nx * sin + ny * cos;
+            }
+        }
+        transformX = x;
+        transformY = y;
+        transformAngle = angle;
 
-        System.out.println(centroid);
+        double[] localVertices = shape.vertices;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < localVertices.length; i += 2){
+            double vx = localVertices[i];
+            double vy = localVertices[i + 1];
+            double wx = x + vx * cos - vy * sin;
+            double wy = y + vx * sin + vy * cos;
+            worldVertices[i] = wx;
+            worldVertices[i + 1] = wy;
+            minX = Math.min(minX, wx);
+            minY = Math.min(minY, wy);
+            maxX = Math.max(maxX, wx);
+            maxY = Math.max(maxY, wy);
+        }
+        aabb.set(minX, minY, maxX, maxY);
     }
 
     /**
-     * Gets shapes.
+     * Returns the vertices of the collision shape in world coordinates. The returned array is reused by the body and
+     * must not be modified.
      *
-     * @return the shapes
+     * @return the vertices as x0, y0, x1, y1...
      */
-    public ArrayList<Shape> getShapes() {
-        return shapes;
+    public double[] getWorldVertices(){
+        updateWorldGeometry();
+        return worldVertices;
     }
 
     /**
-     * Sets shapes.
+     * Checks if the given point is inside the collision shape of the body.
      *
-     * @param shapes the shapes
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return true if the point is inside the body
      */
-    public void setShapes(ArrayList<Shape> shapes) {
-        this.shapes = shapes;
+    public boolean containsPoint(double x, double y){
+        return CollisionChecker.pointInPolygon(getWorldVertices(), x, y);
     }
 
     /**
-     * Applies force to body and calculates velocities and angle accordingly.
+     * Checks where a line segment hits the collision shape of the body.
+     *
+     * @param x1 x coordinate of the start of the segment
+     * @param y1 y coordinate of the start of the segment
+     * @param x2 x coordinate of the end of the segment
+     * @param y2 y coordinate of the end of the segment
+     * @return fraction of the segment from 0 to 1 where the body is hit, -1 if the segment misses the body
+     */
+    public double raycast(double x1, double y1, double x2, double y2){
+        return CollisionChecker.raycastPolygon(getWorldVertices(), x1, y1, x2, y2);
+    }
+
+    /**
+     * Gets the bounding box of the collision shape at the current position and angle. The returned box is reused by
+     * the body and must not be modified.
+     *
+     * @return the aabb
+     */
+    public AABB getAABB() {
+        updateWorldGeometry();
+        return aabb;
+    }
+
+    /**
+     * Applies force to body. The force changes the velocities of the body in the following simulation steps until
+     * the forces of the world are cleared, which the game window does after each frame. Wakes the body up.
      *
      * @param force the force to be applied on body
      * @param r     the r vector from centroid of the body to the point where force is applied
      */
-    public void applyForce(Point2D force, Point2D r){
-        Point2D acceleration = new Point2D(force.getX() / mass, force.getY() / mass);
+    public void applyForce(Vector2D force, Vector2D r){
+        setAwake(true);
+        storage.forceX[slot] += force.getX();
+        storage.forceY[slot] += force.getY();
+        storage.torque[slot] += force.getY()*r.getX()-force.getX()*r.getY();
+    }
 
-        linearVelocity = new Point2D(linearVelocity.getX()+ acceleration.getX() * host.getGameWindow().getDeltaTime(),
-                linearVelocity.getY()+acceleration.getY() * host.getGameWindow().getDeltaTime());
+    /**
+     * Applies an impulse to the body, changing its velocities immediately. Wakes the body up.
+     *
+     * @param impulse the impulse to be applied on body
+     * @param r       the r vector from centroid of the body to the point where the impulse is applied
+     */
+    public void applyImpulse(Vector2D impulse, Vector2D r){
+        setAwake(true);
+        double inverseMass = storage.inverseMass[slot];
+        storage.velocityX[slot] += impulse.getX() * inverseMass;
+        storage.velocityY[slot] += impulse.getY() * inverseMass;
+        storage.angularVelocity[slot] += (impulse.getY()*r.getX()-impulse.getX()*r.getY()) * storage.inverseInertia[slot];
+    }
 
-        calculateTorque(force, r);
-        double angularAcceleration = torque / mmoi;
-        angularVelocity += angularAcceleration * host.getGameWindow().getDeltaTime();
-        angle += angularVelocity * host.getGameWindow().getDeltaTime();
+    /**
+     * Is the body a bullet, swept for continuous collisions against the other bodies every step.
+     *
+     * @return true if the body is a bullet
+     */
+    public boolean isBullet() {
+        return bullet;
+    }
 
+    /**
+     * Sets the body a bullet. Bullets that move more than half of their size in a step are swept from where they
+     * were to where they moved, so fast bodies don't pass through thin ones. Bullets aren't swept against each other.
+     *
+     * @param bullet true to sweep the body
+     */
+    public void setBullet(boolean bullet) {
+        this.bullet = bullet;
     }
 
     /**
-     * Updates position according to velocities and angle.
+     * Checks if the collision filters of this body and another body let them collide.
+     *
+     * @param other the other body
+     * @return true if the bodies can collide
      */
-    public void updatePosition(){
-        double xChange = linearVelocity.getX() * host.getGameWindow().getDeltaTime()* world.getPixelsPerMeter();
-        double yChange = linearVelocity.getY() * host.getGameWindow().getDeltaTime()* world.getPixelsPerMeter();
-        getShapes().forEach(n->{
-            n.setRotate(angle*180/Math.PI);
-            host.setRotate(n.getRotate());
-        n.setLayoutX(n.getLayoutX()+ xChange);
-        n.setLayoutY(n.getLayoutY()+ yChange);
-        host.setX(n.getLayoutX());
-        host.setY(n.getLayoutY());
+    public boolean shouldCollide(Body other){
+        return BodyStorage.shouldCollide(storage, slot, other.storage, other.slot);
+    }
 
+    /**
+     * Gets the collision categories the body belongs to.
+     *
+     * @return the category bits
+     */
+    public int getCategoryBits() {
+        return storage.category[slot];
+    }
 
-        });
+    /**
+     * Sets the collision categories the body belongs to, one bit for each category. A body only collides with bodies
+     * whose mask has one of its category bits set, and the other way round.
+     *
+     * @param categoryBits the category bits
+     */
+    public void setCategoryBits(int categoryBits) {
+        storage.category[slot] = categoryBits;
+    }
 
-        centroid = new Point2D(centroid.getX()+xChange, centroid.getY()+yChange);
-        debugCentroid.setCenterX(centroid.getX());
-        debugCentroid.setCenterY(centroid.getY());
+    /**
+     * Gets the collision categories the body collides with.
+     *
+     * @return the mask bits
+     */
+    public int getMaskBits() {
+        return storage.mask[slot];
+    }
 
+    /**
+     * Sets the collision categories the body collides with. Zero makes the body collide with nothing.
+     *
+     * @param maskBits the mask bits
+     */
+    public void setMaskBits(int maskBits) {
+        storage.mask[slot] = maskBits;
+    }
+
+    /**
+     * Gets the collision group of the body.
+     *
+     * @return the group index, zero if the body isn't in a group
+     */
+    public int getGroupIndex() {
+        return storage.group[slot];
+    }
+
+    /**
+     * Sets the collision group of the body. Bodies in the same positive group always collide and bodies in the same
+     * negative group never collide, whatever their categories and masks. Zero takes the body out of its group.
+     *
+     * @param groupIndex the group index
+     */
+    public void setGroupIndex(int groupIndex) {
+        storage.group[slot] = groupIndex;
+    }
+
+    /**
+     * Is the body a sensor.
+     *
+     * @return true if the body is a sensor
+     */
+    public boolean isSensor() {
+        return sensor;
+    }
+
+    /**
+     * Sets the body a sensor. Pairs with a sensor are tested in a pass of their own that only checks if the shapes
+     * overlap, and the overlaps never reach the contact solver. Two sensors aren't tested against each other.
+     *
+     * @param sensor true to make the body a sensor
+     */
+    public void setSensor(boolean sensor) {
+        this.sensor = sensor;
     }
 
     /**
-     * Calculates torque according to the force applied to the body.
+     * Is the body awake. A sleeping body isn't moved by the world and is only tested for collisions against awake
+     * bodies.
+     *
+     * @return true if the body is awake
+     */
+    public boolean isAwake() {
+        return storage.awake[slot];
+    }
+
+    /**
+     * Wakes the body up or puts it to sleep. A body put to sleep is stopped.
+     *
+     * @param awake true to wake the body up, false to put it to sleep
+     */
+    public void setAwake(boolean awake) {
+        storage.awake[slot] = awake;
+        storage.sleepTime[slot] = 0;
+        if(!awake){
+            storage.velocityX[slot] = 0;
+            storage.velocityY[slot] = 0;
+            storage.angularVelocity[slot] = 0;
+            storage.forceX[slot] = 0;
+            storage.forceY[slot] = 0;
+            storage.torque[slot] = 0;
+        }
+    }
+
+    /**
+     * Updates position according to velocities and angle.
+     */
+    public void updatePosition(){
+        double xChange = storage.velocityX[slot] * world.getDeltaTime()* world.getPixelsPerMeter();
+        double yChange = storage.velocityY[slot] * world.getDeltaTime()* world.getPixelsPerMeter();
+
+        storage.positionX[slot] += xChange;
+        storage.positionY[slot] += yChange;
+        world.updateProxy(this, xChange, yChange);
+
+    }
+
+    /**
+     * Calculates torque according to the force applied to the body and sets it as the torque of the body.
      *
      * @param f the force to be applied on body
      * @param r the r vector from centroid of the body to the point where force is applied
      */
-    public void calculateTorque(Point2D f, Point2D r){
+    public void calculateTorque(Vector2D f, Vector2D r){
         setTorque(f.getY()*r.getX()-f.getX()*r.getY());
     }
 
@@ -208,10 +502,15 @@ public class Body {
      * @param y the y move destance
      */
     public void move(double x, double y){
-        getShapes().forEach(n->{
-            n.setLayoutX(n.getLayoutX()+x);
-            n.setLayoutY(n.getLayoutY()+y);
-        });
+        setAwake(true);
+        storage.positionX[slot] += x;
+        storage.positionY[slot] += y;
+        // moved as a whole so that the view doesn't interpolate the jump
+        storage.previousX[slot] += x;
+        storage.previousY[slot] += y;
+        if(world != null){
+            world.updateProxy(this, x, y);
+        }
     }
 
 
@@ -221,34 +520,26 @@ public class Body {
      * @return the mass
      */
     public double getMass() {
-        return mass;
+        double inverseMass = storage.inverseMass[slot];
+        return inverseMass == 0 ? Double.POSITIVE_INFINITY : 1 / inverseMass;
     }
 
     /**
-     * Sets mass.
+     * Sets mass. Infinite mass makes the body immovable.
      *
      * @param mass the mass
      */
     public void setMass(double mass) {
-        this.mass = mass;
-    }
-
-    /**
-     * Gets debug centroid.
-     *
-     * @return the debug centroid
-     */
-    public Circle getDebugCentroid() {
-        return debugCentroid;
+        storage.inverseMass[slot] = mass == 0 || Double.isInfinite(mass) ? 0 : 1 / mass;
     }
 
     /**
-     * Sets debug centroid.
+     * Gets one divided by the mass.
      *
-     * @param debugCentroid the debug centroid
+     * @return the inverse mass
      */
-    public void setDebugCentroid(Circle debugCentroid) {
-        this.debugCentroid = debugCentroid;
+    public double getInverseMass() {
+        return storage.inverseMass[slot];
     }
 
     /**
@@ -257,7 +548,7 @@ public class Body {
      * @return the torque
      */
     public double getTorque() {
-        return torque;
+        return storage.torque[slot];
     }
 
     /**
@@ -266,25 +557,25 @@ public class Body {
      * @param torque the torque
      */
     public void setTorque(double torque) {
-        this.torque = torque;
+        storage.torque[slot] = torque;
     }
 
     /**
-     * Gets host.
+     * Gets user data.
      *
-     * @return the host
+     * @return the user data
      */
-    public GameObject getHost() {
-        return host;
+    public Object getUserData() {
+        return userData;
     }
 
     /**
-     * Sets host.
+     * Sets user data. Can be used for finding the game object that uses this body.
      *
-     * @param host the host
+     * @param userData the user data
      */
-    public void setHost(GameObject host) {
-        this.host = host;
+    public void setUserData(Object userData) {
+        this.userData = userData;
     }
 
     /**
@@ -292,17 +583,21 @@ public class Body {
      *
      * @return the linear velocity
      */
-    public Point2D getLinearVelocity() {
-        return linearVelocity;
+    public Vector2D getLinearVelocity() {
+        return new Vector2D(storage.velocityX[slot], storage.velocityY[slot]);
     }
 
     /**
-     * Sets linear velocity.
+     * Sets linear velocity. A velocity other than zero wakes the body up.
      *
      * @param linearVelocity the linear velocity
      */
-    public void setLinearVelocity(Point2D linearVelocity) {
-        this.linearVelocity = linearVelocity;
+    public void setLinearVelocity(Vector2D linearVelocity) {
+        if(linearVelocity.getX() != 0 || linearVelocity.getY() != 0){
+            setAwake(true);
+        }
+        storage.velocityX[slot] = linearVelocity.getX();
+        storage.velocityY[slot] = linearVelocity.getY();
     }
 
     /**
@@ -311,16 +606,19 @@ public class Body {
      * @return the angular velocity
      */
     public double getAngularVelocity() {
-        return angularVelocity;
+        return storage.angularVelocity[slot];
     }
 
     /**
-     * Sets angular velocity.
+     * Sets angular velocity. A velocity other than zero wakes the body up.
      *
      * @param angularVelocity the angular velocity
      */
     public void setAngularVelocity(double angularVelocity) {
-        this.angularVelocity = angularVelocity;
+        if(angularVelocity != 0){
+            setAwake(true);
+        }
+        storage.angularVelocity[slot] = angularVelocity;
     }
 
     /**
@@ -377,13 +675,84 @@ public class Body {
         this.world = world;
     }
 
+    /**
+     * Gets the x coordinate of the origin of the shape's coordinates, for example the top left corner of the image the
+     * shape was made from. The origin is given as if the body wasn't rotated.
+     *
+     * @return the origin x
+     */
+    public double getOriginX() {
+        return storage.positionX[slot] - shape.getCentroidX();
+    }
+
+    /**
+     * Gets the y coordinate of the origin of the shape's coordinates. The origin is given as if the body wasn't
+     * rotated.
+     *
+     * @return the origin y
+     */
+    public double getOriginY() {
+        return storage.positionY[slot] - shape.getCentroidY();
+    }
+
     /**
      * Gets centroid.
      *
      * @return the centroid
      */
-    public Point2D getCentroid() {
-        return centroid;
+    public Vector2D getCentroid() {
+        return new Vector2D(storage.positionX[slot], storage.positionY[slot]);
+    }
+
+    /**
+     * Gets the x coordinate of the centroid between the previous and the current step.
+     *
+     * @param interpolation 0 gives the position before the last step and 1 the current position
+     * @return the interpolated centroid x
+     */
+    public double getInterpolatedCentroidX(double interpolation) {
+        double previous = storage.previousX[slot];
+        return previous + (storage.positionX[slot] - previous) * interpolation;
+    }
+
+    /**
+     * Gets the y coordinate of the centroid between the previous and the current step.
+     *
+     * @param interpolation 0 gives the position before the last step and 1 the current position
+     * @return the interpolated centroid y
+     */
+    public double getInterpolatedCentroidY(double interpolation) {
+        double previous = storage.previousY[slot];
+        return previous + (storage.positionY[slot] - previous) * interpolation;
+    }
+
+    /**
+     * Gets the angle between the previous and the current step.
+     *
+     * @param interpolation 0 gives the angle before the last step and 1 the current angle
+     * @return the interpolated angle
+     */
+    public double getInterpolatedAngle(double interpolation) {
+        double previous = storage.previousAngle[slot];
+        return previous + (storage.angle[slot] - previous) * interpolation;
+    }
+
+    /**
+     * Gets the x coordinate of the centroid.
+     *
+     * @return the centroid x
+     */
+    public double getCentroidX() {
+        return storage.positionX[slot];
+    }
+
+    /**
+     * Gets the y coordinate of the centroid.
+     *
+     * @return the centroid y
+     */
+    public double getCentroidY() {
+        return storage.positionY[slot];
     }
 
     /**
@@ -391,8 +760,8 @@ public class Body {
      *
      * @param centroid the centroid
      */
-    public void setCentroid(Point2D centroid) {
-        this.centroid = centroid;
+    public void setCentroid(Vector2D centroid) {
+        move(centroid.getX() - storage.positionX[slot], centroid.getY() - storage.positionY[slot]);
     }
 
     /**
@@ -401,16 +770,26 @@ public class Body {
      * @return the mmoi
      */
     public double getMmoi() {
-        return mmoi;
+        double inverseInertia = storage.inverseInertia[slot];
+        return inverseInertia == 0 ? Double.POSITIVE_INFINITY : 1 / inverseInertia;
     }
 
     /**
-     * Sets mmoi.
+     * Sets mmoi. Infinite moment of inertia keeps the body from rotating.
      *
      * @param mmoi the mmoi
      */
     public void setMmoi(double mmoi) {
-        this.mmoi = mmoi;
+        storage.inverseInertia[slot] = mmoi == 0 || Double.isInfinite(mmoi) ? 0 : 1 / mmoi;
+    }
+
+    /**
+     * Gets one divided by the moment of inertia.
+     *
+     * @return the inverse mmoi
+     */
+    public double getInverseMmoi() {
+        return storage.inverseInertia[slot];
     }
 
     /**
@@ -419,7 +798,7 @@ public class Body {
      * @return the angle
      */
     public double getAngle() {
-        return angle;
+        return storage.angle[slot];
     }
 
     /**
@@ -428,24 +807,40 @@ public class Body {
      * @param angle the angle
      */
     public void setAngle(double angle) {
-        this.angle = angle;
+        setAwake(true);
+        storage.previousAngle[slot] += angle - storage.angle[slot];
+        storage.angle[slot] = angle;
+        if(world != null){
+            world.updateProxy(this, 0, 0);
+        }
+    }
+
+    /**
+     * Gets the slot of the body in its storage. The slot of a body can change when other bodies are removed from the
+     * world.
+     *
+     * @return the slot
+     */
+    public int getSlot() {
+        return slot;
     }
 
     /**
-     * Gets in collision with.
+     * Gets the id of the body in its world.
      *
-     * @return the in collision with
+     * @return the id, -1 if the body isn't in a world
      */
-    public LinkedList<Body> getInCollisionWith() {
-        return inCollisionWith;
+    public int getId() {
+        return id;
     }
 
     /**
-     * Sets in collision with.
+     * Checks if this body touched the given body in the last step of their world.
      *
-     * @param inCollisionWith the in collision with
+     * @param other the other body
+     * @return true if the bodies are touching
      */
-    public void setInCollisionWith(LinkedList<Body> inCollisionWith) {
-        this.inCollisionWith = inCollisionWith;
+    public boolean isTouching(Body other) {
+        return world != null && world.isTouching(this, other);
     }
 }
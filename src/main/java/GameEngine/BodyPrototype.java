@@ -0,0 +1,121 @@
+package GameEngine;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The parts of a body that are the same for every body made from it: the collision shape and the mass and moment of
+ * inertia it gives at a density. Bodies made from a prototype point to it and to its shape instead of working them
+ * out again, so spawning many bodies of the same kind only costs the state each body keeps in the world's storage
+ * and its cached world vertices. Prototypes don't change, so one prototype can be shared by any number of bodies and
+ * threads.
+ *
+ * The mass depends on the pixels per meter of the world, so a prototype can only be used in worlds with the same
+ * ratio.
+ */
+public class BodyPrototype {
+
+    /**
+     * The collision shape of the bodies.
+     */
+    final ConvexShape shape;
+    /**
+     * The density of the bodies.
+     */
+    final double density;
+    /**
+     * The ratio of JavaFX units to meters the mass is calculated with.
+     */
+    final double pixelsPerMeter;
+    /**
+     * The mass of the bodies.
+     */
+    final double mass;
+    /**
+     * The moment of inertia of the bodies around their centroids.
+     */
+    final double mmoi;
+
+    /**
+     * Instantiates a new Body prototype with density 1.
+     *
+     * @param shape          the collision shape of the bodies
+     * @param pixelsPerMeter the pixels per meter of the world the bodies are used in
+     */
+    public BodyPrototype(ConvexShape shape, double pixelsPerMeter){
+        this(shape, 1, pixelsPerMeter);
+    }
+
+    /**
+     * Instantiates a new Body prototype.
+     *
+     * @param shape          the collision shape of the bodies
+     * @param density        the density of the bodies
+     * @param pixelsPerMeter the pixels per meter of the world the bodies are used in
+     */
+    public BodyPrototype(ConvexShape shape, double density, double pixelsPerMeter){
+        if(!(pixelsPerMeter > 0)){
+            throw new IllegalArgumentException("Pixels per meter has to be positive: " + pixelsPerMeter);
+        }
+        this.shape = shape;
+        this.density = density;
+        this.pixelsPerMeter = pixelsPerMeter;
+        mass = density * shape.getArea() / (pixelsPerMeter * pixelsPerMeter);
+        mmoi = density * shape.getAreaMmoi() / Math.pow(pixelsPerMeter, 4);
+    }
+
+    /**
+     * Instantiates a new Body prototype with density 1 from an image. The shape is taken from the shape cache.
+     *
+     * @param img            the image the shape is made from
+     * @param height         the height the image is scaled to
+     * @param pixelsPerMeter the pixels per meter of the world the bodies are used in
+     */
+    public BodyPrototype(BufferedImage img, double height, double pixelsPerMeter){
+        this(ShapeCache.getShape(img, height), pixelsPerMeter);
+    }
+
+    /**
+     * Gets the collision shape.
+     *
+     * @return the shape
+     */
+    public ConvexShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets density.
+     *
+     * @return the density
+     */
+    public double getDensity() {
+        return density;
+    }
+
+    /**
+     * Gets pixels per meter.
+     *
+     * @return the pixels per meter
+     */
+    public double getPixelsPerMeter() {
+        return pixelsPerMeter;
+    }
+
+    /**
+     * Gets mass.
+     *
+     * @return the mass
+     */
+    public double getMass() {
+        return mass;
+    }
+
+    /**
+     * Gets mmoi.
+     *
+     * @return the mmoi
+     */
+    public double getMmoi() {
+        return mmoi;
+    }
+}
@@ -0,0 +1,294 @@
+package GameEngine;
+
+import java.util.Arrays;
+
+/**
+ * Holds the state of bodies that changes every step in parallel arrays. A Body is a handle to one slot of a storage,
+ * so the world can integrate and solve all bodies by sweeping through the arrays instead of following references to
+ * separate body objects. Positions are the centroids of the bodies in JavaFX units, velocities are in meters per
+ * second and angles in radians.
+ *
+ * Slots are kept packed: removing a body moves the last body to the removed slot.
+ */
+public class BodyStorage {
+
+    /**
+     * Collision category of a new body.
+     */
+    public static final int DEFAULT_CATEGORY = 1;
+    /**
+     * Collision mask of a new body, colliding with every category.
+     */
+    public static final int DEFAULT_MASK = -1;
+
+    /**
+     * The x coordinates of the centroids.
+     */
+    double[] positionX;
+    /**
+     * The y coordinates of the centroids.
+     */
+    double[] positionY;
+    /**
+     * The x components of the linear velocities.
+     */
+    double[] velocityX;
+    /**
+     * The y components of the linear velocities.
+     */
+    double[] velocityY;
+    /**
+     * The angles.
+     */
+    double[] angle;
+    /**
+     * The angular velocities.
+     */
+    double[] angularVelocity;
+    /**
+     * One divided by the mass of the body, zero for bodies that can't be moved.
+     */
+    double[] inverseMass;
+    /**
+     * One divided by the moment of inertia of the body, zero for bodies that can't be rotated.
+     */
+    double[] inverseInertia;
+    /**
+     * The x coordinates of the centroids before the last step.
+     */
+    double[] previousX;
+    /**
+     * The y coordinates of the centroids before the last step.
+     */
+    double[] previousY;
+    /**
+     * The angles before the last step.
+     */
+    double[] previousAngle;
+    /**
+     * The x components of the forces applied since the forces were last cleared.
+     */
+    double[] forceX;
+    /**
+     * The y components of the forces applied since the forces were last cleared.
+     */
+    double[] forceY;
+    /**
+     * The torques applied since the forces were last cleared.
+     */
+    double[] torque;
+    /**
+     * Is the body awake. Sleeping bodies aren't moved and are only tested for collisions against awake bodies.
+     */
+    boolean[] awake;
+    /**
+     * How long the body has been moving slower than the sleep tolerances, in seconds.
+     */
+    double[] sleepTime;
+    /**
+     * The collision categories of the bodies, one bit for each category a body belongs to.
+     */
+    int[] category;
+    /**
+     * The categories each body collides with.
+     */
+    int[] mask;
+    /**
+     * The collision groups of the bodies. Bodies in the same positive group always collide and bodies in the same
+     * negative group never, whatever their categories. Zero means no group.
+     */
+    int[] group;
+    /**
+     * The body using each slot.
+     */
+    Body[] bodies;
+
+    /**
+     * Number of slots in use.
+     */
+    int count;
+
+    /**
+     * Instantiates a new Body storage.
+     *
+     * @param capacity the initial number of slots
+     */
+    public BodyStorage(int capacity){
+        capacity = Math.max(capacity, 1);
+        positionX = new double[capacity];
+        positionY = new double[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        angle = new double[capacity];
+        angularVelocity = new double[capacity];
+        inverseMass = new double[capacity];
+        inverseInertia = new double[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        previousAngle = new double[capacity];
+        forceX = new double[capacity];
+        forceY = new double[capacity];
+        torque = new double[capacity];
+        awake = new boolean[capacity];
+        sleepTime = new double[capacity];
+        category = new int[capacity];
+        mask = new int[capacity];
+        group = new int[capacity];
+        bodies = new Body[capacity];
+    }
+
+    /**
+     * Grows the arrays to hold at least the given number of slots.
+     *
+     * @param capacity the needed capacity
+     */
+    void ensureCapacity(int capacity){
+        if(capacity <= bodies.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, bodies.length * 2);
+        positionX = Arrays.copyOf(positionX, newCapacity);
+        positionY = Arrays.copyOf(positionY, newCapacity);
+        velocityX = Arrays.copyOf(velocityX, newCapacity);
+        velocityY = Arrays.copyOf(velocityY, newCapacity);
+        angle = Arrays.copyOf(angle, newCapacity);
+        angularVelocity = Arrays.copyOf(angularVelocity, newCapacity);
+        inverseMass = Arrays.copyOf(inverseMass, newCapacity);
+        inverseInertia = Arrays.copyOf(inverseInertia, newCapacity);
+        previousX = Arrays.copyOf(previousX, newCapacity);
+        previousY = Arrays.copyOf(previousY, newCapacity);
+        previousAngle = Arrays.copyOf(previousAngle, newCapacity);
+        forceX = Arrays.copyOf(forceX, newCapacity);
+        forceY = Arrays.copyOf(forceY, newCapacity);
+        torque = Arrays.copyOf(torque, newCapacity);
+        awake = Arrays.copyOf(awake, newCapacity);
+        sleepTime = Arrays.copyOf(sleepTime, newCapacity);
+        category = Arrays.copyOf(category, newCapacity);
+        mask = Arrays.copyOf(mask, newCapacity);
+        group = Arrays.copyOf(group, newCapacity);
+        bodies = Arrays.copyOf(bodies, newCapacity);
+    }
+
+    /**
+     * Reserves a slot for a body. The state of the slot is cleared.
+     *
+     * @param body the body using the slot
+     * @return the slot
+     */
+    int allocate(Body body){
+        ensureCapacity(count + 1);
+        int slot = count++;
+        positionX[slot] = 0;
+        positionY[slot] = 0;
+        velocityX[slot] = 0;
+        velocityY[slot] = 0;
+        angle[slot] = 0;
+        angularVelocity[slot] = 0;
+        inverseMass[slot] = 0;
+        inverseInertia[slot] = 0;
+        previousX[slot] = 0;
+        previousY[slot] = 0;
+        previousAngle[slot] = 0;
+        forceX[slot] = 0;
+        forceY[slot] = 0;
+        torque[slot] = 0;
+        awake[slot] = true;
+        sleepTime[slot] = 0;
+        category[slot] = DEFAULT_CATEGORY;
+        mask[slot] = DEFAULT_MASK;
+        group[slot] = 0;
+        bodies[slot] = body;
+        return slot;
+    }
+
+    /**
+     * Copies the state of a slot from another storage.
+     *
+     * @param slot       the slot to copy to
+     * @param from       the storage to copy from
+     * @param fromSlot   the slot to copy from
+     */
+    void copy(int slot, BodyStorage from, int fromSlot){
+        positionX[slot] = from.positionX[fromSlot];
+        positionY[slot] = from.positionY[fromSlot];
+        velocityX[slot] = from.velocityX[fromSlot];
+        velocityY[slot] = from.velocityY[fromSlot];
+        angle[slot] = from.angle[fromSlot];
+        angularVelocity[slot] = from.angularVelocity[fromSlot];
+        inverseMass[slot] = from.inverseMass[fromSlot];
+        inverseInertia[slot] = from.inverseInertia[fromSlot];
+        previousX[slot] = from.previousX[fromSlot];
+        previousY[slot] = from.previousY[fromSlot];
+        previousAngle[slot] = from.previousAngle[fromSlot];
+        forceX[slot] = from.forceX[fromSlot];
+        forceY[slot] = from.forceY[fromSlot];
+        torque[slot] = from.torque[fromSlot];
+        awake[slot] = from.awake[fromSlot];
+        sleepTime[slot] = from.sleepTime[fromSlot];
+        category[slot] = from.category[fromSlot];
+        mask[slot] = from.mask[fromSlot];
+        group[slot] = from.group[fromSlot];
+    }
+
+    /**
+     * Checks if the collision filters of two slots let the bodies collide. Bodies sharing a group other than zero
+     * collide if the group is positive. Otherwise each body has to be in a category the other one's mask accepts.
+     * Tested before any geometry, so filtered pairs cost one comparison and two ANDs.
+     *
+     * @param storageA the storage of the first body
+     * @param a        the slot of the first body
+     * @param storageB the storage of the second body
+     * @param b        the slot of the second body
+     * @return true if the bodies can collide
+     */
+    static boolean shouldCollide(BodyStorage storageA, int a, BodyStorage storageB, int b){
+        int groupA = storageA.group[a];
+        if(groupA != 0 && groupA == storageB.group[b]){
+            return groupA > 0;
+        }
+        return (storageA.category[a] & storageB.mask[b]) != 0 && (storageB.category[b] & storageA.mask[a]) != 0;
+    }
+
+    /**
+     * Clears the forces and torques of all slots.
+     */
+    void clearForces(){
+        Arrays.fill(forceX, 0, count, 0);
+        Arrays.fill(forceY, 0, count, 0);
+        Arrays.fill(torque, 0, count, 0);
+    }
+
+    /**
+     * Frees a slot by moving the body in the last slot to it. The moved body's handle is updated.
+     *
+     * @param slot the slot to free
+     */
+    void remove(int slot){
+        int last = --count;
+        if(slot != last){
+            copy(slot, this, last);
+            bodies[slot] = bodies[last];
+            bodies[slot].slot = slot;
+        }
+        bodies[last] = null;
+    }
+
+    /**
+     * Gets the number of slots in use.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the body using the given slot.
+     *
+     * @param slot the slot
+     * @return the body
+     */
+    public Body getBody(int slot) {
+        return bodies[slot];
+    }
+}
@@ -0,0 +1,21 @@
+package GameEngine;
+
+/**
+ * The enum Collision algorithm, the polygon collision check used by the narrowphase.
+ */
+public enum CollisionAlgorithm {
+    /**
+     * Separating axis test, projecting every vertex of both polygons on every edge normal. Fastest for polygons with
+     * few vertices.
+     */
+    SAT,
+    /**
+     * GJK with EPA for the penetration, finding support points by walking along the edges of the polygons. Its cost
+     * grows much slower with the number of vertices than the separating axis test.
+     */
+    GJK,
+    /**
+     * Uses GJK for pairs with more vertices than the vertex threshold of the narrowphase and SAT for the rest.
+     */
+    AUTO
+}
@@ -1,10 +1,7 @@
 package GameEngine;
 
 
-import javafx.collections.ObservableList;
-import javafx.geometry.Point2D;
 import java.util.LinkedList;
-import javafx.scene.shape.Polygon;
 
 
 /**
@@ -14,7 +11,8 @@ public class CollisionChecker {
 
 
     /**
-     * Checks if two circles are colliding.
+     * Checks if two circles are colliding. Circles that just touch are colliding, like polygons in the separating axis
+     * test. The squared distance is compared to the squared sum of the radii, so no square root is needed.
      *
      * @param x1      x coordinate of first circle
      * @param y1      y coordinate of first circle
@@ -25,85 +23,59 @@ public class CollisionChecker {
      * @return the boolean
      */
     public static boolean circleCircleCol(double x1, double y1, double radius1, double x2, double y2, double radius2){
-        double distance;
-        distance = Math. sqrt((x2-x1)*(x2-x1) + (y2-y1)*(y2-y1));
-        if(distance<(radius1+radius2)){
-            return true;
-        }else{
-            return false;
-        }
-
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double radius = radius1 + radius2;
+        return dx * dx + dy * dy <= radius * radius;
     }
 
     /**
-     * Returns vertices of a javafx.scene.shape.Polygon as a List of Point2Ds.
+     * Returns vertices of a polygon given as x0, y0, x1, y1... as a List of Vector2Ds.
      *
-     * @param shape polygon
+     * @param pointsXY the vertices of the polygon
      * @return the linked list
      */
-    static LinkedList<Point2D> pointsFromPolygon(Polygon shape){
-        ObservableList<Double> pointsXY = shape.getPoints();
-        LinkedList<Point2D> vertices = new LinkedList<Point2D>();
-        double xLocation = shape.getLayoutX();
-        double yLocation = shape.getLayoutY();
-
-        for(int i = 0; i<pointsXY.size(); i+=2){
-            double x = xLocation+pointsXY.get(i);
-            double y = yLocation+pointsXY.get((i)+1);
+    static LinkedList<Vector2D> pointsFromArray(double[] pointsXY){
+        LinkedList<Vector2D> vertices = new LinkedList<Vector2D>();
 
-            vertices.add( new Point2D(x,y));
+        for(int i = 0; i<pointsXY.length; i+=2){
+            vertices.add( new Vector2D(pointsXY[i],pointsXY[i+1]));
         }
         return vertices;
     }
 
     /**
-     * Gets normal vectors of polygons sides.
+     * Calculates the unit length normals of a polygon's edges. The normal at index i is the normal of the edge from
+     * vertex i to vertex i+1. For polygons wound like ConvexShape winds them the normals point outwards.
      *
-     * @param vertices the vertices of a Polygon
-     * @return linked list containing normal vectors as Point2Ds
+     * @param vertices the vertices of the polygon as x0, y0, x1, y1...
+     * @param normals  array the normals are written to as x0, y0, x1, y1..., same length as vertices
      */
-    static LinkedList<Point2D> getShapeNormals(LinkedList<Point2D> vertices){
-
-        LinkedList<Point2D> normals = new LinkedList<Point2D>();
-
-        for (int i = 0; i<vertices.size(); i++){
-            Point2D normalvec =
-            getNormal(vecSubtract(vertices.get(i), vertices.get((i+1)%vertices.size())));
-            normals.add(normalvec);
+    static void calculateNormals(double[] vertices, double[] normals){
+        int n = vertices.length;
+        for(int i = 0; i < n; i += 2){
+            int j = (i + 2) % n;
+            double normalX = vertices[j + 1] - vertices[i + 1];
+            double normalY = -(vertices[j] - vertices[i]);
+            double length = Math.sqrt(normalX * normalX + normalY * normalY);
+            if(length > 0){
+                normalX /= length;
+                normalY /= length;
+            }
+            normals[i] = normalX;
+            normals[i + 1] = normalY;
         }
-
-        return normals;
     }
 
     /**
-     * Projects shape to an axis.
+     * Turns the given vectors around.
      *
-     * @param axis  the axis of projection
-     * @param shape the shape to be projected
-     * @return double [ ] containing minimum an maximum values of shapes vertices projected on the axis
+     * @param vectors the vectors as x0, y0, x1, y1...
      */
-    static double[] projection(Point2D axis, LinkedList<Point2D> shape) {
-
-
-        double min = dotProduct(axis, shape.get(0));
-        double max = min;
-        double minVerticeIndex = 0;
-        double maxVerticeIndex = 0;
-        for (int i = 1; i < shape.size(); i++) {
-            // NOTE: the axis must be normalized to get accurate projections
-            double p = dotProduct(axis, shape.get(i));
-            if (p < min) {
-                min = p;
-                minVerticeIndex = i;
-            } else if (p > max) {
-                max = p;
-                maxVerticeIndex = i;
-            }
+    static void negate(double[] vectors){
+        for(int i = 0; i < vectors.length; i++){
+            vectors[i] = -vectors[i];
         }
-        double[] proj = new double[]{min, max, minVerticeIndex, maxVerticeIndex};
-
-        return proj;
-
     }
 
     /**
@@ -131,7 +103,7 @@ public class CollisionChecker {
      * @param v2 vector 2
      * @return double dotproduct of vectors
      */
-    static double dotProduct(Point2D v1, Point2D v2){
+    static double dotProduct(Vector2D v1, Vector2D v2){
         return v1.getX()*v2.getX()+v1.getY()*v2.getY();
     }
 
@@ -140,144 +112,467 @@ public class CollisionChecker {
      *
      * @param v1 vector 1
      * @param v2 vector 2
-     * @return subtraction of vectors as Point2D
+     * @return subtraction of vectors as Vector2D
      */
-    static Point2D vecSubtract(Point2D v1, Point2D v2){
-        return new Point2D(v1.getX()-v2.getX(), v1.getY()-v2.getY());
+    static Vector2D vecSubtract(Vector2D v1, Vector2D v2){
+        return new Vector2D(v1.getX()-v2.getX(), v1.getY()-v2.getY());
     }
 
     /**
-     * Gets normalized (unit length) normal of a vector.
+     * Checks collision of the collision shapes of two bodies.
      *
-     * @param vec the vector
-     * @return normal vector as Point 2D
+     * @param body1 the body 1
+     * @param body2 the body 2
+     * @return information of the collision or null if the bodies aren't colliding
      */
-    static Point2D getNormal(Point2D vec){
-        Point2D p = new Point2D(vec.getY(), vec.getX()*-1);
-        p = p.normalize();
-        return p;
+    public static CollisionInfo checkCollision(Body body1, Body body2){
+        CollisionInfo info = new CollisionInfo();
+        return checkCollision(body1, body2, info) ? info : null;
     }
 
     /**
-     * Gets overlap of two projections given double[] where index 0 is the min value of projection and index 1 is max.
+     * Checks collision of the collision shapes of two bodies without allocating anything. The edge normals of the
+     * bodies are calculated once when their shapes are created and only rotated to the world.
      *
-     * @param projection1 the projection 1
-     * @param projection2 the projection 2
-     * @return the overlap of projections as a double
+     * @param body1  the body 1
+     * @param body2  the body 2
+     * @param result the collision info the result is written to if the bodies are colliding
+     * @return true if the bodies are colliding
      */
-    static double getOverlap(double[] projection1, double[] projection2){
-        double overlap = Math.min(projection1[1], projection2[1])-Math.max(projection1[0], projection2[0]);
-        return overlap;
+    public static boolean checkCollision(Body body1, Body body2, CollisionInfo result){
+        body1.updateWorldGeometry();
+        body2.updateWorldGeometry();
+        return checkCollision(body1.worldVertices, body1.worldNormals, body2.worldVertices, body2.worldNormals, result);
     }
 
     /**
-     * Gets overlapping vertice's index from the projection2.
+     * Checks collision of two polygons.
      *
-     * @param projection1 the projection 1
-     * @param projection2 the projection 2
-     * @return vertice index int;
+     * @param poly1 the vertices of polygon 1 as x0, y0, x1, y1...
+     * @param poly2 the vertices of polygon 2 as x0, y0, x1, y1...
+     * @return information of the collision or null if the polygons aren't colliding
      */
-    static int getOverlappingVerticeIndex(double[] projection1, double[] projection2){
-        if(projection1[0]<projection2[0]){
-            return (int) projection2[2];
-        }else {
-            return (int) projection2[3];
+    public static CollisionInfo checkCollision(double[] poly1, double[] poly2){
+        double[] normals1 = new double[poly1.length];
+        double[] normals2 = new double[poly2.length];
+        calculateNormals(poly1, normals1);
+        calculateNormals(poly2, normals2);
+        // the collision points need outward normals
+        if(signedArea2(poly1) < 0){
+            negate(normals1);
+        }
+        if(signedArea2(poly2) < 0){
+            negate(normals2);
         }
+        CollisionInfo info = new CollisionInfo();
+        return checkCollision(poly1, normals1, poly2, normals2, info) ? info : null;
     }
 
-
     /**
-     * Checks collision of two polygons.
+     * Checks collision of two convex polygons with the separating axis theorem. Both polygons are projected on every
+     * edge normal and the axis with the smallest overlap is returned as the collision axis. The axis is turned to
+     * point from polygon 1 towards polygon 2. The collision point is the vertex of the polygon that didn't give the
+     * axis that goes deepest into the other polygon. When the polygons touch along edges the collision points are
+     * instead the ends of the touching part, found by clipping, so that resting bodies are held up at both ends.
      *
-     * @param poly1 the polygon 1
-     * @param poly2 the polygon 2
-     * @return the boolean indicating are polygons colliding
+     * @param vertices1 the vertices of polygon 1 as x0, y0, x1, y1...
+     * @param normals1  the edge normals of polygon 1 as x0, y0, x1, y1...
+     * @param vertices2 the vertices of polygon 2 as x0, y0, x1, y1...
+     * @param normals2  the edge normals of polygon 2 as x0, y0, x1, y1...
+     * @param result    the collision info the result is written to if the polygons are colliding
+     * @return true if the polygons are colliding
      */
-    public static CollisionInfo checkCollision(Polygon poly1, Polygon poly2){
-
-        
-        //needed  for overlap depth returning later
-        double overlap = 10000000;
-        double[] projectionOfAxisShape = null;
-        double[] projectionCollPoint = null;
-        boolean projectionAxisIsFrom1 = true;
-
-
-
-        //gets points from te tested polygons in workable lists
-        LinkedList<Point2D> vertices1 = pointsFromPolygon(poly1);
-        LinkedList<Point2D> vertices2 = pointsFromPolygon(poly2);
-
-        //gets normal vectors from the polygon point lists
-        LinkedList<Point2D> normals1 = getShapeNormals(vertices1);
-        LinkedList<Point2D> normals2 = getShapeNormals(vertices2);
-
-        //puts the lists of normal vectors in a list so that both can be looped through with same code
-        LinkedList<LinkedList<Point2D>> normals = new LinkedList<LinkedList<Point2D>>();
-        normals.add(normals1);
-        normals.add(normals2);
-
+    public static boolean checkCollision(double[] vertices1, double[] normals1, double[] vertices2, double[] normals2,
+                                         CollisionInfo result){
+        double overlap = Double.MAX_VALUE;
+        double axisX = 0;
+        double axisY = 0;
+        boolean axisIsFrom1 = true;
+        double axisShapeMin = 0;
+        double axisShapeCenter = 0;
+        double otherMin = 0;
+        double otherCenter = 0;
+        int otherMinIndex = 0;
+        int otherMaxIndex = 0;
+
+        // loop over both polygons normals
+        for(int n = 0; n < 2; n++){
+            double[] normals = n == 0 ? normals1 : normals2;
+            double[] axisShape = n == 0 ? vertices1 : vertices2;
+            double[] other = n == 0 ? vertices2 : vertices1;
+
+            for(int i = 0; i < normals.length; i += 2){
+                double x = normals[i];
+                double y = normals[i + 1];
 
-        //needed later for returning overlap depth
-        Point2D smallest = null;
-
-// loop over both polygons normals
-        for (int n = 0; n < normals.size(); n++){
-
-            for (int i = 0; i < normals.get(n).size(); i++) {
-                Point2D axis = normals.get(n).get(i);
                 // project both shapes onto the axis
-                double[] projection1 = projection(axis, vertices1);
-                double[] projection2 = projection(axis, vertices2);
-                // do the projections overlap?
-                if (!projectionsOverlap(projection1, projection2)) {
-                    // then we can guarantee that the shapes do not overlap
-                    return null;
-                } else {
-
-
-                // get the overlap
-                double o = getOverlap(projection1, projection2);
-                // check for minimum
-                if (o < overlap) {
-                    // then set this one as the smallest
-                    overlap = o;
-                    smallest = axis;
-                    if(n==0){
-                        projectionOfAxisShape=projection1;
-                        projectionCollPoint=projection2;
-                        projectionAxisIsFrom1 = true;
-                    }else {
-                        projectionOfAxisShape=projection2;
-                        projectionCollPoint=projection1;
-                        projectionAxisIsFrom1 = false;
+                double min1 = x * axisShape[0] + y * axisShape[1];
+                double max1 = min1;
+                for(int v = 2; v < axisShape.length; v += 2){
+                    double p = x * axisShape[v] + y * axisShape[v + 1];
+                    if(p < min1){
+                        min1 = p;
+                    }else if(p > max1){
+                        max1 = p;
                     }
+                }
+                double min2 = x * other[0] + y * other[1];
+                double max2 = min2;
+                int minIndex2 = 0;
+                int maxIndex2 = 0;
+                for(int v = 2; v < other.length; v += 2){
+                    double p = x * other[v] + y * other[v + 1];
+                    if(p < min2){
+                        min2 = p;
+                        minIndex2 = v;
+                    }else if(p > max2){
+                        max2 = p;
+                        maxIndex2 = v;
+                    }
+                }
 
+                // then we can guarantee that the shapes do not overlap
+                if(max1 < min2 || max2 < min1){
+                    return false;
                 }
 
+                double o = Math.min(max1, max2) - Math.max(min1, min2);
+                if(o < overlap){
+                    overlap = o;
+                    axisX = x;
+                    axisY = y;
+                    axisIsFrom1 = n == 0;
+                    axisShapeMin = min1;
+                    axisShapeCenter = min1 + max1;
+                    otherMin = min2;
+                    otherCenter = min2 + max2;
+                    otherMinIndex = minIndex2;
+                    otherMaxIndex = maxIndex2;
+                }
+            }
+        }
+
+        // the vertex of the other shape that is inside the shape giving the axis
+        int index = axisShapeMin < otherMin ? otherMinIndex : otherMaxIndex;
+        double[] other = axisIsFrom1 ? vertices2 : vertices1;
+
+        // turn the axis to point from polygon 1 to polygon 2
+        double direction = axisIsFrom1 ? otherCenter - axisShapeCenter : axisShapeCenter - otherCenter;
+        if(direction < 0){
+            axisX = -axisX;
+            axisY = -axisY;
+        }
+
+        result.set(overlap, axisX, axisY, other[index], other[index + 1]);
+        if(axisIsFrom1){
+            clipContactPoints(vertices1, normals1, vertices2, normals2, axisX, axisY, result);
+        }else{
+            clipContactPoints(vertices2, normals2, vertices1, normals1, -axisX, -axisY, result);
+        }
+        return true;
+    }
 
+    /**
+     * Checks if two convex polygons overlap, without working out how deep or where. Every edge is tried as a
+     * separating axis by checking if the whole other polygon is outside of it, and the test stops at the first edge
+     * that separates the polygons or at the first vertex inside an edge. The edge normals have to point outwards, as
+     * they do for the shapes wound by ConvexShape. Polygons that only touch overlap, like in checkCollision.
+     *
+     * @param vertices1 the vertices of polygon 1 as x0, y0, x1, y1...
+     * @param normals1  the edge normals of polygon 1 as x0, y0, x1, y1...
+     * @param vertices2 the vertices of polygon 2 as x0, y0, x1, y1...
+     * @param normals2  the edge normals of polygon 2 as x0, y0, x1, y1...
+     * @return true if the polygons overlap
+     */
+    public static boolean overlaps(double[] vertices1, double[] normals1, double[] vertices2, double[] normals2){
+        return !separatedByEdge(vertices1, normals1, vertices2) && !separatedByEdge(vertices2, normals2, vertices1);
+    }
 
+    /**
+     * Checks if an edge of a polygon has all vertices of another polygon outside of it. The normal at index i belongs
+     * to the edge starting from vertex i, so the projection of that vertex is where the polygon ends along the normal.
+     *
+     * @param vertices the vertices of the polygon giving the edges
+     * @param normals  the outward edge normals of the polygon
+     * @param other    the vertices of the other polygon
+     * @return true if an edge separates the polygons
+     */
+    static boolean separatedByEdge(double[] vertices, double[] normals, double[] other){
+        for(int i = 0; i < normals.length; i += 2){
+            double x = normals[i];
+            double y = normals[i + 1];
+            double edge = x * vertices[i] + y * vertices[i + 1];
+            boolean outside = true;
+            for(int v = 0; v < other.length; v += 2){
+                if(x * other[v] + y * other[v + 1] <= edge){
+                    outside = false;
+                    break;
                 }
             }
+            if(outside){
+                return true;
+            }
         }
+        return false;
+    }
 
-        Point2D collisionPoint;
-        int index = getOverlappingVerticeIndex(projectionOfAxisShape, projectionCollPoint);
-        if(projectionAxisIsFrom1){
-            collisionPoint = vertices2.get(index);
-        }else {
-            collisionPoint = vertices1.get(index);
+    /**
+     * Finds the collision points of two overlapping polygons by clipping. The reference face is the edge of the
+     * polygon giving the axis that faces the other polygon and the incident edge is the edge of the other polygon
+     * facing the most against it. The incident edge is cut to the width of the reference face and its ends that are
+     * behind the reference face are the collision points. If clipping finds no points, the result is left as it is.
+     *
+     * @param reference        the vertices of the polygon giving the axis
+     * @param referenceNormals the outward edge normals of the polygon giving the axis
+     * @param incident         the vertices of the other polygon
+     * @param incidentNormals  the outward edge normals of the other polygon
+     * @param nx               the x component of the axis, pointing from the reference polygon to the other
+     * @param ny               the y component of the axis
+     * @param result           the collision info the points are written to
+     */
+    static void clipContactPoints(double[] reference, double[] referenceNormals, double[] incident,
+                                  double[] incidentNormals, double nx, double ny, CollisionInfo result){
+        int face = 0;
+        double best = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < referenceNormals.length; i += 2){
+            double d = referenceNormals[i] * nx + referenceNormals[i + 1] * ny;
+            if(d > best){
+                best = d;
+                face = i;
+            }
+        }
+        int edge = 0;
+        double worst = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < incidentNormals.length; i += 2){
+            double d = incidentNormals[i] * nx + incidentNormals[i + 1] * ny;
+            if(d < worst){
+                worst = d;
+                edge = i;
+            }
         }
 
+        double r1x = reference[face];
+        double r1y = reference[face + 1];
+        int faceEnd = (face + 2) % reference.length;
+        double tx = reference[faceEnd] - r1x;
+        double ty = reference[faceEnd + 1] - r1y;
+        double length = Math.sqrt(tx * tx + ty * ty);
+        if(length == 0){
+            return;
+        }
+        tx /= length;
+        ty /= length;
+        double lower = tx * r1x + ty * r1y;
+        double upper = lower + length;
+
+        int edgeEnd = (edge + 2) % incident.length;
+        double v1x = incident[edge];
+        double v1y = incident[edge + 1];
+        double v2x = incident[edgeEnd];
+        double v2y = incident[edgeEnd + 1];
+        double d1 = tx * v1x + ty * v1y;
+        double d2 = tx * v2x + ty * v2y;
+        if(d1 > d2){
+            double swap = v1x;
+            v1x = v2x;
+            v2x = swap;
+            swap = v1y;
+            v1y = v2y;
+            v2y = swap;
+            swap = d1;
+            d1 = d2;
+            d2 = swap;
+        }
+        if(d2 < lower || d1 > upper || d1 == d2){
+            return;
+        }
 
-        CollisionInfo colInfo = new CollisionInfo(overlap, smallest, collisionPoint);
-
+        // cut the incident edge to the side planes of the reference face
+        double startX = v1x;
+        double startY = v1y;
+        double endX = v2x;
+        double endY = v2y;
+        if(d1 < lower){
+            double f = (lower - d1) / (d2 - d1);
+            startX = v1x + (v2x - v1x) * f;
+            startY = v1y + (v2y - v1y) * f;
+        }
+        if(d2 > upper){
+            double f = (upper - d1) / (d2 - d1);
+            endX = v1x + (v2x - v1x) * f;
+            endY = v1y + (v2y - v1y) * f;
+        }
 
-        return colInfo;
+        double faceOffset = nx * r1x + ny * r1y;
+        double depth1 = faceOffset - (nx * startX + ny * startY);
+        double depth2 = faceOffset - (nx * endX + ny * endY);
+        if(depth1 >= 0 && depth2 >= 0){
+            result.setPoints(2, startX, startY, depth1, endX, endY, depth2);
+        }else if(depth1 >= 0){
+            result.setPoints(1, startX, startY, depth1, 0, 0, 0);
+        }else if(depth2 >= 0){
+            result.setPoints(1, endX, endY, depth2, 0, 0, 0);
+        }
     }
 
+    /**
+     * Finds when a moving polygon first touches another with the separating axis test over time. Polygon 1 is given
+     * where it ends up and moved by dx, dy relative to polygon 2 to get there. On each axis the projections of the
+     * polygons meet during one interval of the motion, and the polygons touch when the intervals of every axis overlap.
+     * The edge normals of both polygons and the axis across the motion are tested. Rotation during the motion is
+     * ignored.
+     *
+     * @param vertices1 the vertices of polygon 1 at the end of the motion
+     * @param normals1  the edge normals of polygon 1
+     * @param vertices2 the vertices of polygon 2
+     * @param normals2  the edge normals of polygon 2
+     * @param dx        the movement of polygon 1 relative to polygon 2 on the x axis
+     * @param dy        the movement of polygon 1 relative to polygon 2 on the y axis
+     * @return the fraction of the motion done when the polygons first touch, -1 if they don't meet during the
+     * motion or overlap already at its start
+     */
+    public static double timeOfImpact(double[] vertices1, double[] normals1, double[] vertices2, double[] normals2,
+                                      double dx, double dy){
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if(length == 0){
+            return -1;
+        }
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+
+        for(int n = 0; n < 3; n++){
+            double[] normals = n == 0 ? normals1 : normals2;
+            int axisCount = n == 2 ? 2 : normals.length;
+            for(int i = 0; i < axisCount; i += 2){
+                // the third set is the single axis across the motion
+                double x = n == 2 ? -dy / length : normals[i];
+                double y = n == 2 ? dx / length : normals[i + 1];
+
+                double min1 = Double.POSITIVE_INFINITY;
+                double max1 = Double.NEGATIVE_INFINITY;
+                for(int v = 0; v < vertices1.length; v += 2){
+                    double p = x * vertices1[v] + y * vertices1[v + 1];
+                    min1 = Math.min(min1, p);
+                    max1 = Math.max(max1, p);
+                }
+                double min2 = Double.POSITIVE_INFINITY;
+                double max2 = Double.NEGATIVE_INFINITY;
+                for(int v = 0; v < vertices2.length; v += 2){
+                    double p = x * vertices2[v] + y * vertices2[v + 1];
+                    min2 = Math.min(min2, p);
+                    max2 = Math.max(max2, p);
+                }
 
+                // polygon 1 starts the motion this much behind its end on the axis
+                double speed = x * dx + y * dy;
+                min1 -= speed;
+                max1 -= speed;
+                if(speed == 0){
+                    if(max1 < min2 || max2 < min1){
+                        return -1;
+                    }
+                    continue;
+                }
+                double t1 = (min2 - max1) / speed;
+                double t2 = (max2 - min1) / speed;
+                enter = Math.max(enter, Math.min(t1, t2));
+                exit = Math.min(exit, Math.max(t1, t2));
+                if(enter > exit || enter > 1 || exit < 0){
+                    return -1;
+                }
+            }
+        }
+        return enter > 0 ? enter : -1;
+    }
 
+    /**
+     * Signed area of a polygon given as an array of x and y coordinates. Sign tells the winding of the vertices.
+     *
+     * @param vertices the vertices as x0, y0, x1, y1...
+     * @return the signed area multiplied by two
+     */
+    static double signedArea2(double[] vertices){
+        double area = 0;
+        int n = vertices.length;
+        for(int i = 0; i < n; i += 2){
+            int j = (i + 2) % n;
+            area += vertices[i] * vertices[j + 1] - vertices[j] * vertices[i + 1];
+        }
+        return area;
+    }
 
+    /**
+     * Checks if a point is inside a convex polygon. Points on the edges are counted as inside.
+     *
+     * @param vertices the vertices of the polygon as x0, y0, x1, y1...
+     * @param x        x coordinate of the point
+     * @param y        y coordinate of the point
+     * @return true if the point is inside the polygon
+     */
+    public static boolean pointInPolygon(double[] vertices, double x, double y){
+        int n = vertices.length;
+        boolean positive = false;
+        boolean negative = false;
+        for(int i = 0; i < n; i += 2){
+            int j = (i + 2) % n;
+            double cross = (vertices[j] - vertices[i]) * (y - vertices[i + 1])
+                    - (vertices[j + 1] - vertices[i + 1]) * (x - vertices[i]);
+            if(cross > 0){
+                positive = true;
+            }else if(cross < 0){
+                negative = true;
+            }
+            if(positive && negative){
+                return false;
+            }
+        }
+        return true;
+    }
 
+    /**
+     * Finds where a line segment enters a convex polygon.
+     *
+     * @param vertices the vertices of the polygon as x0, y0, x1, y1...
+     * @param x1       x coordinate of the start of the segment
+     * @param y1       y coordinate of the start of the segment
+     * @param x2       x coordinate of the end of the segment
+     * @param y2       y coordinate of the end of the segment
+     * @return fraction of the segment from 0 to 1 where the polygon is hit, 0 if the segment starts inside the
+     * polygon and -1 if the polygon isn't hit
+     */
+    public static double raycastPolygon(double[] vertices, double x1, double y1, double x2, double y2){
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        // makes the edge normals point outwards whatever the winding is
+        double orientation = signedArea2(vertices) < 0 ? -1 : 1;
+        double enter = 0;
+        double exit = 1;
+        int n = vertices.length;
+
+        for(int i = 0; i < n; i += 2){
+            int j = (i + 2) % n;
+            double normalX = (vertices[j + 1] - vertices[i + 1]) * orientation;
+            double normalY = -(vertices[j] - vertices[i]) * orientation;
+            double numerator = normalX * (vertices[i] - x1) + normalY * (vertices[i + 1] - y1);
+            double denominator = normalX * dx + normalY * dy;
+
+            if(denominator == 0){
+                // parallel to the edge, misses if it is outside of it
+                if(numerator < 0){
+                    return -1;
+                }
+            }else{
+                double t = numerator / denominator;
+                if(denominator < 0){
+                    enter = Math.max(enter, t);
+                }else{
+                    exit = Math.min(exit, t);
+                }
+                if(enter > exit){
+                    return -1;
+                }
+            }
+        }
+        return enter;
+    }
 }
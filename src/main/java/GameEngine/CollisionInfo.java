@@ -1,9 +1,8 @@
 package GameEngine;
 
-import javafx.geometry.Point2D;
-
 /**
  * Minimum transaltion vector. Holds information of the length of the overlap and the axis the overlap is happening.
+ * The values are kept as numbers so that one collision info can be reused for many collision checks.
  */
 public class CollisionInfo {
     /**
@@ -11,14 +10,48 @@ public class CollisionInfo {
      */
     double overlap;
     /**
-     * The Axis.
+     * The x component of the axis. The axis is unit length and points from the first body to the second.
+     */
+    double axisX;
+    /**
+     * The y component of the axis.
      */
-    Point2D axis;
+    double axisY;
 
     /**
-     * Approximation of the location where two bodies are touching.
+     * The x coordinate of the approximation of the location where two bodies are touching.
+     */
+    double collisionPointX;
+    /**
+     * The y coordinate of the approximation of the location where two bodies are touching.
+     */
+    double collisionPointY;
+    /**
+     * How deep the collision point is inside the other body along the axis.
+     */
+    double collisionPointDepth;
+    /**
+     * The number of collision points, 2 when the bodies touch along edges.
+     */
+    int pointCount;
+    /**
+     * The x coordinate of the second collision point.
      */
-    Point2D collisionPoint;
+    double collisionPoint2X;
+    /**
+     * The y coordinate of the second collision point.
+     */
+    double collisionPoint2Y;
+    /**
+     * How deep the second collision point is inside the other body along the axis.
+     */
+    double collisionPoint2Depth;
+
+    /**
+     * Instantiates a new empty collision info to be filled by a collision check.
+     */
+    public CollisionInfo(){
+    }
 
     /**
      * Instantiates a new Mtv.
@@ -27,10 +60,59 @@ public class CollisionInfo {
      * @param axis           the axis
      * @param collisionPoint the collision point
      */
-    public CollisionInfo(double overlap, Point2D axis, Point2D collisionPoint){
+    public CollisionInfo(double overlap, Vector2D axis, Vector2D collisionPoint){
+        set(overlap, axis.getX(), axis.getY(), collisionPoint.getX(), collisionPoint.getY());
+    }
+
+    /**
+     * Sets all values of the collision info with one collision point as deep as the overlap.
+     *
+     * @param overlap         the overlap
+     * @param axisX           the x component of the axis
+     * @param axisY           the y component of the axis
+     * @param collisionPointX the x coordinate of the collision point
+     * @param collisionPointY the y coordinate of the collision point
+     */
+    public void set(double overlap, double axisX, double axisY, double collisionPointX, double collisionPointY){
         this.overlap = overlap;
-        this.axis = axis;
-        this.collisionPoint = collisionPoint;
+        this.axisX = axisX;
+        this.axisY = axisY;
+        this.collisionPointX = collisionPointX;
+        this.collisionPointY = collisionPointY;
+        this.collisionPointDepth = overlap;
+        this.pointCount = 1;
+    }
+
+    /**
+     * Sets the collision points.
+     *
+     * @param pointCount the number of points, 1 or 2
+     * @param x1         the x coordinate of the first point
+     * @param y1         the y coordinate of the first point
+     * @param depth1     the depth of the first point
+     * @param x2         the x coordinate of the second point
+     * @param y2         the y coordinate of the second point
+     * @param depth2     the depth of the second point
+     */
+    public void setPoints(int pointCount, double x1, double y1, double depth1, double x2, double y2, double depth2){
+        this.pointCount = pointCount;
+        this.collisionPointX = x1;
+        this.collisionPointY = y1;
+        this.collisionPointDepth = depth1;
+        this.collisionPoint2X = x2;
+        this.collisionPoint2Y = y2;
+        this.collisionPoint2Depth = depth2;
+    }
+
+    /**
+     * Copies the values of another collision info.
+     *
+     * @param other the collision info to copy
+     */
+    public void set(CollisionInfo other){
+        set(other.overlap, other.axisX, other.axisY, other.collisionPointX, other.collisionPointY);
+        setPoints(other.pointCount, other.collisionPointX, other.collisionPointY, other.collisionPointDepth,
+                other.collisionPoint2X, other.collisionPoint2Y, other.collisionPoint2Depth);
     }
 
     /**
@@ -56,8 +138,8 @@ public class CollisionInfo {
      *
      * @return the axis
      */
-    public Point2D getAxis() {
-        return axis;
+    public Vector2D getAxis() {
+        return new Vector2D(axisX, axisY);
     }
 
     /**
@@ -65,8 +147,27 @@ public class CollisionInfo {
      *
      * @param axis the axis
      */
-    public void setAxis(Point2D axis) {
-        this.axis = axis;
+    public void setAxis(Vector2D axis) {
+        this.axisX = axis.getX();
+        this.axisY = axis.getY();
+    }
+
+    /**
+     * Gets the x component of the axis.
+     *
+     * @return the axis x
+     */
+    public double getAxisX() {
+        return axisX;
+    }
+
+    /**
+     * Gets the y component of the axis.
+     *
+     * @return the axis y
+     */
+    public double getAxisY() {
+        return axisY;
     }
 
     /**
@@ -74,8 +175,8 @@ public class CollisionInfo {
      *
      * @return the collision point
      */
-    public Point2D getCollisionPoint() {
-        return collisionPoint;
+    public Vector2D getCollisionPoint() {
+        return new Vector2D(collisionPointX, collisionPointY);
     }
 
     /**
@@ -83,16 +184,90 @@ public class CollisionInfo {
      *
      * @param collisionPoint the collision point
      */
-    public void setCollisionPoint(Point2D collisionPoint) {
-        this.collisionPoint = collisionPoint;
+    public void setCollisionPoint(Vector2D collisionPoint) {
+        this.collisionPointX = collisionPoint.getX();
+        this.collisionPointY = collisionPoint.getY();
+    }
+
+    /**
+     * Gets the x coordinate of the collision point.
+     *
+     * @return the collision point x
+     */
+    public double getCollisionPointX() {
+        return collisionPointX;
+    }
+
+    /**
+     * Gets the y coordinate of the collision point.
+     *
+     * @return the collision point y
+     */
+    public double getCollisionPointY() {
+        return collisionPointY;
+    }
+
+    /**
+     * Gets the depth of the collision point.
+     *
+     * @return the collision point depth
+     */
+    public double getCollisionPointDepth() {
+        return collisionPointDepth;
+    }
+
+    /**
+     * Gets the number of collision points.
+     *
+     * @return the point count
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Gets the second collision point.
+     *
+     * @return the second collision point, only meaningful if the point count is 2
+     */
+    public Vector2D getCollisionPoint2() {
+        return new Vector2D(collisionPoint2X, collisionPoint2Y);
+    }
+
+    /**
+     * Gets the x coordinate of the second collision point.
+     *
+     * @return the collision point 2 x
+     */
+    public double getCollisionPoint2X() {
+        return collisionPoint2X;
+    }
+
+    /**
+     * Gets the y coordinate of the second collision point.
+     *
+     * @return the collision point 2 y
+     */
+    public double getCollisionPoint2Y() {
+        return collisionPoint2Y;
+    }
+
+    /**
+     * Gets the depth of the second collision point.
+     *
+     * @return the collision point 2 depth
+     */
+    public double getCollisionPoint2Depth() {
+        return collisionPoint2Depth;
     }
 
     @Override
     public String toString() {
         return "CollisionInfo{" +
                 "overlap=" + overlap +
-                ", axis=" + axis +
-                ", collision point=" + collisionPoint +
+                ", axis=" + getAxis() +
+                ", collision point=" + getCollisionPoint() +
+                (pointCount == 2 ? ", collision point 2=" + getCollisionPoint2() : "") +
                 '}';
     }
 }
@@ -0,0 +1,166 @@
+package GameEngine;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of contacts found by the narrowphase. The contacts are kept in parallel arrays so that filling the
+ * buffer every step doesn't allocate once it has grown large enough. Bodies are referred to by the packed pairs of the
+ * broadphase.
+ */
+public class ContactBuffer {
+
+    /**
+     * The colliding pairs packed as first index in the high bits and second index in the low bits.
+     */
+    long[] pairs;
+    /**
+     * The overlaps of the contacts.
+     */
+    double[] overlap;
+    /**
+     * The x components of the contact axes, pointing from the first body to the second.
+     */
+    double[] axisX;
+    /**
+     * The y components of the contact axes.
+     */
+    double[] axisY;
+    /**
+     * The number of contact points of each contact, 1 or 2.
+     */
+    int[] pointCount;
+    /**
+     * The x coordinates of the contact points, two for each contact.
+     */
+    double[] pointX;
+    /**
+     * The y coordinates of the contact points, two for each contact.
+     */
+    double[] pointY;
+    /**
+     * The depths of the contact points, two for each contact.
+     */
+    double[] depth;
+    /**
+     * Number of contacts in the buffer.
+     */
+    int count;
+
+    /**
+     * Instantiates a new Contact buffer.
+     *
+     * @param capacity the initial number of contacts the buffer can hold
+     */
+    public ContactBuffer(int capacity){
+        capacity = Math.max(capacity, 1);
+        pairs = new long[capacity];
+        overlap = new double[capacity];
+        axisX = new double[capacity];
+        axisY = new double[capacity];
+        pointCount = new int[capacity];
+        pointX = new double[capacity * 2];
+        pointY = new double[capacity * 2];
+        depth = new double[capacity * 2];
+    }
+
+    /**
+     * Grows the arrays to hold at least the given number of contacts.
+     *
+     * @param capacity the needed capacity
+     */
+    void ensureCapacity(int capacity){
+        if(capacity <= pairs.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, pairs.length * 2);
+        pairs = Arrays.copyOf(pairs, newCapacity);
+        overlap = Arrays.copyOf(overlap, newCapacity);
+        axisX = Arrays.copyOf(axisX, newCapacity);
+        axisY = Arrays.copyOf(axisY, newCapacity);
+        pointCount = Arrays.copyOf(pointCount, newCapacity);
+        pointX = Arrays.copyOf(pointX, newCapacity * 2);
+        pointY = Arrays.copyOf(pointY, newCapacity * 2);
+        depth = Arrays.copyOf(depth, newCapacity * 2);
+    }
+
+    /**
+     * Adds a contact to the end of the buffer.
+     *
+     * @param pair the packed pair of the colliding bodies
+     * @param info the collision info of the pair
+     */
+    public void add(long pair, CollisionInfo info){
+        ensureCapacity(count + 1);
+        int i = count++;
+        pairs[i] = pair;
+        overlap[i] = info.overlap;
+        axisX[i] = info.axisX;
+        axisY[i] = info.axisY;
+        pointCount[i] = info.pointCount;
+        pointX[i * 2] = info.collisionPointX;
+        pointY[i * 2] = info.collisionPointY;
+        depth[i * 2] = info.collisionPointDepth;
+        pointX[i * 2 + 1] = info.collisionPoint2X;
+        pointY[i * 2 + 1] = info.collisionPoint2Y;
+        depth[i * 2 + 1] = info.collisionPoint2Depth;
+    }
+
+    /**
+     * Adds all contacts of another buffer to the end of this buffer, keeping their order.
+     *
+     * @param other the buffer to add
+     */
+    public void addAll(ContactBuffer other){
+        int n = other.count;
+        ensureCapacity(count + n);
+        System.arraycopy(other.pairs, 0, pairs, count, n);
+        System.arraycopy(other.overlap, 0, overlap, count, n);
+        System.arraycopy(other.axisX, 0, axisX, count, n);
+        System.arraycopy(other.axisY, 0, axisY, count, n);
+        System.arraycopy(other.pointCount, 0, pointCount, count, n);
+        System.arraycopy(other.pointX, 0, pointX, count * 2, n * 2);
+        System.arraycopy(other.pointY, 0, pointY, count * 2, n * 2);
+        System.arraycopy(other.depth, 0, depth, count * 2, n * 2);
+        count += n;
+    }
+
+    /**
+     * Removes all contacts. The arrays are kept for reuse.
+     */
+    public void clear(){
+        count = 0;
+    }
+
+    /**
+     * Gets the number of contacts.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the packed pair of a contact.
+     *
+     * @param index the index of the contact
+     * @return the pair
+     */
+    public long getPair(int index) {
+        return pairs[index];
+    }
+
+    /**
+     * Copies the collision info of a contact.
+     *
+     * @param index  the index of the contact
+     * @param result the collision info the contact is written to
+     * @return the result
+     */
+    public CollisionInfo get(int index, CollisionInfo result) {
+        int p = index * 2;
+        result.set(overlap[index], axisX[index], axisY[index], pointX[p], pointY[p]);
+        result.setPoints(pointCount[index], pointX[p], pointY[p], depth[p], pointX[p + 1], pointY[p + 1], depth[p + 1]);
+        return result;
+    }
+}
@@ -0,0 +1,276 @@
+package GameEngine;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from pairs of bodies to the contact between them, stored in primitive arrays with open addressing and
+ * linear probing. The world keeps the contacts of the previous step in one cache and fills another with the contacts
+ * of the current step, so a contact that lasts over several steps carries its accumulated impulses over to warm start
+ * the solver. Filling a cleared cache every step means entries never have to be removed one by one.
+ *
+ * Pairs are keyed by the ids of the bodies, which don't change when bodies move to other storage slots.
+ */
+public class ContactCache {
+
+    /**
+     * Key of an empty entry. Body ids are never negative, so no pair has this key.
+     */
+    static final long EMPTY = -1L;
+
+    /**
+     * The pair keys, EMPTY for unused entries.
+     */
+    long[] keys;
+    /**
+     * The overlaps of the contacts.
+     */
+    double[] overlap;
+    /**
+     * The x components of the contact normals, pointing from the body with the smaller id to the other.
+     */
+    double[] normalX;
+    /**
+     * The y components of the contact normals.
+     */
+    double[] normalY;
+    /**
+     * The number of contact points of each contact, 1 or 2.
+     */
+    int[] pointCount;
+    /**
+     * The x coordinates of the contact points, two for each entry.
+     */
+    double[] pointX;
+    /**
+     * The y coordinates of the contact points, two for each entry.
+     */
+    double[] pointY;
+    /**
+     * The depths of the contact points, two for each entry.
+     */
+    double[] depth;
+    /**
+     * The impulses accumulated along the normals by the solver, two for each entry.
+     */
+    double[] normalImpulse;
+    /**
+     * The impulses accumulated along the tangents by the solver, two for each entry.
+     */
+    double[] tangentImpulse;
+    /**
+     * Number of used entries.
+     */
+    int count;
+    /**
+     * Mask turning a hash into an index, the capacity minus one.
+     */
+    int mask;
+
+    /**
+     * Instantiates a new Contact cache.
+     *
+     * @param capacity the number of contacts the cache should hold without growing
+     */
+    public ContactCache(int capacity){
+        allocate(Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2);
+    }
+
+    /**
+     * Makes empty arrays of the given size.
+     *
+     * @param capacity the number of entries, a power of two
+     */
+    void allocate(int capacity){
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        overlap = new double[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        pointCount = new int[capacity];
+        pointX = new double[capacity * 2];
+        pointY = new double[capacity * 2];
+        depth = new double[capacity * 2];
+        normalImpulse = new double[capacity * 2];
+        tangentImpulse = new double[capacity * 2];
+        mask = capacity - 1;
+        count = 0;
+    }
+
+    /**
+     * Returns the key of the pair of two bodies. The key is the same in both orders.
+     *
+     * @param id1 the id of the first body
+     * @param id2 the id of the second body
+     * @return the key
+     */
+    public static long key(int id1, int id2){
+        return id1 < id2 ? (long) id1 << 32 | id2 : (long) id2 << 32 | id1;
+    }
+
+    /**
+     * Returns the first index to look for a key at.
+     *
+     * @param key the key
+     * @return the index
+     */
+    int slot(long key){
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Finds the entry of a pair.
+     *
+     * @param key the key of the pair
+     * @return the index of the entry, -1 if the pair isn't in the cache
+     */
+    public int find(long key){
+        int i = slot(key);
+        while(keys[i] != EMPTY){
+            if(keys[i] == key){
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the entry of a pair, adding a cleared entry if the pair isn't in the cache.
+     *
+     * @param key the key of the pair
+     * @return the index of the entry
+     */
+    public int insert(long key){
+        if((count + 1) * 4 > keys.length * 3){
+            grow();
+        }
+        int i = slot(key);
+        while(keys[i] != EMPTY){
+            if(keys[i] == key){
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        overlap[i] = 0;
+        normalX[i] = 0;
+        normalY[i] = 0;
+        pointCount[i] = 0;
+        for(int p = i * 2; p < i * 2 + 2; p++){
+            pointX[p] = 0;
+            pointY[p] = 0;
+            depth[p] = 0;
+            normalImpulse[p] = 0;
+            tangentImpulse[p] = 0;
+        }
+        count++;
+        return i;
+    }
+
+    /**
+     * Grows the cache until it holds the given number of contacts without growing again. Growing moves every entry,
+     * so a caller keeping entry indices makes room for all its contacts before inserting them.
+     *
+     * @param contacts the number of contacts
+     */
+    public void ensureCapacity(int contacts){
+        while(contacts * 4 > keys.length * 3){
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the capacity and inserts the entries again.
+     */
+    void grow(){
+        long[] oldKeys = keys;
+        double[] oldOverlap = overlap;
+        double[] oldNormalX = normalX;
+        double[] oldNormalY = normalY;
+        int[] oldPointCount = pointCount;
+        double[] oldPointX = pointX;
+        double[] oldPointY = pointY;
+        double[] oldDepth = depth;
+        double[] oldNormalImpulse = normalImpulse;
+        double[] oldTangentImpulse = tangentImpulse;
+        allocate(keys.length * 2);
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldKeys[j] == EMPTY){
+                continue;
+            }
+            int i = insert(oldKeys[j]);
+            overlap[i] = oldOverlap[j];
+            normalX[i] = oldNormalX[j];
+            normalY[i] = oldNormalY[j];
+            pointCount[i] = oldPointCount[j];
+            System.arraycopy(oldPointX, j * 2, pointX, i * 2, 2);
+            System.arraycopy(oldPointY, j * 2, pointY, i * 2, 2);
+            System.arraycopy(oldDepth, j * 2, depth, i * 2, 2);
+            System.arraycopy(oldNormalImpulse, j * 2, normalImpulse, i * 2, 2);
+            System.arraycopy(oldTangentImpulse, j * 2, tangentImpulse, i * 2, 2);
+        }
+    }
+
+    /**
+     * Removes all entries. The arrays are kept for reuse.
+     */
+    public void clear(){
+        if(count > 0){
+            Arrays.fill(keys, EMPTY);
+            count = 0;
+        }
+    }
+
+    /**
+     * Checks if the cache has a contact between two bodies.
+     *
+     * @param id1 the id of the first body
+     * @param id2 the id of the second body
+     * @return true if the bodies are touching
+     */
+    public boolean contains(int id1, int id2){
+        return find(key(id1, id2)) != -1;
+    }
+
+    /**
+     * Gets the number of contacts in the cache.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of contact points of an entry.
+     *
+     * @param index the index of the entry
+     * @return the point count
+     */
+    public int getPointCount(int index) {
+        return pointCount[index];
+    }
+
+    /**
+     * Gets the impulse accumulated along the normal at a contact point of an entry.
+     *
+     * @param index the index of the entry
+     * @param point the contact point, 0 or 1
+     * @return the normal impulse
+     */
+    public double getNormalImpulse(int index, int point) {
+        return normalImpulse[index * 2 + point];
+    }
+
+    /**
+     * Gets the impulse accumulated along the tangent at a contact point of an entry.
+     *
+     * @param index the index of the entry
+     * @param point the contact point, 0 or 1
+     * @return the tangent impulse
+     */
+    public double getTangentImpulse(int index, int point) {
+        return tangentImpulse[index * 2 + point];
+    }
+}
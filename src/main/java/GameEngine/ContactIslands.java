@@ -0,0 +1,351 @@
+package GameEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the bodies touching each other into islands, the connected components of bodies linked by contacts. The
+ * components are found with union-find over the storage slots. Bodies that can't be moved don't link islands
+ * together, because solving a contact never changes their velocity, so a floor touching many piles doesn't make one
+ * big island of them. Islands share no movable bodies, so they can be solved at the same time on separate threads.
+ *
+ * Islands are numbered in the order their first contact appears in the contact buffer and the contacts of an island
+ * keep their order, so solving gives the same result however the islands are divided between threads.
+ */
+public class ContactIslands {
+
+    /**
+     * The union-find parent of each slot.
+     */
+    int[] parent = new int[16];
+    /**
+     * The size of the tree of each union-find root.
+     */
+    int[] size = new int[16];
+    /**
+     * The island of each union-find root, -1 if the root has no island yet.
+     */
+    int[] islandOfRoot = new int[16];
+    /**
+     * The island of each contact, -1 for contacts between two bodies that can't be moved.
+     */
+    int[] islandOfContact = new int[16];
+    /**
+     * Number of islands.
+     */
+    int islandCount;
+    /**
+     * The index of the first contact of each island in islandContacts, with one extra entry marking the end.
+     */
+    int[] contactStart = new int[16];
+    /**
+     * Indices of the contacts in the contact buffer ordered by island.
+     */
+    int[] islandContacts = new int[16];
+    /**
+     * The index of the first body of each island in islandBodies, with one extra entry marking the end.
+     */
+    int[] bodyStart = new int[16];
+    /**
+     * Slots of the movable bodies ordered by island.
+     */
+    int[] islandBodies = new int[16];
+    /**
+     * Reused tasks solving a range of islands each.
+     */
+    ArrayList<Worker> workers = new ArrayList<Worker>();
+
+    /**
+     * Solves a range of islands.
+     */
+    static class Worker implements Callable<Void> {
+        /**
+         * The world solving the contacts.
+         */
+        PhysicsWorld world;
+        /**
+         * The islands.
+         */
+        ContactIslands islands;
+        /**
+         * The first island of the range.
+         */
+        int start;
+        /**
+         * The end of the range, exclusive.
+         */
+        int end;
+
+        @Override
+        public Void call(){
+            for(int island = start; island < end; island++){
+                world.solveIsland(islands, island);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds the root of the set of a slot, halving the path on the way.
+     *
+     * @param slot the slot
+     * @return the root slot
+     */
+    int find(int slot){
+        while(parent[slot] != slot){
+            parent[slot] = parent[parent[slot]];
+            slot = parent[slot];
+        }
+        return slot;
+    }
+
+    /**
+     * Joins the sets of two slots, hanging the smaller tree under the larger.
+     *
+     * @param a the first slot
+     * @param b the second slot
+     */
+    void union(int a, int b){
+        int rootA = find(a);
+        int rootB = find(b);
+        if(rootA == rootB){
+            return;
+        }
+        if(size[rootA] < size[rootB]){
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+
+    /**
+     * Builds the islands of the given contacts.
+     *
+     * @param storage  the storage of the bodies the contacts refer to
+     * @param contacts the contacts
+     * @return the number of islands
+     */
+    public int build(BodyStorage storage, ContactBuffer contacts){
+        int bodyCount = storage.count;
+        int contactCount = contacts.count;
+        if(parent.length < bodyCount){
+            int capacity = Math.max(bodyCount, parent.length * 2);
+            parent = new int[capacity];
+            size = new int[capacity];
+            islandOfRoot = new int[capacity];
+            islandBodies = new int[capacity];
+            bodyStart = new int[capacity + 1];
+        }
+        if(islandOfContact.length < contactCount){
+            int capacity = Math.max(contactCount, islandOfContact.length * 2);
+            islandOfContact = new int[capacity];
+            islandContacts = new int[capacity];
+            contactStart = new int[capacity + 1];
+        }
+        for(int i = 0; i < bodyCount; i++){
+            parent[i] = i;
+            size[i] = 1;
+        }
+        Arrays.fill(islandOfRoot, 0, bodyCount, -1);
+
+        double[] inverseMass = storage.inverseMass;
+        for(int c = 0; c < contactCount; c++){
+            int a = SpatialHashGrid.firstOf(contacts.pairs[c]);
+            int b = SpatialHashGrid.secondOf(contacts.pairs[c]);
+            if(inverseMass[a] != 0 && inverseMass[b] != 0){
+                union(a, b);
+            }
+        }
+
+        // numbers the islands in the order of their first contacts
+        islandCount = 0;
+        for(int c = 0; c < contactCount; c++){
+            int a = SpatialHashGrid.firstOf(contacts.pairs[c]);
+            int b = SpatialHashGrid.secondOf(contacts.pairs[c]);
+            int movable = inverseMass[a] != 0 ? a : inverseMass[b] != 0 ? b : -1;
+            if(movable == -1){
+                islandOfContact[c] = -1;
+                continue;
+            }
+            int root = find(movable);
+            if(islandOfRoot[root] == -1){
+                islandOfRoot[root] = islandCount++;
+            }
+            islandOfContact[c] = islandOfRoot[root];
+        }
+        if(contactStart.length < islandCount + 1){
+            contactStart = new int[islandCount + 1];
+        }
+        if(bodyStart.length < islandCount + 1){
+            bodyStart = new int[islandCount + 1];
+        }
+
+        // counting sort of the contacts by island, keeping their order inside an island
+        Arrays.fill(contactStart, 0, islandCount + 1, 0);
+        for(int c = 0; c < contactCount; c++){
+            if(islandOfContact[c] != -1){
+                contactStart[islandOfContact[c] + 1]++;
+            }
+        }
+        for(int island = 0; island < islandCount; island++){
+            contactStart[island + 1] += contactStart[island];
+        }
+        for(int c = 0; c < contactCount; c++){
+            int island = islandOfContact[c];
+            if(island != -1){
+                islandContacts[contactStart[island]++] = c;
+            }
+        }
+        // the starts were moved to the ends while filling, shifting them back restores them
+        for(int island = islandCount; island > 0; island--){
+            contactStart[island] = contactStart[island - 1];
+        }
+        contactStart[0] = 0;
+
+        // the same for the movable bodies that are in an island
+        Arrays.fill(bodyStart, 0, islandCount + 1, 0);
+        for(int i = 0; i < bodyCount; i++){
+            int island = inverseMass[i] != 0 ? islandOfRoot[find(i)] : -1;
+            if(island != -1){
+                bodyStart[island + 1]++;
+            }
+        }
+        for(int island = 0; island < islandCount; island++){
+            bodyStart[island + 1] += bodyStart[island];
+        }
+        for(int i = 0; i < bodyCount; i++){
+            int island = inverseMass[i] != 0 ? islandOfRoot[find(i)] : -1;
+            if(island != -1){
+                islandBodies[bodyStart[island]++] = i;
+            }
+        }
+        for(int island = islandCount; island > 0; island--){
+            bodyStart[island] = bodyStart[island - 1];
+        }
+        bodyStart[0] = 0;
+
+        return islandCount;
+    }
+
+    /**
+     * Solves every island with the given world. With an executor the islands are divided into ranges with about the
+     * same number of contacts and the ranges are solved on the threads of the executor.
+     *
+     * @param world       the world solving the contacts of an island
+     * @param executor    the executor, null to solve on the calling thread
+     * @param workerCount the number of ranges the islands are divided into
+     */
+    public void solve(PhysicsWorld world, ExecutorService executor, int workerCount){
+        if(executor == null || workerCount < 2 || islandCount < 2){
+            for(int island = 0; island < islandCount; island++){
+                world.solveIsland(this, island);
+            }
+            return;
+        }
+
+        int totalContacts = contactStart[islandCount];
+        int rangeContacts = (totalContacts + workerCount - 1) / workerCount;
+        int rangeCount = 0;
+        int start = 0;
+        while(start < islandCount){
+            int end = start;
+            int limit = contactStart[start] + rangeContacts;
+            do{
+                end++;
+            }while(end < islandCount && contactStart[end + 1] <= limit);
+            if(workers.size() == rangeCount){
+                workers.add(new Worker());
+            }
+            Worker worker = workers.get(rangeCount++);
+            worker.world = world;
+            worker.islands = this;
+            worker.start = start;
+            worker.end = end;
+            start = end;
+        }
+
+        try{
+            List<Future<Void>> results = executor.invokeAll(workers.subList(0, rangeCount));
+            for(Future<Void> result : results){
+                result.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving collisions", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("Solving collisions failed", e.getCause());
+        }finally{
+            for(int w = 0; w < rangeCount; w++){
+                workers.get(w).world = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of islands found by the last build.
+     *
+     * @return the island count
+     */
+    public int getIslandCount() {
+        return islandCount;
+    }
+
+    /**
+     * Gets the island of a body found by the last build.
+     *
+     * @param slot the slot of the body
+     * @return the island, -1 if the body touches no movable body or can't be moved
+     */
+    public int getIsland(int slot) {
+        return islandOfRoot[find(slot)];
+    }
+
+    /**
+     * Gets the number of contacts in an island.
+     *
+     * @param island the island
+     * @return the contact count
+     */
+    public int getContactCount(int island) {
+        return contactStart[island + 1] - contactStart[island];
+    }
+
+    /**
+     * Gets the index of a contact of an island in the contact buffer.
+     *
+     * @param island the island
+     * @param i      the index of the contact in the island
+     * @return the index of the contact in the contact buffer
+     */
+    public int getContact(int island, int i) {
+        return islandContacts[contactStart[island] + i];
+    }
+
+    /**
+     * Gets the number of movable bodies in an island.
+     *
+     * @param island the island
+     * @return the body count
+     */
+    public int getBodyCount(int island) {
+        return bodyStart[island + 1] - bodyStart[island];
+    }
+
+    /**
+     * Gets the storage slot of a body of an island.
+     *
+     * @param island the island
+     * @param i      the index of the body in the island
+     * @return the slot of the body
+     */
+    public int getBody(int island, int i) {
+        return islandBodies[bodyStart[island] + i];
+    }
+}
@@ -0,0 +1,539 @@
+package GameEngine;
+
+/**
+ * Sequential impulse solver for the contacts of a step. Each contact point gets an impulse along the contact normal
+ * that stops the bodies from moving into each other and a friction impulse along the tangent. The impulses are applied
+ * at the contact points, so they turn the bodies as well. Solving one contact disturbs the others, so all contacts of an island are
+ * solved several times in a row and the impulses accumulate towards a solution. The accumulated impulses are kept in
+ * the contact cache and applied at the start of the next step, so resting contacts start close to their solution.
+ *
+ * The overlap left after the velocities are solved is removed with position iterations that push the bodies apart
+ * along the contact normals by a fraction of the overlap, in the manner of Baumgarte stabilization but on the
+ * positions, so the correction doesn't add energy to the velocities.
+ *
+ * Bodies with zero inverse mass are treated as immovable: they are neither moved nor turned by contacts, which also
+ * means islands solved at the same time never write to the same body.
+ */
+public class ContactSolver {
+
+    /**
+     * Default number of velocity iterations.
+     */
+    public static final int DEFAULT_VELOCITY_ITERATIONS = 8;
+    /**
+     * Default number of position iterations.
+     */
+    public static final int DEFAULT_POSITION_ITERATIONS = 3;
+
+    /**
+     * Number of times the velocities of the contacts of an island are solved per step.
+     */
+    int velocityIterations = DEFAULT_VELOCITY_ITERATIONS;
+    /**
+     * Number of times the overlaps of the contacts of an island are corrected per step.
+     */
+    int positionIterations = DEFAULT_POSITION_ITERATIONS;
+    /**
+     * Fraction of the overlap removed by one position correction.
+     */
+    double baumgarte = 0.2;
+    /**
+     * Overlap in JavaFX units that is allowed, so that resting contacts stay touching instead of jittering.
+     */
+    double slop = 0.5;
+    /**
+     * Largest correction in JavaFX units made by one position correction of a contact.
+     */
+    double maxCorrection = 5;
+    /**
+     * Friction coefficient of the contacts.
+     */
+    double friction = 0.3;
+    /**
+     * Restitution of the contacts, 0 for no bounce and 1 for a fully elastic bounce.
+     */
+    double restitution = 0.2;
+    /**
+     * Closing speed in meters per second below which contacts don't bounce.
+     */
+    double restitutionThreshold = 1;
+
+    /**
+     * The storage of the bodies being solved.
+     */
+    BodyStorage storage;
+    /**
+     * The contact cache with the normals, points and accumulated impulses of the contacts.
+     */
+    ContactCache cache;
+    /**
+     * The cache entry of each contact.
+     */
+    int[] entries;
+    /**
+     * The conversion rate of JavaFX units to meters.
+     */
+    double pixelsPerMeter;
+
+    /**
+     * Slot of the first body of each contact, the one with the smaller id that the normal points away from.
+     */
+    int[] slotA = new int[64];
+    /**
+     * Slot of the second body of each contact.
+     */
+    int[] slotB = new int[64];
+    /**
+     * Offsets in meters from the centroids to the contact points, as ax, ay, bx, by for each of the two points of
+     * each contact.
+     */
+    double[] offsets = new double[512];
+    /**
+     * Effective mass along the normal at each of the two points of each contact.
+     */
+    double[] normalMass = new double[128];
+    /**
+     * Effective mass along the tangent at each of the two points of each contact.
+     */
+    double[] tangentMass = new double[128];
+    /**
+     * Normal speed each contact point should separate with after solving, from restitution.
+     */
+    double[] velocityBias = new double[128];
+
+    /**
+     * Prepares the solver for the contacts of a step. The contacts of the islands can then be solved on any thread.
+     *
+     * @param storage        the storage of the bodies
+     * @param cache          the contact cache of the step
+     * @param entries        the cache entry of each contact
+     * @param contactCount   the number of contacts
+     * @param pixelsPerMeter the conversion rate of JavaFX units to meters
+     */
+    void begin(BodyStorage storage, ContactCache cache, int[] entries, int contactCount, double pixelsPerMeter){
+        this.storage = storage;
+        this.cache = cache;
+        this.entries = entries;
+        this.pixelsPerMeter = pixelsPerMeter;
+        if(slotA.length < contactCount){
+            int capacity = Math.max(contactCount, slotA.length * 2);
+            slotA = new int[capacity];
+            slotB = new int[capacity];
+            offsets = new double[capacity * 8];
+            normalMass = new double[capacity * 2];
+            tangentMass = new double[capacity * 2];
+            velocityBias = new double[capacity * 2];
+        }
+    }
+
+    /**
+     * Solves the contacts of an island: applies the impulses of the previous step, iterates the velocities and then
+     * corrects the overlaps.
+     *
+     * @param islands  the islands of the step
+     * @param island   the island to solve
+     * @param contacts the contacts of the step
+     */
+    void solveIsland(ContactIslands islands, int island, ContactBuffer contacts){
+        int contactCount = islands.getContactCount(island);
+        // restitution needs the velocities from before any impulse of this step
+        for(int i = 0; i < contactCount; i++){
+            int contact = islands.getContact(island, i);
+            prepare(contact, contacts.getPair(contact));
+        }
+        for(int i = 0; i < contactCount; i++){
+            warmStart(islands.getContact(island, i));
+        }
+        for(int iteration = 0; iteration < velocityIterations; iteration++){
+            for(int i = 0; i < contactCount; i++){
+                solveVelocity(islands.getContact(island, i));
+            }
+        }
+        for(int iteration = 0; iteration < positionIterations; iteration++){
+            double minSeparation = 0;
+            for(int i = 0; i < contactCount; i++){
+                minSeparation = Math.min(minSeparation, solvePosition(islands.getContact(island, i)));
+            }
+            if(minSeparation >= -3 * slop){
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the inverse mass of a slot.
+     *
+     * @param slot the slot
+     * @return the inverse mass
+     */
+    double inverseMass(int slot){
+        return storage.inverseMass[slot];
+    }
+
+    /**
+     * Gets the inverse moment of inertia of a slot. Immovable bodies aren't turned by contacts either.
+     *
+     * @param slot the slot
+     * @return the inverse inertia
+     */
+    double inverseInertia(int slot){
+        return storage.inverseMass[slot] == 0 ? 0 : storage.inverseInertia[slot];
+    }
+
+    /**
+     * Calculates the offsets, effective masses and restitution of the points of a contact.
+     *
+     * @param contact the index of the contact
+     * @param pair    the packed pair of the contact
+     */
+    void prepare(int contact, long pair){
+        BodyStorage s = storage;
+        int first = SpatialHashGrid.firstOf(pair);
+        int second = SpatialHashGrid.secondOf(pair);
+        int a = s.bodies[first].id < s.bodies[second].id ? first : second;
+        int b = a == first ? second : first;
+        slotA[contact] = a;
+        slotB[contact] = b;
+
+        int entry = entries[contact];
+        double nx = cache.normalX[entry];
+        double ny = cache.normalY[entry];
+        double mA = inverseMass(a);
+        double mB = inverseMass(b);
+        double iA = inverseInertia(a);
+        double iB = inverseInertia(b);
+        for(int k = 0; k < cache.pointCount[entry]; k++){
+            int point = contact * 2 + k;
+            double px = cache.pointX[entry * 2 + k];
+            double py = cache.pointY[entry * 2 + k];
+            double rAx = (px - s.positionX[a]) / pixelsPerMeter;
+            double rAy = (py - s.positionY[a]) / pixelsPerMeter;
+            double rBx = (px - s.positionX[b]) / pixelsPerMeter;
+            double rBy = (py - s.positionY[b]) / pixelsPerMeter;
+            int o = point * 4;
+            offsets[o] = rAx;
+            offsets[o + 1] = rAy;
+            offsets[o + 2] = rBx;
+            offsets[o + 3] = rBy;
+
+            double rnA = rAx * ny - rAy * nx;
+            double rnB = rBx * ny - rBy * nx;
+            double k1 = mA + mB + iA * rnA * rnA + iB * rnB * rnB;
+            normalMass[point] = k1 > 0 ? 1 / k1 : 0;
+            // the tangent is the normal turned a quarter, (-ny, nx)
+            double rtA = rAx * nx + rAy * ny;
+            double rtB = rBx * nx + rBy * ny;
+            double k2 = mA + mB + iA * rtA * rtA + iB * rtB * rtB;
+            tangentMass[point] = k2 > 0 ? 1 / k2 : 0;
+
+            double dvx = s.velocityX[b] - s.angularVelocity[b] * rBy - s.velocityX[a] + s.angularVelocity[a] * rAy;
+            double dvy = s.velocityY[b] + s.angularVelocity[b] * rBx - s.velocityY[a] - s.angularVelocity[a] * rAx;
+            double normalSpeed = dvx * nx + dvy * ny;
+            velocityBias[point] = normalSpeed < -restitutionThreshold ? -restitution * normalSpeed : 0;
+        }
+    }
+
+    /**
+     * Applies the impulses the points of a contact have accumulated in the previous steps.
+     *
+     * @param contact the index of the contact
+     */
+    void warmStart(int contact){
+        int entry = entries[contact];
+        double nx = cache.normalX[entry];
+        double ny = cache.normalY[entry];
+        for(int k = 0; k < cache.pointCount[entry]; k++){
+            double normalImpulse = cache.normalImpulse[entry * 2 + k];
+            double tangentImpulse = cache.tangentImpulse[entry * 2 + k];
+            if(normalImpulse != 0 || tangentImpulse != 0){
+                applyImpulse(contact, k, nx * normalImpulse - ny * tangentImpulse,
+                        ny * normalImpulse + nx * tangentImpulse);
+            }
+        }
+    }
+
+    /**
+     * Applies an impulse at a contact point, pushing the second body along it and the first body against it.
+     *
+     * @param contact  the index of the contact
+     * @param k        the contact point, 0 or 1
+     * @param impulseX the x component of the impulse
+     * @param impulseY the y component of the impulse
+     */
+    void applyImpulse(int contact, int k, double impulseX, double impulseY){
+        BodyStorage s = storage;
+        int a = slotA[contact];
+        int b = slotB[contact];
+        int o = (contact * 2 + k) * 4;
+        double mA = inverseMass(a);
+        double mB = inverseMass(b);
+        if(mA != 0){
+            s.velocityX[a] -= impulseX * mA;
+            s.velocityY[a] -= impulseY * mA;
+            s.angularVelocity[a] -= (offsets[o] * impulseY - offsets[o + 1] * impulseX) * inverseInertia(a);
+        }
+        if(mB != 0){
+            s.velocityX[b] += impulseX * mB;
+            s.velocityY[b] += impulseY * mB;
+            s.angularVelocity[b] += (offsets[o + 2] * impulseY - offsets[o + 3] * impulseX) * inverseInertia(b);
+        }
+    }
+
+    /**
+     * Solves the friction and then the normal impulses of the points of a contact once.
+     *
+     * @param contact the index of the contact
+     */
+    void solveVelocity(int contact){
+        BodyStorage s = storage;
+        int a = slotA[contact];
+        int b = slotB[contact];
+        int entry = entries[contact];
+        int pointCount = cache.pointCount[entry];
+        double nx = cache.normalX[entry];
+        double ny = cache.normalY[entry];
+
+        for(int k = 0; k < pointCount; k++){
+            int point = contact * 2 + k;
+            int o = point * 4;
+            double rAx = offsets[o];
+            double rAy = offsets[o + 1];
+            double rBx = offsets[o + 2];
+            double rBy = offsets[o + 3];
+            double dvx = s.velocityX[b] - s.angularVelocity[b] * rBy - s.velocityX[a] + s.angularVelocity[a] * rAy;
+            double dvy = s.velocityY[b] + s.angularVelocity[b] * rBx - s.velocityY[a] - s.angularVelocity[a] * rAx;
+            double tangentSpeed = -dvx * ny + dvy * nx;
+            double lambda = -tangentMass[point] * tangentSpeed;
+            double maxFriction = friction * cache.normalImpulse[entry * 2 + k];
+            double oldImpulse = cache.tangentImpulse[entry * 2 + k];
+            double newImpulse = Math.max(-maxFriction, Math.min(oldImpulse + lambda, maxFriction));
+            cache.tangentImpulse[entry * 2 + k] = newImpulse;
+            lambda = newImpulse - oldImpulse;
+            applyImpulse(contact, k, -ny * lambda, nx * lambda);
+        }
+
+        for(int k = 0; k < pointCount; k++){
+            int point = contact * 2 + k;
+            int o = point * 4;
+            double rAx = offsets[o];
+            double rAy = offsets[o + 1];
+            double rBx = offsets[o + 2];
+            double rBy = offsets[o + 3];
+            double dvx = s.velocityX[b] - s.angularVelocity[b] * rBy - s.velocityX[a] + s.angularVelocity[a] * rAy;
+            double dvy = s.velocityY[b] + s.angularVelocity[b] * rBx - s.velocityY[a] - s.angularVelocity[a] * rAx;
+            double normalSpeed = dvx * nx + dvy * ny;
+            double lambda = -normalMass[point] * (normalSpeed - velocityBias[point]);
+            double oldImpulse = cache.normalImpulse[entry * 2 + k];
+            double newImpulse = Math.max(oldImpulse + lambda, 0);
+            cache.normalImpulse[entry * 2 + k] = newImpulse;
+            lambda = newImpulse - oldImpulse;
+            applyImpulse(contact, k, nx * lambda, ny * lambda);
+        }
+    }
+
+    /**
+     * Pushes the bodies of a contact apart by a part of their remaining overlap at each contact point. The overlap is
+     * estimated from the depth found by the collision check and how much the bodies have moved since the check.
+     *
+     * @param contact the index of the contact
+     * @return the smallest estimated separation before the correction, negative when the bodies overlap
+     */
+    double solvePosition(int contact){
+        BodyStorage s = storage;
+        int a = slotA[contact];
+        int b = slotB[contact];
+        Body bodyA = s.bodies[a];
+        Body bodyB = s.bodies[b];
+        int entry = entries[contact];
+        double nx = cache.normalX[entry];
+        double ny = cache.normalY[entry];
+        double ppm = pixelsPerMeter;
+        double mA = inverseMass(a);
+        double mB = inverseMass(b);
+        double iA = inverseInertia(a);
+        double iB = inverseInertia(b);
+        double minSeparation = 0;
+
+        for(int k = 0; k < cache.pointCount[entry]; k++){
+            int o = (contact * 2 + k) * 4;
+            // movement of the contact point on each body since the collision check, with small angle rotation
+            double turnA = s.angle[a] - bodyA.transformAngle;
+            double turnB = s.angle[b] - bodyB.transformAngle;
+            double moveAx = s.positionX[a] - bodyA.transformX - turnA * offsets[o + 1] * ppm;
+            double moveAy = s.positionY[a] - bodyA.transformY + turnA * offsets[o] * ppm;
+            double moveBx = s.positionX[b] - bodyB.transformX - turnB * offsets[o + 3] * ppm;
+            double moveBy = s.positionY[b] - bodyB.transformY + turnB * offsets[o + 2] * ppm;
+            double separation = -cache.depth[entry * 2 + k] + (moveBx - moveAx) * nx + (moveBy - moveAy) * ny;
+            minSeparation = Math.min(minSeparation, separation);
+
+            double correction = Math.max(-maxCorrection, Math.min(baumgarte * (separation + slop), 0));
+            if(correction == 0){
+                continue;
+            }
+            double impulse = -correction / ppm * normalMass[contact * 2 + k];
+            if(mA != 0){
+                s.positionX[a] -= nx * impulse * mA * ppm;
+                s.positionY[a] -= ny * impulse * mA * ppm;
+                s.angle[a] -= (offsets[o] * ny - offsets[o + 1] * nx) * impulse * iA;
+            }
+            if(mB != 0){
+                s.positionX[b] += nx * impulse * mB * ppm;
+                s.positionY[b] += ny * impulse * mB * ppm;
+                s.angle[b] += (offsets[o + 2] * ny - offsets[o + 3] * nx) * impulse * iB;
+            }
+        }
+        return minSeparation;
+    }
+
+    /**
+     * Gets the number of velocity iterations.
+     *
+     * @return the velocity iterations
+     */
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Sets the number of times the velocities of the contacts of an island are solved per step. More iterations
+     * make stacks stiffer but cost more.
+     *
+     * @param velocityIterations the velocity iterations
+     */
+    public void setVelocityIterations(int velocityIterations) {
+        if(velocityIterations < 1){
+            throw new IllegalArgumentException("Velocity iterations must be at least one");
+        }
+        this.velocityIterations = velocityIterations;
+    }
+
+    /**
+     * Gets the number of position iterations.
+     *
+     * @return the position iterations
+     */
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * Sets the number of times the overlaps of the contacts of an island are corrected per step. Zero leaves the
+     * overlaps as they are.
+     *
+     * @param positionIterations the position iterations
+     */
+    public void setPositionIterations(int positionIterations) {
+        if(positionIterations < 0){
+            throw new IllegalArgumentException("Position iterations can't be negative");
+        }
+        this.positionIterations = positionIterations;
+    }
+
+    /**
+     * Gets the fraction of the overlap removed by one position correction.
+     *
+     * @return the baumgarte factor
+     */
+    public double getBaumgarte() {
+        return baumgarte;
+    }
+
+    /**
+     * Sets the fraction of the overlap removed by one position correction.
+     *
+     * @param baumgarte the baumgarte factor, between 0 and 1
+     */
+    public void setBaumgarte(double baumgarte) {
+        this.baumgarte = baumgarte;
+    }
+
+    /**
+     * Gets the overlap in JavaFX units that is allowed.
+     *
+     * @return the slop
+     */
+    public double getSlop() {
+        return slop;
+    }
+
+    /**
+     * Sets the overlap in JavaFX units that is allowed.
+     *
+     * @param slop the slop
+     */
+    public void setSlop(double slop) {
+        this.slop = slop;
+    }
+
+    /**
+     * Gets the largest correction in JavaFX units made by one position correction of a contact.
+     *
+     * @return the max correction
+     */
+    public double getMaxCorrection() {
+        return maxCorrection;
+    }
+
+    /**
+     * Sets the largest correction in JavaFX units made by one position correction of a contact.
+     *
+     * @param maxCorrection the max correction
+     */
+    public void setMaxCorrection(double maxCorrection) {
+        this.maxCorrection = maxCorrection;
+    }
+
+    /**
+     * Gets friction.
+     *
+     * @return the friction
+     */
+    public double getFriction() {
+        return friction;
+    }
+
+    /**
+     * Sets friction.
+     *
+     * @param friction the friction
+     */
+    public void setFriction(double friction) {
+        this.friction = friction;
+    }
+
+    /**
+     * Gets restitution.
+     *
+     * @return the restitution
+     */
+    public double getRestitution() {
+        return restitution;
+    }
+
+    /**
+     * Sets restitution, 0 for no bounce and 1 for a fully elastic bounce.
+     *
+     * @param restitution the restitution
+     */
+    public void setRestitution(double restitution) {
+        this.restitution = restitution;
+    }
+
+    /**
+     * Gets the closing speed in meters per second below which contacts don't bounce.
+     *
+     * @return the restitution threshold
+     */
+    public double getRestitutionThreshold() {
+        return restitutionThreshold;
+    }
+
+    /**
+     * Sets the closing speed in meters per second below which contacts don't bounce.
+     *
+     * @param restitutionThreshold the restitution threshold
+     */
+    public void setRestitutionThreshold(double restitutionThreshold) {
+        this.restitutionThreshold = restitutionThreshold;
+    }
+}
@@ -0,0 +1,152 @@
+package GameEngine;
+
+/**
+ * Convex collision shape of a body. Vertices are stored relative to the centroid of the shape so that a body only
+ * has to keep its position and angle to place the shape in the world. Area, centroid and moment of inertia are
+ * calculated once when the shape is created and given in JavaFX units.
+ */
+public class ConvexShape {
+
+    /**
+     * The vertices relative to the centroid as x0, y0, x1, y1...
+     */
+    final double[] vertices;
+    /**
+     * The unit normals of the edges as x0, y0, x1, y1... The normal at index i is the normal of the edge starting from
+     * the vertex at index i.
+     */
+    final double[] normals;
+    /**
+     * The x coordinate of the centroid in the coordinates the shape was created in.
+     */
+    final double centroidX;
+    /**
+     * The y coordinate of the centroid in the coordinates the shape was created in.
+     */
+    final double centroidY;
+    /**
+     * The area of the shape.
+     */
+    final double area;
+    /**
+     * The moment of inertia around the centroid for a density of one.
+     */
+    final double areaMmoi;
+    /**
+     * The distance from the centroid to the farthest vertex.
+     */
+    final double boundingRadius;
+
+    /**
+     * Instantiates a new Convex shape.
+     *
+     * @param vertices the vertices of a convex polygon as x0, y0, x1, y1... The coordinates can be for example the
+     *                 pixel coordinates of an image. The centroid is then given in the same coordinates.
+     */
+    public ConvexShape(double[] vertices){
+        if(vertices == null || vertices.length < 6 || vertices.length % 2 != 0){
+            throw new IllegalArgumentException("Shape needs at least three vertices");
+        }
+        double[] ordered = vertices.clone();
+        if(CollisionChecker.signedArea2(ordered) < 0){
+            // keeps the winding the same for every shape so that the area and inertia come out positive
+            for(int i = 0, j = ordered.length - 2; i < j; i += 2, j -= 2){
+                double x = ordered[i];
+                double y = ordered[i + 1];
+                ordered[i] = ordered[j];
+                ordered[i + 1] = ordered[j + 1];
+                ordered[j] = x;
+                ordered[j + 1] = y;
+            }
+        }
+
+        area = PhysicEngineUtils.calculatePolygonArea(ordered);
+        Vector2D centroid = PhysicEngineUtils.calculateCentroid(ordered);
+        centroidX = centroid.getX();
+        centroidY = centroid.getY();
+        areaMmoi = PhysicEngineUtils.polygonMmoi(ordered, centroid);
+
+        double radiusSquared = 0;
+        for(int i = 0; i < ordered.length; i += 2){
+            ordered[i] -= centroidX;
+            ordered[i + 1] -= centroidY;
+            radiusSquared = Math.max(radiusSquared, ordered[i] * ordered[i] + ordered[i + 1] * ordered[i + 1]);
+        }
+        boundingRadius = Math.sqrt(radiusSquared);
+        this.vertices = ordered;
+        normals = new double[ordered.length];
+        CollisionChecker.calculateNormals(ordered, normals);
+    }
+
+    /**
+     * Gets the number of vertices.
+     *
+     * @return the vertex count
+     */
+    public int getVertexCount() {
+        return vertices.length / 2;
+    }
+
+    /**
+     * Gets the vertices relative to the centroid. The returned array must not be modified.
+     *
+     * @return the vertices as x0, y0, x1, y1...
+     */
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Gets the unit normals of the edges relative to the shape. The returned array must not be modified.
+     *
+     * @return the normals as x0, y0, x1, y1...
+     */
+    public double[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * Gets the x coordinate of the centroid in the coordinates the shape was created in.
+     *
+     * @return the centroid x
+     */
+    public double getCentroidX() {
+        return centroidX;
+    }
+
+    /**
+     * Gets the y coordinate of the centroid in the coordinates the shape was created in.
+     *
+     * @return the centroid y
+     */
+    public double getCentroidY() {
+        return centroidY;
+    }
+
+    /**
+     * Gets area.
+     *
+     * @return the area
+     */
+    public double getArea() {
+        return area;
+    }
+
+    /**
+     * Gets the moment of inertia around the centroid for a density of one.
+     *
+     * @return the area mmoi
+     */
+    public double getAreaMmoi() {
+        return areaMmoi;
+    }
+
+    /**
+     * Gets the radius of the circle around the centroid that contains the shape.
+     *
+     * @return the bounding radius
+     */
+    public double getBoundingRadius() {
+        return boundingRadius;
+    }
+}
@@ -0,0 +1,118 @@
+package GameEngine;
+
+/**
+ * Turns the frame times of a game loop into fixed length physics steps. The frame time is added to an accumulator
+ * and as many whole steps as fit are taken out of it. The time left over is carried to the next frame and tells how
+ * far the simulation is between the previous and the next step, which is used for interpolating the positions shown.
+ */
+public class FixedStepClock {
+
+    /**
+     * Length of one physics step in seconds. The physics are always stepped with this length no matter how long
+     * the frames take.
+     */
+    double stepSize = 1.0 / 60.0;
+    /**
+     * The most physics steps run during one frame. If the physics can't keep up, the game slows down instead of
+     * running more and more steps every frame.
+     */
+    int maxStepsPerFrame = 5;
+    /**
+     * Frame time that hasn't been simulated yet.
+     */
+    double accumulator;
+    /**
+     * How far the simulation is between the previous and the next step, from 0 to 1.
+     */
+    double interpolation = 1;
+
+    /**
+     * Adds the time of a frame and takes out the steps that fit in the accumulated time, at most maxStepsPerFrame.
+     * If more would fit, the rest of the whole steps are dropped and only the part of a step is kept.
+     *
+     * @param frameTime the time since the previous frame in seconds
+     * @return the number of steps to run
+     */
+    public int advance(double frameTime){
+        accumulator += frameTime;
+        int steps = 0;
+        while(accumulator >= stepSize && steps < maxStepsPerFrame){
+            accumulator -= stepSize;
+            steps++;
+        }
+        if(accumulator >= stepSize){
+            // couldn't keep up, the rest of the time is dropped
+            accumulator -= Math.floor(accumulator / stepSize) * stepSize;
+        }
+        interpolation = accumulator / stepSize;
+        return steps;
+    }
+
+    /**
+     * Empties the accumulator, so the next frame starts from a whole step.
+     */
+    public void reset(){
+        accumulator = 0;
+        interpolation = 1;
+    }
+
+    /**
+     * Gets the length of one physics step in seconds.
+     *
+     * @return the step size
+     */
+    public double getStepSize() {
+        return stepSize;
+    }
+
+    /**
+     * Sets the length of one physics step in seconds.
+     *
+     * @param stepSize the step size
+     */
+    public void setStepSize(double stepSize) {
+        if(!(stepSize > 0)){
+            throw new IllegalArgumentException("Step size has to be positive: " + stepSize);
+        }
+        this.stepSize = stepSize;
+    }
+
+    /**
+     * Gets the most physics steps run during one frame.
+     *
+     * @return the max steps per frame
+     */
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    /**
+     * Sets the most physics steps run during one frame.
+     *
+     * @param maxStepsPerFrame the max steps per frame
+     */
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+        if(maxStepsPerFrame < 1){
+            throw new IllegalArgumentException("At least one step per frame is needed: " + maxStepsPerFrame);
+        }
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Gets the frame time that hasn't been simulated yet.
+     *
+     * @return the accumulated time in seconds
+     */
+    public double getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * Gets how far the simulation is between the previous and the next step, from 0 to 1.
+     *
+     * @return the interpolation factor
+     */
+    public double getInterpolation() {
+        return interpolation;
+    }
+}
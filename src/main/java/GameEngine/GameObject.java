@@ -1,25 +1,54 @@
 package GameEngine;
 
 import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Rotate;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * The GameObject class holds all information for game objects seen on screen.
+ * The GameObject class holds all information for game objects seen on screen. The physics of the object are
+ * simulated by its body, the game object only shows the body's position and angle on the screen.
  *
  * @author Jaakko Mäntylä
  */
 public class GameObject extends ImageView{
 
+    /**
+     * Images by file path, shared by the game objects showing the same file.
+     */
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<String, Image>();
 
     private double height;
     private double width;
     private Body body;
     private GameObjectType type = GameObjectType.SOLID;
     private GameWindow gameWindow;
+    /**
+     * Rotates the image around the centroid of the body.
+     */
+    private final Rotate rotation = new Rotate();
+    /**
+     * Outline of the body's collision shape, shown in debug mode.
+     */
+    private Polygon debugShape;
+    /**
+     * Centroid of the body, shown in debug mode.
+     */
+    private Circle debugCentroid;
+    /**
+     * Bounding box of the body used by the broadphase, shown in debug mode.
+     */
+    private Rectangle debugBounds;
 
     /**
      * Instantiates a new Game object.
@@ -32,32 +61,209 @@ public class GameObject extends ImageView{
      * @param type       the type of game object
      */
     public GameObject(double x, double y, double height, String filePath, GameWindow gameWindow, GameObjectType type) {
-        BufferedImage bi;
-        this.gameWindow = gameWindow;
-        setPreserveRatio(true);
-        setFitHeight(height);
-        setX(x);
-        setY(y);
+        BufferedImage bi = null;
 
+        // the file is only read for the first object showing it, the others share the image and the shape
+        Image image = images.get(filePath);
         try{
-
-            bi = ImageIO.read(new File(filePath));
-            setImage(SwingFXUtils.toFXImage(bi, null));
+            if(image == null){
+                bi = ImageIO.read(new File(filePath));
+                image = SwingFXUtils.toFXImage(bi, null);
+                Image cached = images.putIfAbsent(filePath, image);
+                if(cached != null){
+                    image = cached;
+                }
+            }
 
         }catch(Exception e){
             System.out.println(e);
-            bi = null;
         }
 
+        ConvexShape shape = null;
+        if(type==GameObjectType.SOLID || type==GameObjectType.SENSOR ) {
+            try{
+                shape = ShapeCache.getShape(filePath, bi, height);
+            }catch(IOException e){
+                throw new IllegalArgumentException("Can't read image " + filePath, e);
+            }
+        }
+        init(x, y, height, image, shape, gameWindow, type);
+    }
+
+    /**
+     * Instantiates a new Game object from an image and a shape that are already loaded, like the ones AssetLoader
+     * gives.
+     *
+     * @param x          the x coordinate
+     * @param y          the y coordinate
+     * @param height     the height of the object
+     * @param image      the image used as visual representation of the object
+     * @param shape      the collision shape of the image scaled to the height, null for decorative objects
+     * @param gameWindow the game window in which the game object is.
+     * @param type       the type of game object
+     */
+    public GameObject(double x, double y, double height, Image image, ConvexShape shape, GameWindow gameWindow,
+                      GameObjectType type) {
+        init(x, y, height, image, shape, gameWindow, type);
+    }
+
+    /**
+     * Sets up the image and creates the body of a new game object.
+     *
+     * @param x          the x coordinate
+     * @param y          the y coordinate
+     * @param height     the height of the object
+     * @param image      the image
+     * @param shape      the collision shape
+     * @param gameWindow the game window
+     * @param type       the type of game object
+     */
+    private void init(double x, double y, double height, Image image, ConvexShape shape, GameWindow gameWindow,
+                      GameObjectType type){
+        Body newBody = null;
+        if(type==GameObjectType.SOLID || type==GameObjectType.SENSOR ) {
+            newBody = new Body(x, y, gameWindow.getWorld(), shape);
+        }
+        reset(x, y, height, image, newBody, gameWindow, type);
+    }
 
+    /**
+     * Sets up the game object to show an image and a body, as if it was new. Used by the constructors and by the game
+     * window when it reuses a released game object.
+     *
+     * @param x          the x coordinate
+     * @param y          the y coordinate
+     * @param height     the height of the object
+     * @param image      the image
+     * @param body       the body, null for decorative objects
+     * @param gameWindow the game window
+     * @param type       the type of game object
+     */
+    void reset(double x, double y, double height, Image image, Body body, GameWindow gameWindow,
+               GameObjectType type){
+        this.gameWindow = gameWindow;
+        this.type = type;
+        setPreserveRatio(true);
+        setFitHeight(height);
+        setX(x);
+        setY(y);
+        setImage(image);
 
         this.height = height;
         this.width = (height * (getImage().getWidth()/getImage().getHeight()));
 
-        if(type==GameObjectType.SOLID || type==GameObjectType.SENSOR ) {
-            body = new Body(getX(), getY(), this, bi, height);
+        this.body = body;
+        rotation.setAngle(0);
+        if(body != null) {
+            body.setUserData(this);
+            body.setSensor(type == GameObjectType.SENSOR);
+            if(!getTransforms().contains(rotation)){
+                getTransforms().add(rotation);
+            }
+            if(debugShape != null){
+                setDebugPoints();
+            }
+            updateFromBody();
+        }
+
+    }
+
+    /**
+     * Clears the image and the body of a game object released to the pool of the game window, so the pool doesn't
+     * keep them alive.
+     */
+    void release(){
+        setImage(null);
+        body = null;
+    }
+
+    /**
+     * Checks if the debug shapes have been created.
+     *
+     * @return true if the object has debug shapes
+     */
+    boolean hasDebugShapes(){
+        return debugShape != null;
+    }
+
+    /**
+     * Removes the cached images, so the next game objects read their files again.
+     */
+    public static void clearImageCache(){
+        images.clear();
+    }
+
+    /**
+     * Creates the outline, centroid and bounding box shown in debug mode. They are only created when the debug mode
+     * asks for them, so game objects shown without debug lines carry no extra scene nodes.
+     */
+    void createDebugShapes(){
+        debugShape = new Polygon();
+        setDebugPoints();
+        debugShape.setStroke(Color.BLUE);
+        debugShape.setFill(null);
+        debugShape.getTransforms().add(new Rotate());
+        debugCentroid = new Circle(1.0);
+        debugBounds = new Rectangle();
+        debugBounds.setStroke(Color.RED);
+        debugBounds.setFill(null);
+        updateFromBody();
+    }
+
+    /**
+     * Sets the points of the debug outline to the vertices of the body's collision shape.
+     */
+    void setDebugPoints(){
+        double[] vertices = body.getShape().getVertices();
+        Double[] points = new Double[vertices.length];
+        for(int i = 0; i < vertices.length; i++){
+            points[i] = vertices[i];
+        }
+        debugShape.getPoints().setAll(points);
+    }
+
+    /**
+     * Moves the image and the debug shapes to the current position and angle of the body.
+     */
+    public void updateFromBody(){
+        updateFromBody(1);
+    }
+
+    /**
+     * Moves the image and the debug shapes to the position and angle of the body blended between the two last
+     * physics steps.
+     *
+     * @param interpolation 0 shows the body as it was before the last step and 1 as it is now
+     */
+    public void updateFromBody(double interpolation){
+        if(body == null){
+            return;
+        }
+        double angle = Math.toDegrees(body.getInterpolatedAngle(interpolation));
+        double centroidX = body.getInterpolatedCentroidX(interpolation);
+        double centroidY = body.getInterpolatedCentroidY(interpolation);
+
+        setX(centroidX - body.getShape().getCentroidX());
+        setY(centroidY - body.getShape().getCentroidY());
+        rotation.setAngle(angle);
+        rotation.setPivotX(centroidX);
+        rotation.setPivotY(centroidY);
+        if(debugShape == null){
+            return;
         }
 
+        debugShape.setLayoutX(centroidX);
+        debugShape.setLayoutY(centroidY);
+        ((Rotate) debugShape.getTransforms().get(0)).setAngle(angle);
+        debugCentroid.setCenterX(centroidX);
+        debugCentroid.setCenterY(centroidY);
+
+        // the bounding box is the one cached by the body for the current step, so it isn't interpolated
+        AABB bounds = body.getAABB();
+        debugBounds.setX(bounds.getMinX());
+        debugBounds.setY(bounds.getMinY());
+        debugBounds.setWidth(bounds.getMaxX() - bounds.getMinX());
+        debugBounds.setHeight(bounds.getMaxY() - bounds.getMinY());
     }
 
     /**
@@ -92,9 +298,49 @@ public class GameObject extends ImageView{
      * @param y the y coordinate
      */
     public void move(double x, double y){
-        setX(getX()+x);
-        setY(getY()+y);
+        if(body == null){
+            setX(getX()+x);
+            setY(getY()+y);
+            return;
+        }
         body.move(x,y);
+        updateFromBody();
+    }
+
+    /**
+     * Gets the outline of the body's collision shape shown in debug mode.
+     *
+     * @return the debug shape, null if the object has no body
+     */
+    public Polygon getDebugShape() {
+        if(debugShape == null && body != null){
+            createDebugShapes();
+        }
+        return debugShape;
+    }
+
+    /**
+     * Gets the centroid of the body shown in debug mode.
+     *
+     * @return the debug centroid, null if the object has no body
+     */
+    public Circle getDebugCentroid() {
+        if(debugCentroid == null && body != null){
+            createDebugShapes();
+        }
+        return debugCentroid;
+    }
+
+    /**
+     * Gets the bounding box of the body shown in debug mode.
+     *
+     * @return the debug bounds, null if the object has no body
+     */
+    public Rectangle getDebugBounds() {
+        if(debugBounds == null && body != null){
+            createDebugShapes();
+        }
+        return debugBounds;
     }
 
     /**
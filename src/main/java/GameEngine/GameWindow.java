@@ -4,6 +4,7 @@ import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import java.util.ArrayList;
 
@@ -34,21 +35,34 @@ public class GameWindow extends Application {
      * List of game objects in scene. Add game objects to this for them to be in scene.
      */
     private ArrayList<GameObject> gameObjects = new ArrayList<GameObject>();
+    /**
+     * Released game objects waiting to be acquired again.
+     */
+    private ArrayList<GameObject> gameObjectPool = new ArrayList<GameObject>();
 
     /**
      * The Time.
      */
     long time;
     /**
-     * The Delta time.
+     * The Delta time. Time since the previous frame in seconds.
      */
     double deltaTime;
+    /**
+     * Turns the frame times into fixed length physics steps. Its interpolation is used by the game objects to blend
+     * the position shown between the two last steps.
+     */
+    final FixedStepClock clock = new FixedStepClock();
     /**
      * The World.
      */
     PhysicsWorld world;
     
     private boolean debug = true;
+    /**
+     * True once the window has been started. Game objects added after that are put in the scene right away.
+     */
+    private boolean started;
 
 
     /**
@@ -68,33 +82,139 @@ public class GameWindow extends Application {
             public void handle(long now) {
                 deltaTime = (now-time)/ 1000000000.0;
                 time = now;
-                getWorld().updateWorld();
+                stepWorld(deltaTime);
+                gameObjects.forEach(n -> n.updateFromBody(clock.getInterpolation()));
                 gameLoop(now);
             }
         };
 
         for(int i=0; i<gameObjects.size(); i++){
-            root.getChildren().add(gameObjects.get(i));
-
-            world.getBodies().add(gameObjects.get(i).getBody());
-
-            if(debug) {
-                gameObjects.get(i).getBody().getShapes().forEach((n) -> debugLines.getChildren().add(n));
-                debugLines.getChildren().add(gameObjects.get(i).getBody().getDebugCentroid());
-            }
-
+            addToScene(gameObjects.get(i));
         }
         root.getChildren().add(debugLines);
         primaryStage.setScene(scene);
         primaryStage.show();
 
+        world.setAutoClearForces(false);
         time = System.nanoTime();
         deltaTime = 0;
+        clock.reset();
+        started = true;
         loop.start();
 
 
     }
 
+    /**
+     * Adds a game object to the game. Objects added before the window starts are put in the scene when it starts and
+     * objects added later right away, so objects loaded in the background by an AssetLoader can be added whenever
+     * they are ready. Has to be called on the JavaFX application thread.
+     *
+     * @param gameObject the game object
+     */
+    public void addGameObject(GameObject gameObject){
+        gameObjects.add(gameObject);
+        if(started){
+            addToScene(gameObject);
+        }
+    }
+
+    /**
+     * Gets a game object from the pool of released game objects, or creates one if the pool is empty, and adds it to
+     * the game. The object is set up in place to show the image, with a body acquired from the world's pool, so games
+     * that spawn and drop objects all the time reuse the same objects and bodies. Has to be called on the JavaFX
+     * application thread.
+     *
+     * @param x         the x coordinate
+     * @param y         the y coordinate
+     * @param height    the height of the object
+     * @param image     the image used as visual representation of the object
+     * @param prototype the prototype of the body, null for decorative objects
+     * @param type      the type of game object
+     * @return the game object
+     */
+    public GameObject acquireGameObject(double x, double y, double height, Image image, BodyPrototype prototype,
+                                        GameObjectType type){
+        GameObject gameObject = gameObjectPool.isEmpty() ? new GameObject()
+                : gameObjectPool.remove(gameObjectPool.size() - 1);
+        Body body = null;
+        if(prototype != null && (type == GameObjectType.SOLID || type == GameObjectType.SENSOR)){
+            body = world.acquireBody(prototype, x, y);
+        }
+        gameObject.reset(x, y, height, image, body, this, type);
+        addGameObject(gameObject);
+        return gameObject;
+    }
+
+    /**
+     * Takes a game object out of the scene and its body out of the world and puts them in the pools the acquire
+     * methods take them from. The object must not be used until it is acquired again. Has to be called on the JavaFX
+     * application thread.
+     *
+     * @param gameObject the game object
+     * @return true if the game object was in the game
+     */
+    public boolean releaseGameObject(GameObject gameObject){
+        if(!gameObjects.remove(gameObject)){
+            return false;
+        }
+        root.getChildren().remove(gameObject);
+        if(gameObject.hasDebugShapes()){
+            debugLines.getChildren().removeAll(gameObject.getDebugShape(), gameObject.getDebugCentroid(),
+                    gameObject.getDebugBounds());
+        }
+        if(gameObject.getBody() != null){
+            world.releaseBody(gameObject.getBody());
+        }
+        gameObject.release();
+        gameObjectPool.add(gameObject);
+        return true;
+    }
+
+    /**
+     * Puts a game object in the scene and its body in the world.
+     *
+     * @param gameObject the game object
+     */
+    void addToScene(GameObject gameObject){
+        int debugIndex = root.getChildren().indexOf(debugLines);
+        if(debugIndex >= 0){
+            // keeps the debug lines on top of objects added after the start
+            root.getChildren().add(debugIndex, gameObject);
+        }else{
+            root.getChildren().add(gameObject);
+        }
+
+        // decorative objects are only shown, they aren't simulated even if they have been given a body
+        if(gameObject.getBody() == null || gameObject.getType() == GameObjectType.DECORATIVE){
+            return;
+        }
+        world.addBody(gameObject.getBody());
+
+        if(debug) {
+            debugLines.getChildren().add(gameObject.getDebugShape());
+            debugLines.getChildren().add(gameObject.getDebugCentroid());
+            debugLines.getChildren().add(gameObject.getDebugBounds());
+        }
+    }
+
+    /**
+     * Runs as many fixed length physics steps as fit in the time passed. Time left over is carried to the next
+     * frame and used for interpolating the positions shown on the screen. Forces applied to bodies during the frame
+     * act on all the steps run.
+     *
+     * @param frameTime the time since the previous frame in seconds
+     */
+    void stepWorld(double frameTime){
+        int steps = clock.advance(frameTime);
+        for(int i = 0; i < steps; i++){
+            getWorld().updateWorld(clock.getStepSize());
+        }
+        if(steps > 0){
+            getWorld().clearForces();
+        }
+    }
+
     /**
      * This method is called by javafx.animation.AnimationTimer's handle method
      *
@@ -124,6 +244,52 @@ public class GameWindow extends Application {
         this.deltaTime = deltaTime;
     }
 
+    /**
+     * Gets the length of one physics step in seconds.
+     *
+     * @return the step size
+     */
+    public double getStepSize() {
+        return clock.getStepSize();
+    }
+
+    /**
+     * Sets the length of one physics step in seconds. The step can be longer than a frame, the positions shown are
+     * interpolated between the steps.
+     *
+     * @param stepSize the step size
+     */
+    public void setStepSize(double stepSize) {
+        clock.setStepSize(stepSize);
+    }
+
+    /**
+     * Gets the most physics steps run during one frame.
+     *
+     * @return the max steps per frame
+     */
+    public int getMaxStepsPerFrame() {
+        return clock.getMaxStepsPerFrame();
+    }
+
+    /**
+     * Sets the most physics steps run during one frame.
+     *
+     * @param maxStepsPerFrame the max steps per frame
+     */
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+        clock.setMaxStepsPerFrame(maxStepsPerFrame);
+    }
+
+    /**
+     * Gets how far the simulation is between the previous and the next physics step, from 0 to 1.
+     *
+     * @return the interpolation factor
+     */
+    public double getInterpolation() {
+        return clock.getInterpolation();
+    }
+
     /**
      * Gets world.
      *
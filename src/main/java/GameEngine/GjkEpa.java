@@ -0,0 +1,410 @@
+package GameEngine;
+
+import java.util.Arrays;
+
+/**
+ * Collision check for convex polygons with the GJK algorithm and the expanding polytope algorithm. GJK looks for a
+ * triangle of points of the Minkowski difference of the polygons that contains the origin, which it does when the
+ * polygons overlap. EPA then grows the triangle towards the edge of the difference nearest to the origin, which gives
+ * the penetration depth and normal.
+ *
+ * Both only need the support point of a polygon, its farthest vertex in a direction. The vertices of a convex polygon
+ * are in order around it, so the support point is found by climbing from the previous support point to the
+ * neighbouring vertex while that gets farther. Successive directions are close to each other, so a climb takes a
+ * few steps instead of going through every vertex.
+ *
+ * The check keeps its simplex and polytope in buffers of its own, so each thread needs a separate instance.
+ */
+public class GjkEpa {
+
+    /**
+     * Distance under which EPA considers the nearest edge found.
+     */
+    static final double TOLERANCE = 1e-7;
+
+    /**
+     * The x coordinates of the simplex points, the newest last.
+     */
+    final double[] simplexX = new double[3];
+    /**
+     * The y coordinates of the simplex points.
+     */
+    final double[] simplexY = new double[3];
+    /**
+     * Number of points in the simplex.
+     */
+    int simplexCount;
+    /**
+     * The x coordinates of the polytope vertices, counterclockwise.
+     */
+    double[] polytopeX = new double[16];
+    /**
+     * The y coordinates of the polytope vertices.
+     */
+    double[] polytopeY = new double[16];
+    /**
+     * Number of vertices in the polytope.
+     */
+    int polytopeCount;
+    /**
+     * The vertex of polygon 1 the last climb ended at, where the next one starts.
+     */
+    int support1;
+    /**
+     * The vertex of polygon 2 the last climb ended at.
+     */
+    int support2;
+    /**
+     * The x coordinate of the last support point of the Minkowski difference.
+     */
+    double pointX;
+    /**
+     * The y coordinate of the last support point of the Minkowski difference.
+     */
+    double pointY;
+    /**
+     * The x component of the last direction GJK searched in.
+     */
+    double directionX;
+    /**
+     * The y component of the last direction GJK searched in.
+     */
+    double directionY;
+    /**
+     * The x component of the axis found by touchingAxis.
+     */
+    double axisX;
+    /**
+     * The y component of the axis found by touchingAxis.
+     */
+    double axisY;
+
+    /**
+     * Finds the vertex of a convex polygon farthest in a direction by climbing along its edges.
+     *
+     * @param vertices the vertices of the polygon as x0, y0, x1, y1... in order around it
+     * @param dx       the x component of the direction
+     * @param dy       the y component of the direction
+     * @param start    the vertex to start the climb from
+     * @return the index of the farthest vertex, not multiplied by two
+     */
+    static int support(double[] vertices, double dx, double dy, int start){
+        int n = vertices.length / 2;
+        int i = start;
+        double best = vertices[i * 2] * dx + vertices[i * 2 + 1] * dy;
+        int next = i + 1 == n ? 0 : i + 1;
+        double d = vertices[next * 2] * dx + vertices[next * 2 + 1] * dy;
+        if(d >= best){
+            // equal values are passed too, so the climb doesn't stop on an edge across the direction
+            for(int steps = 0; d >= best && steps < n; steps++){
+                i = next;
+                best = d;
+                next = i + 1 == n ? 0 : i + 1;
+                d = vertices[next * 2] * dx + vertices[next * 2 + 1] * dy;
+            }
+            return i;
+        }
+        int previous = i == 0 ? n - 1 : i - 1;
+        d = vertices[previous * 2] * dx + vertices[previous * 2 + 1] * dy;
+        for(int steps = 0; d > best && steps < n; steps++){
+            i = previous;
+            best = d;
+            previous = i == 0 ? n - 1 : i - 1;
+            d = vertices[previous * 2] * dx + vertices[previous * 2 + 1] * dy;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the point of the Minkowski difference of polygon 1 and polygon 2 farthest in a direction and stores it in
+     * pointX and pointY.
+     *
+     * @param vertices1 the vertices of polygon 1
+     * @param vertices2 the vertices of polygon 2
+     * @param dx        the x component of the direction
+     * @param dy        the y component of the direction
+     */
+    void supportPoint(double[] vertices1, double[] vertices2, double dx, double dy){
+        support1 = support(vertices1, dx, dy, support1);
+        support2 = support(vertices2, -dx, -dy, support2);
+        pointX = vertices1[support1 * 2] - vertices2[support2 * 2];
+        pointY = vertices1[support1 * 2 + 1] - vertices2[support2 * 2 + 1];
+    }
+
+    /**
+     * Checks if two convex polygons are colliding. On a collision the result gets the penetration depth, the axis
+     * from polygon 1 to polygon 2 and contact points clipped the same way as in the separating axis test of
+     * CollisionChecker.
+     *
+     * @param vertices1 the vertices of polygon 1 in world coordinates
+     * @param normals1  the edge normals of polygon 1
+     * @param vertices2 the vertices of polygon 2 in world coordinates
+     * @param normals2  the edge normals of polygon 2
+     * @param result    the collision info the contact is written to, unchanged if there is no collision
+     * @return true if the polygons are colliding
+     */
+    public boolean checkCollision(double[] vertices1, double[] normals1, double[] vertices2, double[] normals2,
+                                  CollisionInfo result){
+        if(!intersects(vertices1, vertices2)){
+            return false;
+        }
+        double overlap = 0;
+        if(simplexCount < 3){
+            // GJK got stuck on the boundary of the difference, so the polygons only touch
+            touchingAxis(vertices1, vertices2);
+        }else{
+            expand(vertices1, vertices2);
+
+            // the nearest edge of the polytope gives the depth and the normal pointing from polygon 1 to polygon 2
+            int edge = nearestEdge();
+            int end = edge + 1 == polytopeCount ? 0 : edge + 1;
+            double ex = polytopeX[end] - polytopeX[edge];
+            double ey = polytopeY[end] - polytopeY[edge];
+            double length = Math.sqrt(ex * ex + ey * ey);
+            if(length == 0){
+                // every edge has collapsed, which happens when the polygons touch at a corner
+                touchingAxis(vertices1, vertices2);
+            }else{
+                axisX = ey / length;
+                axisY = -ex / length;
+                overlap = Math.max(0, axisX * polytopeX[edge] + axisY * polytopeY[edge]);
+            }
+        }
+        double axisX = this.axisX;
+        double axisY = this.axisY;
+
+        // the polygon with the face closer to the axis is the reference, like the one giving the axis in SAT
+        double alignment1 = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < normals1.length; i += 2){
+            alignment1 = Math.max(alignment1, normals1[i] * axisX + normals1[i + 1] * axisY);
+        }
+        double alignment2 = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < normals2.length; i += 2){
+            alignment2 = Math.max(alignment2, -normals2[i] * axisX - normals2[i + 1] * axisY);
+        }
+        if(alignment1 >= alignment2){
+            int deepest = support(vertices2, -axisX, -axisY, support2);
+            result.set(overlap, axisX, axisY, vertices2[deepest * 2], vertices2[deepest * 2 + 1]);
+            CollisionChecker.clipContactPoints(vertices1, normals1, vertices2, normals2, axisX, axisY, result);
+        }else{
+            int deepest = support(vertices1, axisX, axisY, support1);
+            result.set(overlap, axisX, axisY, vertices1[deepest * 2], vertices1[deepest * 2 + 1]);
+            CollisionChecker.clipContactPoints(vertices2, normals2, vertices1, normals1, -axisX, -axisY, result);
+        }
+        return true;
+    }
+
+    /**
+     * Runs GJK on two convex polygons. When they intersect the simplex is left as a triangle containing the origin,
+     * or as a segment when GJK runs out of iterations on the boundary of the difference of touching polygons.
+     *
+     * @param vertices1 the vertices of polygon 1
+     * @param vertices2 the vertices of polygon 2
+     * @return true if the polygons intersect or touch, in which case the simplex can be left as a segment
+     */
+    boolean intersects(double[] vertices1, double[] vertices2){
+        support1 = 0;
+        support2 = 0;
+        double dx = vertices2[0] - vertices1[0];
+        double dy = vertices2[1] - vertices1[1];
+        if(dx == 0 && dy == 0){
+            dx = 1;
+        }
+        supportPoint(vertices1, vertices2, dx, dy);
+        simplexX[0] = pointX;
+        simplexY[0] = pointY;
+        simplexCount = 1;
+        dx = -pointX;
+        dy = -pointY;
+
+        int maxIterations = vertices1.length + vertices2.length + 8;
+        for(int iteration = 0; iteration < maxIterations; iteration++){
+            if(dx == 0 && dy == 0){
+                // the origin is on the simplex, so the polygons touch; any side builds the triangle
+                if(simplexCount == 1){
+                    dx = 1;
+                }else{
+                    dx = simplexY[0] - simplexY[1];
+                    dy = simplexX[1] - simplexX[0];
+                }
+            }
+            directionX = dx;
+            directionY = dy;
+            supportPoint(vertices1, vertices2, dx, dy);
+            if(pointX * dx + pointY * dy < 0){
+                return false;
+            }
+            simplexX[simplexCount] = pointX;
+            simplexY[simplexCount] = pointY;
+            simplexCount++;
+
+            double ax = pointX;
+            double ay = pointY;
+            if(simplexCount == 2){
+                // the part of the direction to the origin that is across the line
+                double abx = simplexX[0] - ax;
+                double aby = simplexY[0] - ay;
+                if(abx == 0 && aby == 0){
+                    // only the origin itself comes up again when searched towards, so the polygons touch at it
+                    return true;
+                }
+                double along = (abx * -ax + aby * -ay) / (abx * abx + aby * aby);
+                dx = -ax - abx * along;
+                dy = -ay - aby * along;
+                if(dx == 0 && dy == 0){
+                    // the origin lies on the segment
+                    dx = -aby;
+                    dy = abx;
+                }
+                continue;
+            }
+
+            double bx = simplexX[1];
+            double by = simplexY[1];
+            double cx = simplexX[0];
+            double cy = simplexY[0];
+            double abx = bx - ax;
+            double aby = by - ay;
+            double acx = cx - ax;
+            double acy = cy - ay;
+            // normals of the new edges pointing away from the third point
+            double abPerpX = -aby;
+            double abPerpY = abx;
+            if(abPerpX * acx + abPerpY * acy > 0){
+                abPerpX = -abPerpX;
+                abPerpY = -abPerpY;
+            }
+            double acPerpX = -acy;
+            double acPerpY = acx;
+            if(acPerpX * abx + acPerpY * aby > 0){
+                acPerpX = -acPerpX;
+                acPerpY = -acPerpY;
+            }
+            if(abPerpX * -ax + abPerpY * -ay > 0){
+                // drops c
+                simplexX[0] = bx;
+                simplexY[0] = by;
+                simplexX[1] = ax;
+                simplexY[1] = ay;
+                simplexCount = 2;
+                dx = abPerpX;
+                dy = abPerpY;
+            }else if(acPerpX * -ax + acPerpY * -ay > 0){
+                // drops b
+                simplexX[1] = ax;
+                simplexY[1] = ay;
+                simplexCount = 2;
+                dx = acPerpX;
+                dy = acPerpY;
+            }else{
+                return true;
+            }
+        }
+        // a simplex still moving after every vertex has been tried is stuck on the boundary, so the polygons touch
+        return true;
+    }
+
+    /**
+     * Finds the axis of polygons that only touch, when there is no polytope edge to take it from. The axis is the
+     * last search direction of GJK or its opposite, whichever the Minkowski difference reaches less far in, since
+     * the origin is on that side of its boundary. The axis is stored in axisX and axisY.
+     *
+     * @param vertices1 the vertices of polygon 1
+     * @param vertices2 the vertices of polygon 2
+     */
+    void touchingAxis(double[] vertices1, double[] vertices2){
+        double length = Math.sqrt(directionX * directionX + directionY * directionY);
+        double dx = length == 0 ? 1 : directionX / length;
+        double dy = length == 0 ? 0 : directionY / length;
+        supportPoint(vertices1, vertices2, dx, dy);
+        double forward = pointX * dx + pointY * dy;
+        supportPoint(vertices1, vertices2, -dx, -dy);
+        double backward = -pointX * dx - pointY * dy;
+        axisX = forward <= backward ? dx : -dx;
+        axisY = forward <= backward ? dy : -dy;
+    }
+
+    /**
+     * Finds the edge of the polytope nearest to the origin.
+     *
+     * @return the index of the first vertex of the edge
+     */
+    int nearestEdge(){
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < polytopeCount; i++){
+            int end = i + 1 == polytopeCount ? 0 : i + 1;
+            double ex = polytopeX[end] - polytopeX[i];
+            double ey = polytopeY[end] - polytopeY[i];
+            double length = Math.sqrt(ex * ex + ey * ey);
+            if(length == 0){
+                continue;
+            }
+            double distance = (ey * polytopeX[i] - ex * polytopeY[i]) / length;
+            if(distance < nearestDistance){
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Runs EPA from the triangle GJK left, growing the polytope until its nearest edge is on the edge of the
+     * Minkowski difference.
+     *
+     * @param vertices1 the vertices of polygon 1
+     * @param vertices2 the vertices of polygon 2
+     */
+    void expand(double[] vertices1, double[] vertices2){
+        for(int i = 0; i < simplexCount; i++){
+            polytopeX[i] = simplexX[i];
+            polytopeY[i] = simplexY[i];
+        }
+        polytopeCount = simplexCount;
+        double area2 = (polytopeX[1] - polytopeX[0]) * (polytopeY[2] - polytopeY[0])
+                - (polytopeY[1] - polytopeY[0]) * (polytopeX[2] - polytopeX[0]);
+        if(area2 < 0){
+            double swap = polytopeX[1];
+            polytopeX[1] = polytopeX[2];
+            polytopeX[2] = swap;
+            swap = polytopeY[1];
+            polytopeY[1] = polytopeY[2];
+            polytopeY[2] = swap;
+        }
+
+        // the difference has at most as many vertices as the polygons together
+        int maxIterations = vertices1.length / 2 + vertices2.length / 2;
+        for(int iteration = 0; iteration < maxIterations; iteration++){
+            int edge = nearestEdge();
+            int end = edge + 1 == polytopeCount ? 0 : edge + 1;
+            double ex = polytopeX[end] - polytopeX[edge];
+            double ey = polytopeY[end] - polytopeY[edge];
+            double length = Math.sqrt(ex * ex + ey * ey);
+            if(length == 0){
+                // only left by polygons touching at a corner, checkCollision takes the axis from GJK instead
+                return;
+            }
+            double nx = ey / length;
+            double ny = -ex / length;
+            double distance = nx * polytopeX[edge] + ny * polytopeY[edge];
+            supportPoint(vertices1, vertices2, nx, ny);
+            if(pointX * nx + pointY * ny - distance < TOLERANCE){
+                return;
+            }
+            if(polytopeCount == polytopeX.length){
+                polytopeX = Arrays.copyOf(polytopeX, polytopeCount * 2);
+                polytopeY = Arrays.copyOf(polytopeY, polytopeCount * 2);
+            }
+            // the new vertex goes between the ends of the edge, after the last vertex if the edge closes the polygon
+            if(end != 0){
+                System.arraycopy(polytopeX, end, polytopeX, end + 1, polytopeCount - end);
+                System.arraycopy(polytopeY, end, polytopeY, end + 1, polytopeCount - end);
+            }
+            int insert = end == 0 ? polytopeCount : end;
+            polytopeX[insert] = pointX;
+            polytopeY[insert] = pointY;
+            polytopeCount++;
+        }
+    }
+}
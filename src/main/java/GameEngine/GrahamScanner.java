@@ -1,7 +1,5 @@
 package GameEngine;
 
-import javafx.geometry.Point2D;
-
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -17,7 +15,7 @@ public class GrahamScanner {
     /**
      * A global point needed for  sorting points with reference.
      */
-    Point2D p0;
+    Vector2D p0;
 
 
     /**
@@ -26,8 +24,8 @@ public class GrahamScanner {
      * @param points the points
      * @return the linked list with the point containing lowest y value first
      */
-    public static LinkedList<Point2D> putLowestFirst(LinkedList<Point2D> points){
-        LinkedList<Point2D> lowestFirst = points;
+    public static LinkedList<Vector2D> putLowestFirst(LinkedList<Vector2D> points){
+        LinkedList<Vector2D> lowestFirst = points;
         int minIndex = 0;
         for(int i = 0; i<points.size(); i++){
             if(points.get(i).getY()<points.get(minIndex).getY()){
@@ -54,7 +52,7 @@ public class GrahamScanner {
      * @return distance of the points squared
      */
 
-    double distSq(Point2D p1, Point2D p2)
+    double distSq(Vector2D p1, Vector2D p2)
     {
         return (p1.getX() - p2.getX())*(p1.getX() - p2.getX()) +
                 (p1.getY() - p2.getY())*(p1.getY() - p2.getY());
@@ -69,7 +67,7 @@ public class GrahamScanner {
      * @return the int implicating orientation of the points
      */
 
-    int orientation(Point2D p, Point2D q, Point2D r)
+    int orientation(Vector2D p, Vector2D q, Vector2D r)
     {
         double val = (q.getY() - p.getY()) * (r.getX() - q.getX()) -
                 (q.getX() - p.getX()) * (r.getY() - q.getY());
@@ -83,10 +81,10 @@ public class GrahamScanner {
      *
      */
 
-    class PointComparator implements Comparator<Point2D>{
+    class PointComparator implements Comparator<Vector2D>{
 
         @Override
-        public int compare(Point2D p1, Point2D p2) {
+        public int compare(Vector2D p1, Vector2D p2) {
 
             // Find orientation
             int o = orientation(p0, p1, p2);
@@ -99,14 +97,14 @@ public class GrahamScanner {
     }
 
     /**
-     * Method takes a random shaped polygon as LinkedList off Point2D and returns a smallest posiible
+     * Method takes a random shaped polygon as LinkedList off Vector2D and returns a smallest posiible
      * convex polygon you can surround the input polygon with
      *
      * @param points Points of a polygon to be surrounded with convex hull
-     * @return linked list containing vertices of the convex hull as Point2D
+     * @return linked list containing vertices of the convex hull as Vector2D
      */
 
-    public LinkedList<Point2D> convexHull(LinkedList<Point2D> points)
+    public LinkedList<Vector2D> convexHull(LinkedList<Vector2D> points)
     {
 
         points = putLowestFirst(points);
@@ -128,7 +126,7 @@ public class GrahamScanner {
         // one points have same angle.
 
         int m = 1; // Initialize size of modified array
-        LinkedList<Point2D> neededPoints = new LinkedList<Point2D>();
+        LinkedList<Vector2D> neededPoints = new LinkedList<Vector2D>();
         neededPoints.addFirst(p0);
         for (int i=1; i<points.size(); i++)
         {
@@ -150,7 +148,7 @@ public class GrahamScanner {
         if (m < 3) return null;
 
 
-        neededPoints = new LinkedList<Point2D>();
+        neededPoints = new LinkedList<Vector2D>();
         neededPoints.add(points.get(0));
         neededPoints.add(points.get(1));
         neededPoints.add(points.get(2));
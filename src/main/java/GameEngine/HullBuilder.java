@@ -0,0 +1,147 @@
+package GameEngine;
+
+/**
+ * Builds convex hulls around the pixels of a bitmask with the monotone chain algorithm, working on primitive arrays.
+ * Only the leftmost and the rightmost pixel of each row can be on the hull, so they are the only candidates, at most
+ * two for each row. Rows are taken from top to bottom and the two pixels of a row from left to right, which is the
+ * order the monotone chain needs, so the candidates don't have to be sorted either.
+ *
+ * The hull has the same vertices in the same order as GrahamScanner gives for the pixels, so the shapes are the same
+ * as ShapeCreator.shapeFromList made from the hull of GrahamScanner. A builder reuses its arrays between hulls, so it
+ * should only be used by one thread at a time.
+ */
+public class HullBuilder {
+
+    /**
+     * The rows of the candidate pixels.
+     */
+    int[] rows = new int[0];
+    /**
+     * The columns of the candidate pixels.
+     */
+    int[] cols = new int[0];
+    /**
+     * The candidates on the hull, as indices to rows and cols.
+     */
+    int[] hull = new int[0];
+
+    /**
+     * Builds the convex hull of the pixels set in a bitmask, row after row with (width + 63) / 64 longs a row.
+     *
+     * @param mask   the bitmask, like the one ShapeCreator.findEdgeMask gives
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param scaler the scaler for scaling the hull
+     * @return the vertices of the hull as x0, y0, x1, y1..., with the column of a pixel in x and the row in y
+     */
+    public double[] hullShape(long[] mask, int width, int height, double scaler){
+        int count = findCandidates(mask, width, height);
+        int size = buildHull(count);
+        if(size < 3){
+            throw new IllegalArgumentException("The pixels don't surround an area, the hull has " + size + " vertices");
+        }
+
+        // starts from the vertex with the smallest column, the first of them by rows, where GrahamScanner starts
+        int first = 0;
+        for(int i = 1; i < size; i++){
+            int c = hull[i];
+            int f = hull[first];
+            if(cols[c] < cols[f] || (cols[c] == cols[f] && rows[c] < rows[f])){
+                first = i;
+            }
+        }
+        double[] vertices = new double[size * 2];
+        for(int i = 0; i < size; i++){
+            int c = hull[(first + i) % size];
+            vertices[i * 2] = cols[c] * scaler;
+            vertices[i * 2 + 1] = rows[c] * scaler;
+        }
+        return vertices;
+    }
+
+    /**
+     * Collects the leftmost and the rightmost pixel of each row of a bitmask.
+     *
+     * @param mask   the bitmask
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the number of candidates
+     */
+    int findCandidates(long[] mask, int width, int height){
+        if(rows.length < height * 2){
+            rows = new int[height * 2];
+            cols = new int[height * 2];
+            hull = new int[height * 2 + 1];
+        }
+        int words = (width + 63) >>> 6;
+        int count = 0;
+        for(int y = 0; y < height; y++){
+            int offset = y * words;
+            int left = offset;
+            while(left < offset + words && mask[left] == 0){
+                left++;
+            }
+            if(left == offset + words){
+                continue;
+            }
+            int right = offset + words - 1;
+            while(mask[right] == 0){
+                right--;
+            }
+            int leftCol = (left - offset) * 64 + Long.numberOfTrailingZeros(mask[left]);
+            int rightCol = (right - offset) * 64 + 63 - Long.numberOfLeadingZeros(mask[right]);
+            rows[count] = y;
+            cols[count++] = leftCol;
+            if(rightCol != leftCol){
+                rows[count] = y;
+                cols[count++] = rightCol;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builds the hull of the candidates with the monotone chain, the lower half from the first candidate to the last
+     * and the upper half back. Candidates on a straight line between two others are left out.
+     *
+     * @param count the number of candidates
+     * @return the number of hull vertices in hull
+     */
+    int buildHull(int count){
+        if(count < 3){
+            for(int i = 0; i < count; i++){
+                hull[i] = i;
+            }
+            return count;
+        }
+        int size = 0;
+        for(int i = 0; i < count; i++){
+            while(size >= 2 && cross(hull[size - 2], hull[size - 1], i) <= 0){
+                size--;
+            }
+            hull[size++] = i;
+        }
+        int lower = size + 1;
+        for(int i = count - 2; i >= 0; i--){
+            while(size >= lower && cross(hull[size - 2], hull[size - 1], i) <= 0){
+                size--;
+            }
+            hull[size++] = i;
+        }
+        // the last vertex is the first one again
+        return size - 1;
+    }
+
+    /**
+     * Returns the cross product of the vectors from candidate o to candidates a and b, with the row as the first
+     * coordinate. Positive means that o, a and b turn counterclockwise in the same sense as GrahamScanner.
+     *
+     * @param o the index of candidate o
+     * @param a the index of candidate a
+     * @param b the index of candidate b
+     * @return the cross product
+     */
+    long cross(int o, int a, int b){
+        return (long) (rows[a] - rows[o]) * (cols[b] - cols[o]) - (long) (cols[a] - cols[o]) * (rows[b] - rows[o]);
+    }
+}
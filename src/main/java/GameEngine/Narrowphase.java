@@ -0,0 +1,313 @@
+package GameEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the polygon collision checks for the candidate pairs of the broadphase. Pairs whose bounding circles don't
+ * touch are rejected before the separating axis test. The checks only read the transformed shapes of the bodies, so
+ * when an executor is set the pairs can be split into contiguous ranges that are checked on separate threads. Every
+ * range collects its contacts into a buffer of its own and the buffers are joined in the order of the ranges, so the
+ * contacts come out in the same order as when checked on one thread.
+ */
+public class Narrowphase {
+
+    /**
+     * Default number of pairs needed before the checks are split between threads.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+    /**
+     * Default number of vertices a pair needs in total before AUTO checks it with GJK.
+     */
+    public static final int DEFAULT_GJK_VERTEX_THRESHOLD = 24;
+
+    /**
+     * The contacts found by the last call of findContacts, in the order of the pairs.
+     */
+    ContactBuffer contacts = new ContactBuffer(64);
+    /**
+     * Executor running the ranges of pairs, null to check every pair on the calling thread.
+     */
+    ExecutorService executor;
+    /**
+     * Number of ranges the pairs are split into.
+     */
+    int workerCount = Runtime.getRuntime().availableProcessors();
+    /**
+     * Number of pairs needed before the checks are split between threads.
+     */
+    int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    /**
+     * The polygon collision check used for the pairs.
+     */
+    CollisionAlgorithm algorithm = CollisionAlgorithm.AUTO;
+    /**
+     * Number of vertices a pair needs in total before AUTO checks it with GJK.
+     */
+    int gjkVertexThreshold = DEFAULT_GJK_VERTEX_THRESHOLD;
+    /**
+     * Reused collision info of the checks made on the calling thread.
+     */
+    CollisionInfo info = new CollisionInfo();
+    /**
+     * GJK check of the checks made on the calling thread.
+     */
+    GjkEpa gjk = new GjkEpa();
+    /**
+     * Reused tasks checking one range of pairs each.
+     */
+    ArrayList<Worker> workers = new ArrayList<Worker>();
+
+    /**
+     * Checks one range of pairs and collects the contacts to its own buffer.
+     */
+    static class Worker implements Callable<Void> {
+        /**
+         * The contacts found in the range.
+         */
+        final ContactBuffer contacts = new ContactBuffer(16);
+        /**
+         * Collision info of the checks made by this worker.
+         */
+        final CollisionInfo info = new CollisionInfo();
+        /**
+         * GJK check of this worker.
+         */
+        final GjkEpa gjk = new GjkEpa();
+        /**
+         * The narrowphase choosing the check for each pair.
+         */
+        Narrowphase narrowphase;
+        /**
+         * The bodies referred to by the pairs.
+         */
+        Body[] bodies;
+        /**
+         * The candidate pairs.
+         */
+        long[] pairs;
+        /**
+         * The first pair of the range.
+         */
+        int start;
+        /**
+         * The end of the range, exclusive.
+         */
+        int end;
+
+        @Override
+        public Void call(){
+            contacts.clear();
+            narrowphase.checkPairs(bodies, pairs, start, end, info, gjk, contacts);
+            return null;
+        }
+    }
+
+    /**
+     * Checks the given range of pairs and adds the colliding ones to the contacts.
+     *
+     * @param bodies   the bodies referred to by the pairs
+     * @param pairs    the packed candidate pairs
+     * @param start    the first pair to check
+     * @param end      the end of the range, exclusive
+     * @param info     reused collision info
+     * @param gjk      the GJK check of the thread
+     * @param contacts the buffer the contacts are added to
+     */
+    void checkPairs(Body[] bodies, long[] pairs, int start, int end, CollisionInfo info, GjkEpa gjk,
+                    ContactBuffer contacts){
+        for(int p = start; p < end; p++){
+            long pair = pairs[p];
+            Body body = bodies[SpatialHashGrid.firstOf(pair)];
+            Body other = bodies[SpatialHashGrid.secondOf(pair)];
+            // most pairs whose boxes overlap are rejected by their bounding circles before projecting any vertex
+            if(!CollisionChecker.circleCircleCol(body.transformX, body.transformY, body.shape.boundingRadius,
+                    other.transformX, other.transformY, other.shape.boundingRadius)){
+                continue;
+            }
+            if(useGjk(body, other)
+                    ? gjk.checkCollision(body.worldVertices, body.worldNormals, other.worldVertices,
+                    other.worldNormals, info)
+                    : CollisionChecker.checkCollision(body.worldVertices, body.worldNormals, other.worldVertices,
+                    other.worldNormals, info)){
+                contacts.add(pair, info);
+            }
+        }
+    }
+
+    /**
+     * Checks if a pair is checked with GJK instead of the separating axis test.
+     *
+     * @param body  the first body of the pair
+     * @param other the second body of the pair
+     * @return true to use GJK
+     */
+    boolean useGjk(Body body, Body other){
+        if(algorithm == CollisionAlgorithm.AUTO){
+            return (body.worldVertices.length + other.worldVertices.length) / 2 > gjkVertexThreshold;
+        }
+        return algorithm == CollisionAlgorithm.GJK;
+    }
+
+    /**
+     * Checks the candidate pairs and collects the colliding ones. The world shapes of the bodies must be up to date,
+     * which they are after the broadphase has run.
+     *
+     * @param bodies    the bodies referred to by the pairs
+     * @param pairs     the packed candidate pairs
+     * @param pairCount the number of pairs
+     * @return the contacts found, in the order of the pairs
+     */
+    public ContactBuffer findContacts(Body[] bodies, long[] pairs, int pairCount){
+        contacts.clear();
+        if(executor == null || workerCount < 2 || pairCount < parallelThreshold){
+            checkPairs(bodies, pairs, 0, pairCount, info, gjk, contacts);
+            return contacts;
+        }
+
+        while(workers.size() < workerCount){
+            workers.add(new Worker());
+        }
+        List<Worker> tasks = workers.subList(0, workerCount);
+        int rangeSize = (pairCount + workerCount - 1) / workerCount;
+        for(int w = 0; w < workerCount; w++){
+            Worker worker = workers.get(w);
+            worker.narrowphase = this;
+            worker.bodies = bodies;
+            worker.pairs = pairs;
+            worker.start = Math.min(w * rangeSize, pairCount);
+            worker.end = Math.min(worker.start + rangeSize, pairCount);
+        }
+
+        try{
+            List<Future<Void>> results = executor.invokeAll(tasks);
+            for(Future<Void> result : results){
+                result.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking collisions", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("Collision check failed", e.getCause());
+        }
+
+        for(int w = 0; w < workerCount; w++){
+            Worker worker = workers.get(w);
+            contacts.addAll(worker.contacts);
+            worker.bodies = null;
+            worker.pairs = null;
+        }
+        return contacts;
+    }
+
+    /**
+     * Gets the contacts found by the last call of findContacts.
+     *
+     * @return the contacts
+     */
+    public ContactBuffer getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Gets the executor used for checking the pairs on several threads.
+     *
+     * @return the executor, null if the pairs are checked on the calling thread
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used for checking the pairs on several threads, for example a ForkJoinPool. Null checks every
+     * pair on the calling thread.
+     *
+     * @param executor the executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the number of ranges the pairs are split into.
+     *
+     * @return the worker count
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Sets the number of ranges the pairs are split into. Usually the number of threads of the executor.
+     *
+     * @param workerCount the worker count
+     */
+    public void setWorkerCount(int workerCount) {
+        if(workerCount < 1){
+            throw new IllegalArgumentException("Worker count must be at least one");
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Gets the number of pairs needed before the checks are split between threads.
+     *
+     * @return the parallel threshold
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of pairs needed before the checks are split between threads. With few pairs handing them to
+     * other threads costs more than checking them.
+     *
+     * @param parallelThreshold the parallel threshold
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Gets the polygon collision check used for the pairs.
+     *
+     * @return the algorithm
+     */
+    public CollisionAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sets the polygon collision check used for the pairs. AUTO picks GJK for pairs with many vertices.
+     *
+     * @param algorithm the algorithm
+     */
+    public void setAlgorithm(CollisionAlgorithm algorithm) {
+        if(algorithm == null){
+            throw new IllegalArgumentException("Algorithm can't be null");
+        }
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Gets the number of vertices a pair needs in total before AUTO checks it with GJK.
+     *
+     * @return the vertex threshold
+     */
+    public int getGjkVertexThreshold() {
+        return gjkVertexThreshold;
+    }
+
+    /**
+     * Sets the number of vertices a pair needs in total before AUTO checks it with GJK.
+     *
+     * @param gjkVertexThreshold the vertex threshold
+     */
+    public void setGjkVertexThreshold(int gjkVertexThreshold) {
+        this.gjkVertexThreshold = gjkVertexThreshold;
+    }
+}
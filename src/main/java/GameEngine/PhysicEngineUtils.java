@@ -1,10 +1,5 @@
 package GameEngine;
 
-import javafx.collections.ObservableList;
-import javafx.geometry.Point2D;
-import javafx.scene.shape.Polygon;
-
-import java.sql.SQLOutput;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -14,22 +9,16 @@ import java.util.List;
 public class PhysicEngineUtils {
 
     /**
-     * Creates Point2D list from polygons vertices.
+     * Creates Vector2D list from polygons vertices.
      *
-     * @param shape the polygon of which vertices are listed
-     * @return the linked list containing polygons vertices as Point2D
+     * @param pointsXY the vertices of the polygon as x0, y0, x1, y1...
+     * @return the linked list containing polygons vertices as Vector2D
      */
-    public static LinkedList<Point2D> pointListFromPolygon(Polygon shape){
-        ObservableList<Double> pointsXY = shape.getPoints();
-        LinkedList<Point2D> vertices = new LinkedList<Point2D>();
-        double xLocation = shape.getLayoutX();
-        double yLocation = shape.getLayoutY();
-
-        for(int i = 0; i<pointsXY.size(); i+=2){
-            double x = xLocation+pointsXY.get(i);
-            double y = yLocation+pointsXY.get((i)+1);
+    public static LinkedList<Vector2D> pointListFromArray(double[] pointsXY){
+        LinkedList<Vector2D> vertices = new LinkedList<Vector2D>();
 
-            vertices.add( new Point2D(x,y));
+        for(int i = 0; i<pointsXY.length; i+=2){
+            vertices.add( new Vector2D(pointsXY[i],pointsXY[i+1]));
         }
         return vertices;
     }
@@ -37,11 +26,11 @@ public class PhysicEngineUtils {
     /**
      * Calculates polygon's area double.
      *
-     * @param polygon the polygon
+     * @param polygon the vertices of the polygon as x0, y0, x1, y1...
      * @return area as double
      */
-    public static double calculatePolygonArea(Polygon polygon){
-        LinkedList<Point2D> vertices = pointListFromPolygon(polygon);
+    public static double calculatePolygonArea(double[] polygon){
+        List<Vector2D> vertices = pointListFromArray(polygon);
         double area = 0;
 
 
@@ -71,7 +60,7 @@ public class PhysicEngineUtils {
      * @param p2 the point 2
      * @return triangle's area as double
      */
-    public static double calculateTriangleSectionArea(Point2D p1, Point2D p2){
+    public static double calculateTriangleSectionArea(Vector2D p1, Vector2D p2){
 
         return (p1.getX()*p2.getY()-p1.getY()*p2.getX())/2;
     }
@@ -81,10 +70,10 @@ public class PhysicEngineUtils {
      *
      * @param p1 the point 1
      * @param p2 the point 2
-     * @return centroid of the triangle as a Point2D
+     * @return centroid of the triangle as a Vector2D
      */
-    public static Point2D centroid(Point2D p1, Point2D p2){
-        return new Point2D((p1.getX()+p2.getX())/3, (p1.getY()+p2.getY())/3);
+    public static Vector2D centroid(Vector2D p1, Vector2D p2){
+        return new Vector2D((p1.getX()+p2.getX())/3, (p1.getY()+p2.getY())/3);
     }
 
     /**
@@ -95,7 +84,7 @@ public class PhysicEngineUtils {
      * @param p2   the point 2
      * @return moment of inertia of the triangle as a double
      */
-    public static double mmoiTriangle(double area, Point2D p1, Point2D p2){
+    public static double mmoiTriangle(double area, Vector2D p1, Vector2D p2){
 
         return (area/36.0)*(p1.dotProduct(p1)+p2.dotProduct(p2)+p1.dotProduct(p2));
     }
@@ -108,7 +97,7 @@ public class PhysicEngineUtils {
      * @param p2   the point 2
      * @return moment of inertia of the triangle as a double
      */
-    public static double mmoiTriangle2(double area, Point2D p1, Point2D p2){
+    public static double mmoiTriangle2(double area, Vector2D p1, Vector2D p2){
         double b = length(p1);
         double h = pointFromLineDistance(p2, p1);
         return (1.0/36.0)*(b*h*h*h);
@@ -118,12 +107,12 @@ public class PhysicEngineUtils {
      * Calculates the moment of inertia of a polygon
      * by breaking it in triangle sections.
      *
-     * @param polygon      the polygon
+     * @param polygon      the vertices of the polygon as x0, y0, x1, y1...
      * @param rotationAxis the rotation axis the moment of inertia is calculated on
      * @return moment of inertia as a double
      */
-    public static double polygonMmoi(Polygon polygon, Point2D rotationAxis){
-        LinkedList<Point2D> vertices = pointListFromPolygon(polygon);
+    public static double polygonMmoi(double[] polygon, Vector2D rotationAxis){
+        List<Vector2D> vertices = pointListFromArray(polygon);
         double mmoi = 0;
 
 
@@ -134,8 +123,8 @@ public class PhysicEngineUtils {
 
             double sectionMmoi = mmoiTriangle(sectionArea, vertices.get(i), vertices.get((i+1)%vertices.size()));
 
-            Point2D centroid = centroid(vertices.get(i), vertices.get((i+1)%vertices.size()));
-            Point2D distanceFromRotation = new Point2D(centroid.getX()-rotationAxis.getX(), centroid.getY()-rotationAxis.getY());
+            Vector2D centroid = centroid(vertices.get(i), vertices.get((i+1)%vertices.size()));
+            Vector2D distanceFromRotation = new Vector2D(centroid.getX()-rotationAxis.getX(), centroid.getY()-rotationAxis.getY());
 
             mmoi += sectionMmoi+ sectionArea*distanceFromRotation.dotProduct(distanceFromRotation);
 
@@ -146,13 +135,13 @@ public class PhysicEngineUtils {
     /**
      * Calculates the centroid of a polygon.
      *
-     * @param polygon the polygon
-     * @return centroid of the polygon as Point2D
+     * @param polygon the vertices of the polygon as x0, y0, x1, y1...
+     * @return centroid of the polygon as Vector2D
      */
-    public static Point2D calculateCentroid(Polygon polygon)
+    public static Vector2D calculateCentroid(double[] polygon)
     {
 
-        List<Point2D> vertices = pointListFromPolygon(polygon);
+        List<Vector2D> vertices = pointListFromArray(polygon);
         double centroidX = 0, centroidY = 0;
         double det = 0, tempDet = 0;
         int j = 0;
@@ -174,13 +163,11 @@ public class PhysicEngineUtils {
             centroidX += (vertices.get(i).getX() +  vertices.get(j).getX())*tempDet;
             centroidY += (vertices.get(j).getY() + vertices.get(i).getY())*tempDet;
         }
-        System.out.println("detrminant" + det);
         // divide by the total mass of the polygon
         centroidX /= 3*det;
         centroidY /= 3*det;
 
-        System.out.println("centroid"+ new Point2D(centroidX, centroidY));
-        return new Point2D(centroidX, centroidY);
+        return new Vector2D(centroidX, centroidY);
     }
 
 
@@ -190,7 +177,7 @@ public class PhysicEngineUtils {
      * @param vector the vector
      * @return the length
      */
-    public static double length(Point2D vector){
+    public static double length(Vector2D vector){
         return Math.sqrt(vector.getX()*vector.getX()+vector.getY()*vector.getY());
     }
 
@@ -201,7 +188,7 @@ public class PhysicEngineUtils {
      * @param line  the line as a vector
      * @return the distance
      */
-    public static double pointFromLineDistance(Point2D point, Point2D line){
+    public static double pointFromLineDistance(Vector2D point, Vector2D line){
         double a = point.getX()*line.getY()+point.getY()*(-1)*line.getX();
         double b = Math.sqrt(line.getY()*line.getY()+line.getX()*line.getX());
         if(b==0){
@@ -220,7 +207,7 @@ public class PhysicEngineUtils {
      * @param line  the base of a triangle
      * @return the area as a double
      */
-    public static double triangleArea2(Point2D point, Point2D line){
+    public static double triangleArea2(Vector2D point, Vector2D line){
         double h = pointFromLineDistance(point, line);
         double b = length(line);
         return b*h/2;
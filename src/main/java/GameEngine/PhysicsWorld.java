@@ -1,16 +1,33 @@
 package GameEngine;
 
-import javafx.geometry.Point2D;
-import javafx.scene.shape.Polygon;
-
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This class holds information of bodies interacting in the physical world and updates the forces to bodies caused by
  * non player input sources, like collisions to other objects or gravity.
  */
 public class PhysicsWorld {
+    /**
+     * Default width and height of the broadphase grid cells in JavaFX units.
+     */
+    public static final double DEFAULT_CELL_SIZE = 100;
+    /**
+     * Default speed in meters per second below which a body can fall asleep.
+     */
+    public static final double DEFAULT_LINEAR_SLEEP_TOLERANCE = 0.01;
+    /**
+     * Default angular speed in radians per second below which a body can fall asleep.
+     */
+    public static final double DEFAULT_ANGULAR_SLEEP_TOLERANCE = Math.toRadians(2);
+    /**
+     * Default time in seconds a body has to stay slow before it falls asleep.
+     */
+    public static final double DEFAULT_TIME_TO_SLEEP = 0.5;
+
     /**
      * The ratio of Javafx window size units per meters used by the physics simulation.
      */
@@ -18,12 +35,123 @@ public class PhysicsWorld {
     /**
      * The Gravity vector.
      */
-    Point2D gravity;
+    Vector2D gravity;
     /**
-     * The Bodies included in this world.
+     * The Bodies included in this world. The index of a body in the list is the same as its slot in the storage.
      */
-    LinkedList<Body> bodies;
-
+    ArrayList<Body> bodies;
+    /**
+     * Read only view of the bodies list.
+     */
+    List<Body> bodiesView;
+    /**
+     * Holds the positions, velocities and masses of the bodies in this world.
+     */
+    BodyStorage storage;
+    /**
+     * Length of the current simulation step in seconds.
+     */
+    double deltaTime;
+    /**
+     * Should the forces applied to bodies be cleared after every step.
+     */
+    boolean autoClearForces = true;
+    /**
+     * Can bodies fall asleep.
+     */
+    boolean allowSleeping = true;
+    /**
+     * Speed in meters per second below which a body can fall asleep.
+     */
+    double linearSleepTolerance = DEFAULT_LINEAR_SLEEP_TOLERANCE;
+    /**
+     * Angular speed in radians per second below which a body can fall asleep.
+     */
+    double angularSleepTolerance = DEFAULT_ANGULAR_SLEEP_TOLERANCE;
+    /**
+     * Time in seconds a body has to stay slow before it falls asleep.
+     */
+    double timeToSleep = DEFAULT_TIME_TO_SLEEP;
+    /**
+     * The broadphase used for finding bodies that are close enough to be colliding.
+     */
+    SpatialHashGrid broadphase;
+    /**
+     * Tree of the bodies' bounding boxes used for the area, point and ray queries.
+     */
+    AABBTree tree;
+    /**
+     * Reused result list of raycastClosest.
+     */
+    ArrayList<Body> rayResults = new ArrayList<Body>(1);
+    /**
+     * Reused list of the bodies found in the swept box of a bullet.
+     */
+    ArrayList<Body> sweepResults = new ArrayList<Body>();
+    /**
+     * Reused list of the bodies found near a body taken out of the world.
+     */
+    ArrayList<Body> touchResults = new ArrayList<Body>();
+    /**
+     * Reused box covering a bullet at the start and the end of a step.
+     */
+    AABB sweptBox = new AABB();
+    /**
+     * Checks the candidate pairs of the broadphase, on several threads if an executor is set.
+     */
+    Narrowphase narrowphase = new Narrowphase();
+    /**
+     * Groups the contacts of a step into islands that can be solved independently.
+     */
+    ContactIslands islands = new ContactIslands();
+    /**
+     * The contacts of the current step.
+     */
+    ContactBuffer contacts;
+    /**
+     * The contacts of the current step by body pair, with the impulses carried over from the previous step.
+     */
+    ContactCache contactCache = new ContactCache(64);
+    /**
+     * The contacts of the previous step. Swapped with contactCache at the start of every step.
+     */
+    ContactCache previousContacts = new ContactCache(64);
+    /**
+     * The index of the cache entry of each contact of the current step.
+     */
+    int[] contactEntries = new int[64];
+    /**
+     * Solves the contacts with impulses.
+     */
+    ContactSolver solver = new ContactSolver();
+    /**
+     * The pairs of bodies a sensor overlapped in the current step, by body ids.
+     */
+    ContactCache sensorOverlaps = new ContactCache(16);
+    /**
+     * The first bodies of the overlapping pairs with a sensor in the current step.
+     */
+    Body[] sensorBodiesA = new Body[16];
+    /**
+     * The second bodies of the overlapping pairs with a sensor in the current step.
+     */
+    Body[] sensorBodiesB = new Body[16];
+    /**
+     * Number of overlapping pairs with a sensor in the current step.
+     */
+    int sensorPairCount;
+    /**
+     * Released bodies waiting to be acquired again.
+     */
+    ArrayList<Body> bodyPool = new ArrayList<Body>();
+    /**
+     * The id given to the next body added to the world.
+     */
+    int nextBodyId;
+    /**
+     * Executor used for the parallel parts of the step, null to run the whole step on the calling thread.
+     */
+    ExecutorService executor;
 
     /**
      * Instantiates a new Physics world.
@@ -31,58 +159,676 @@ public class PhysicsWorld {
      * @param pixelsPerMeter  The ratio of Javafx window size units per meters used by the physics simulation.
      * @param gravity        the gravity
      */
-    public PhysicsWorld(double pixelsPerMeter, Point2D gravity) {
+    public PhysicsWorld(double pixelsPerMeter, Vector2D gravity) {
+        this(pixelsPerMeter, gravity, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Instantiates a new Physics world.
+     *
+     * @param pixelsPerMeter The ratio of Javafx window size units per meters used by the physics simulation.
+     * @param gravity        the gravity
+     * @param cellSize       the width and height of the broadphase grid cells in JavaFX units. Works best when it is
+     *                       about the size of a typical body.
+     */
+    public PhysicsWorld(double pixelsPerMeter, Vector2D gravity, double cellSize) {
         this.pixelsPerMeter = pixelsPerMeter;
         this.gravity = gravity;
-        bodies = new LinkedList<Body>();
+        bodies = new ArrayList<Body>();
+        bodiesView = Collections.unmodifiableList(bodies);
+        storage = new BodyStorage(16);
+        broadphase = new SpatialHashGrid(cellSize);
+        tree = new AABBTree(AABBTree.DEFAULT_MARGIN);
+    }
+
+    /**
+     * Adds a body to the world.
+     *
+     * @param body the body
+     */
+    public void addBody(Body body){
+        if(body.storage == storage){
+            return;
+        }
+        int slot = storage.allocate(body);
+        storage.copy(slot, body.storage, body.slot);
+        body.storage = storage;
+        body.slot = slot;
+        body.world = this;
+        register(body);
+    }
+
+    /**
+     * Creates a body from a prototype straight in the world's storage, without the storage of its own a body made
+     * with a constructor has before it is added. Meant for spawning many bodies of the same kind.
+     *
+     * @param prototype the prototype of the body
+     * @param x         the x coordinate of the origin of the shape's coordinates
+     * @param y         the y coordinate of the origin of the shape's coordinates
+     * @return the body, already in the world
+     */
+    public Body createBody(BodyPrototype prototype, double x, double y){
+        if(prototype.getPixelsPerMeter() != pixelsPerMeter){
+            throw new IllegalArgumentException("The prototype is made for " + prototype.getPixelsPerMeter()
+                    + " pixels per meter, the world has " + pixelsPerMeter);
+        }
+        Body body = new Body(x, y, this, prototype, storage);
+        register(body);
+        return body;
+    }
+
+    /**
+     * Gives a body that has a slot in the world's storage an id and puts it in the bodies list and the AABB tree.
+     *
+     * @param body the body
+     */
+    void register(Body body){
+        body.id = nextBodyId++;
+        bodies.add(body);
+        body.proxyId = tree.createProxy(body, body.updateAABB());
+    }
+
+    /**
+     * Removes a body from the world.
+     *
+     * @param body the body
+     * @return true if the body was in the world
+     */
+    public boolean removeBody(Body body){
+        if(body.storage != storage){
+            return false;
+        }
+        // the body keeps its state in a storage of its own
+        BodyStorage detached = new BodyStorage(1);
+        int slot = body.slot;
+        detached.copy(detached.allocate(body), storage, slot);
+        unregister(body);
+        body.storage = detached;
+        body.slot = 0;
+        return true;
+    }
+
+    /**
+     * Takes a body out of the bodies list, the AABB tree and the world's storage. The body is left without a slot.
+     * The bodies it was touching are woken up, since they may have been resting on it.
+     *
+     * @param body the body
+     */
+    void unregister(Body body){
+        wakeTouching(body);
+        if(body.proxyId != -1){
+            tree.destroyProxy(body.proxyId);
+            body.proxyId = -1;
+        }
+        body.id = -1;
+
+        int slot = body.slot;
+        storage.remove(slot);
+        Body last = bodies.remove(bodies.size() - 1);
+        if(last != body){
+            bodies.set(slot, last);
+        }
+    }
+
+    /**
+     * Wakes up the sleeping bodies that had a contact with a body in the last step. Bodies that can't be moved
+     * aren't woken, like in wakeTouchedBodies.
+     *
+     * @param body the body
+     */
+    void wakeTouching(Body body){
+        ArrayList<Body> touching = touchResults;
+        touching.clear();
+        tree.query(body.getAABB(), touching);
+        for(int i = 0; i < touching.size(); i++){
+            Body other = touching.get(i);
+            if(other != body && !other.isAwake() && other.getInverseMass() != 0
+                    && contactCache.contains(body.id, other.id)){
+                other.setAwake(true);
+            }
+        }
+        touching.clear();
+    }
+
+    /**
+     * Gets a body for a prototype from the world's pool of released bodies, or creates one if the pool is empty. The
+     * body is reset to the prototype as if it was new and put in the world at the given position. Together with
+     * releaseBody this lets games that spawn and drop bodies all the time reuse the same body objects.
+     *
+     * @param prototype the prototype of the body
+     * @param x         the x coordinate of the origin of the shape's coordinates
+     * @param y         the y coordinate of the origin of the shape's coordinates
+     * @return the body, already in the world
+     */
+    public Body acquireBody(BodyPrototype prototype, double x, double y){
+        if(bodyPool.isEmpty()){
+            return createBody(prototype, x, y);
+        }
+        if(prototype.getPixelsPerMeter() != pixelsPerMeter){
+            throw new IllegalArgumentException("The prototype is made for " + prototype.getPixelsPerMeter()
+                    + " pixels per meter, the world has " + pixelsPerMeter);
+        }
+        Body body = bodyPool.remove(bodyPool.size() - 1);
+        body.storage = storage;
+        body.slot = storage.allocate(body);
+        body.reset(x, y, prototype);
+        register(body);
+        return body;
+    }
+
+    /**
+     * Takes a body out of the world and puts it in the pool acquireBody takes bodies from. Unlike a removed body, a
+     * released body has no state left and must not be used until it is acquired again. Like removing, releasing wakes
+     * up the sleeping bodies that were touching the body, so nothing is left resting on a body that is gone.
+     *
+     * @param body the body
+     * @return true if the body was in the world
+     */
+    public boolean releaseBody(Body body){
+        if(body.storage != storage){
+            return false;
+        }
+        unregister(body);
+        body.storage = null;
+        body.slot = -1;
+        body.userData = null;
+        bodyPool.add(body);
+        return true;
+    }
+
+    /**
+     * Gets the number of released bodies waiting to be acquired again.
+     *
+     * @return the pooled body count
+     */
+    public int getPooledBodyCount() {
+        return bodyPool.size();
+    }
+
+    /**
+     * Empties the pool of released bodies, letting the garbage collector have them.
+     */
+    public void clearBodyPool(){
+        bodyPool.clear();
+    }
+
+    /**
+     * Refits the body's box in the AABB tree after the body has moved.
+     *
+     * @param body the body that moved
+     * @param dx   the movement on the x axis
+     * @param dy   the movement on the y axis
+     */
+    void updateProxy(Body body, double dx, double dy){
+        if(body.proxyId != -1){
+            tree.moveProxy(body.proxyId, body.updateAABB(), dx, dy);
+        }
+    }
+
+    /**
+     * Finds the bodies whose bounding boxes overlap the given area.
+     *
+     * @param area the area
+     * @return list of the bodies found
+     */
+    public ArrayList<Body> queryAABB(AABB area){
+        return queryAABB(area, new ArrayList<Body>());
+    }
+
+    /**
+     * Finds the bodies whose bounding boxes overlap the given area.
+     *
+     * @param area    the area
+     * @param results list the found bodies are added to, can be reused between queries
+     * @return the results list
+     */
+    public ArrayList<Body> queryAABB(AABB area, ArrayList<Body> results){
+        tree.query(area, results);
+        return results;
+    }
+
+    /**
+     * Finds the bodies that contain the given point.
+     *
+     * @param point the point
+     * @return list of the bodies found
+     */
+    public ArrayList<Body> queryPoint(Vector2D point){
+        return queryPoint(point, new ArrayList<Body>());
+    }
+
+    /**
+     * Finds the bodies that contain the given point.
+     *
+     * @param point   the point
+     * @param results list the found bodies are added to, can be reused between queries
+     * @return the results list
+     */
+    public ArrayList<Body> queryPoint(Vector2D point, ArrayList<Body> results){
+        tree.queryPoint(point.getX(), point.getY(), results);
+        return results;
     }
 
     /**
-     * Updates bodies by applying gravity to them and calling their move method.
+     * Finds the bodies hit by the line segment between start and end.
+     *
+     * @param start the start of the ray
+     * @param end   the end of the ray
+     * @return list of the bodies hit, in the order they are hit
+     */
+    public ArrayList<Body> raycast(Vector2D start, Vector2D end){
+        return raycast(start, end, new ArrayList<Body>());
+    }
+
+    /**
+     * Finds the bodies hit by the line segment between start and end.
+     *
+     * @param start   the start of the ray
+     * @param end     the end of the ray
+     * @param results list the bodies hit are added to in the order they are hit, can be reused between queries
+     * @return the results list
+     */
+    public ArrayList<Body> raycast(Vector2D start, Vector2D end, ArrayList<Body> results){
+        tree.raycast(start.getX(), start.getY(), end.getX(), end.getY(), false, results);
+        return results;
+    }
+
+    /**
+     * Finds the first body hit by the line segment between start and end. Useful for line of sight checks.
+     *
+     * @param start the start of the ray
+     * @param end   the end of the ray
+     * @return the first body hit or null if nothing is hit
+     */
+    public Body raycastClosest(Vector2D start, Vector2D end){
+        ArrayList<Body> results = rayResults;
+        results.clear();
+        tree.raycast(start.getX(), start.getY(), end.getX(), end.getY(), true, results);
+        Body closest = results.isEmpty() ? null : results.get(0);
+        results.clear();
+        return closest;
+    }
+
+    /**
+     * Adds gravity and the forces applied to the bodies to their velocities. Done before the contacts are solved, so
+     * the solver cancels the speed gravity gives to resting bodies before it moves them into the bodies below.
+     * Sleeping bodies are skipped.
+     */
+    void applyForces(){
+        BodyStorage s = storage;
+        double gravityX = gravity.getX() * deltaTime;
+        double gravityY = gravity.getY() * deltaTime;
+
+        for(int i = 0; i < s.count; i++){
+            if(!s.awake[i]){
+                continue;
+            }
+            double inverseMass = s.inverseMass[i];
+            if(inverseMass != 0){
+                s.velocityX[i] += gravityX + s.forceX[i] * inverseMass * deltaTime;
+                s.velocityY[i] += gravityY + s.forceY[i] * inverseMass * deltaTime;
+            }
+            s.angularVelocity[i] += s.torque[i] * s.inverseInertia[i] * deltaTime;
+        }
+    }
+
+    /**
+     * Updates bodies by moving them according to their velocities. Goes through the arrays of the body storage instead
+     * of calling the methods of each body. The positions before the step are saved for interpolation. Sleeping bodies
+     * aren't moved.
      */
     public void updateBodies(){
-        getBodies().forEach(body -> {
-            body.applyForce(gravity.multiply(body.getMass()),new Point2D(0,0));
-            body.updatePosition();
-        });
+        BodyStorage s = storage;
+        double scale = deltaTime * pixelsPerMeter;
+
+        for(int i = 0; i < s.count; i++){
+            s.previousX[i] = s.positionX[i];
+            s.previousY[i] = s.positionY[i];
+            s.previousAngle[i] = s.angle[i];
+            if(!s.awake[i]){
+                continue;
+            }
+            s.angle[i] += s.angularVelocity[i] * deltaTime;
+            s.positionX[i] += s.velocityX[i] * scale;
+            s.positionY[i] += s.velocityY[i] * scale;
+        }
+
+        for(int i = 0; i < s.count; i++){
+            // bodies that didn't move or turn since their shapes were transformed keep their tree proxies as they
+            // are, the solver may have moved the others too
+            Body body = s.bodies[i];
+            if(s.positionX[i] != body.transformX || s.positionY[i] != body.transformY
+                    || s.angle[i] != body.transformAngle){
+                updateProxy(body, s.velocityX[i] * scale, s.velocityY[i] * scale);
+            }
+        }
     }
 
 
 
-    public void solveCollision(Body body1, Body body2){
+    /**
+     * Solves the contacts of one island. Called for different islands at the same time, so only the bodies of the
+     * island are changed.
+     *
+     * @param islands the islands of the current step
+     * @param island  the island to solve
+     */
+    void solveIsland(ContactIslands islands, int island){
+        solver.solveIsland(islands, island, contacts);
+    }
 
-        body1.setLinearVelocity(calculateVelocitityAfterCollision(body1, body2));
-        body2.setLinearVelocity(calculateVelocitityAfterCollision(body2, body1).multiply(-1));
+    /**
+     * Records the contacts of the step in the contact cache. Contacts that existed in the previous step keep the
+     * impulses they have accumulated.
+     *
+     * @param contacts the contacts of the step
+     */
+    void updateContactCache(ContactBuffer contacts){
+        ContactCache previous = contactCache;
+        contactCache = previousContacts;
+        previousContacts = previous;
+        contactCache.clear();
 
+        int contactCount = contacts.getCount();
+        if(contactEntries.length < contactCount){
+            contactEntries = new int[Math.max(contactCount, contactEntries.length * 2)];
+        }
+        // inserting must not grow the cache, that would move the entries already in contactEntries
+        contactCache.ensureCapacity(contactCount);
+        for(int c = 0; c < contactCount; c++){
+            long pair = contacts.getPair(c);
+            Body body1 = storage.bodies[SpatialHashGrid.firstOf(pair)];
+            Body body2 = storage.bodies[SpatialHashGrid.secondOf(pair)];
+            long key = ContactCache.key(body1.id, body2.id);
+            int entry = contactCache.insert(key);
+            // the normal of the cache points from the body with the smaller id
+            double sign = body1.id < body2.id ? 1 : -1;
+            contactCache.overlap[entry] = contacts.overlap[c];
+            contactCache.normalX[entry] = contacts.axisX[c] * sign;
+            contactCache.normalY[entry] = contacts.axisY[c] * sign;
+            int pointCount = contacts.pointCount[c];
+            contactCache.pointCount[entry] = pointCount;
+            System.arraycopy(contacts.pointX, c * 2, contactCache.pointX, entry * 2, 2);
+            System.arraycopy(contacts.pointY, c * 2, contactCache.pointY, entry * 2, 2);
+            System.arraycopy(contacts.depth, c * 2, contactCache.depth, entry * 2, 2);
+            // each point takes the impulses of the nearest old point, the order of the points flips when the
+            // reference face moves to the other body
+            int old = previous.find(key);
+            if(old != -1){
+                for(int k = 0; k < pointCount; k++){
+                    int point = entry * 2 + k;
+                    int nearest = -1;
+                    double nearestDistance = Double.POSITIVE_INFINITY;
+                    for(int j = old * 2; j < old * 2 + previous.pointCount[old]; j++){
+                        double dx = previous.pointX[j] - contactCache.pointX[point];
+                        double dy = previous.pointY[j] - contactCache.pointY[point];
+                        if(dx * dx + dy * dy < nearestDistance){
+                            nearestDistance = dx * dx + dy * dy;
+                            nearest = j;
+                        }
+                    }
+                    if(nearest != -1){
+                        contactCache.normalImpulse[point] = previous.normalImpulse[nearest];
+                        contactCache.tangentImpulse[point] = previous.tangentImpulse[nearest];
+                    }
+                }
+            }
+            contactEntries[c] = entry;
+        }
+    }
 
+    /**
+     * Checks if two bodies of this world touched each other in the last step. A sensor touches the bodies that
+     * overlapped it.
+     *
+     * @param body1 the body 1
+     * @param body2 the body 2
+     * @return true if the bodies are touching
+     */
+    public boolean isTouching(Body body1, Body body2){
+        if(body1.storage != storage || body2.storage != storage){
+            return false;
+        }
+        return contactCache.contains(body1.id, body2.id) || sensorOverlaps.contains(body1.id, body2.id);
     }
 
-    public Point2D calculateVelocitityAfterCollision(Body body1, Body body2){
-        double a = (body2.getMass()*2)/(body2.getMass()+body1.getMass());
-        double b = (body1.getLinearVelocity().subtract(body2.getLinearVelocity()).dotProduct(body1.getCentroid().subtract(body2.getCentroid())))/
-                (Math.pow(body1.getCentroid().subtract(body2.getCentroid()).magnitude(),2));
-        Point2D c = body1.getCentroid().subtract(body2.getCentroid());
-        Point2D newVelocity = c.multiply(a).multiply(b);
-        return newVelocity;
+    /**
+     * Checks collisions between bodies and solves them, then updates the bodies. Candidate pairs come from
+     * the broadphase in the order of the bodies list, so only bodies near each other are tested with the polygon
+     * collision check. The collision checks only read the shapes the broadphase transformed to the world, so they can
+     * run on the threads of the executor. The contacts are then grouped into islands of touching bodies and the
+     * islands are solved on the threads of the executor too. Pairs with a sensor are only tested for overlap in a
+     * pass of their own. Bullets are swept after moving, so they don't pass through thin bodies.
+     *
+     * @param deltaTime length of the simulation step in seconds
+     */
+    public void updateWorld(double deltaTime){
+        this.deltaTime = deltaTime;
+
+        int pairCount = broadphase.findPairs(getBodies());
+        contacts = narrowphase.findContacts(storage.bodies, broadphase.getPairs(), pairCount);
+        findSensorOverlaps();
+        wakeTouchedBodies(contacts);
+        updateContactCache(contacts);
+        applyForces();
+        solver.begin(storage, contactCache, contactEntries, contacts.getCount(), pixelsPerMeter);
+        islands.build(storage, contacts);
+        islands.solve(this, executor, getWorkerCount());
 
+        updateBodies();
+        sweepBullets();
+        if(allowSleeping){
+            updateSleep();
+        }
+        if(autoClearForces){
+            clearForces();
+        }
     }
 
+    /**
+     * Tests the candidate pairs with a sensor from the broadphase. Sensors don't push anything, so only whether the
+     * shapes overlap is needed: the pair is rejected by the bounding circles first and then by the first separating
+     * edge, without the overlap depth, the normal or the contact points the narrowphase works out. The overlaps are
+     * recorded for isTouching and getSensorOverlaps and never reach the solver.
+     */
+    void findSensorOverlaps(){
+        sensorOverlaps.clear();
+        Arrays.fill(sensorBodiesA, 0, sensorPairCount, null);
+        Arrays.fill(sensorBodiesB, 0, sensorPairCount, null);
+        sensorPairCount = 0;
+        long[] pairs = broadphase.getSensorPairs();
+        int count = broadphase.getSensorPairCount();
+        Body[] slots = storage.bodies;
+        for(int p = 0; p < count; p++){
+            Body a = slots[SpatialHashGrid.firstOf(pairs[p])];
+            Body b = slots[SpatialHashGrid.secondOf(pairs[p])];
+            if(!CollisionChecker.circleCircleCol(a.transformX, a.transformY, a.shape.boundingRadius,
+                    b.transformX, b.transformY, b.shape.boundingRadius)){
+                continue;
+            }
+            if(!CollisionChecker.overlaps(a.worldVertices, a.worldNormals, b.worldVertices, b.worldNormals)){
+                continue;
+            }
+            sensorOverlaps.insert(ContactCache.key(a.id, b.id));
+            if(sensorPairCount == sensorBodiesA.length){
+                sensorBodiesA = Arrays.copyOf(sensorBodiesA, sensorPairCount * 2);
+                sensorBodiesB = Arrays.copyOf(sensorBodiesB, sensorPairCount * 2);
+            }
+            sensorBodiesA[sensorPairCount] = a;
+            sensorBodiesB[sensorPairCount++] = b;
+        }
+    }
 
-    public void updateWorld(){
-        for(int i=0; i<getBodies().size(); i++){
-            LinkedList<Body> collisionsNow = new LinkedList<>();
-            for(int n = i+1; n<getBodies().size(); n++)
-            if(CollisionChecker.checkCollision((Polygon)getBodies().get(i).getShapes().get(0),(Polygon) getBodies().get(n).getShapes().get(0))!=null){
-                if(!getBodies().get(i).getInCollisionWith().contains(getBodies().get(n))){
-                    solveCollision(getBodies().get(i), getBodies().get(n));
+    /**
+     * Finds the bodies overlapping a sensor in the last step, or the sensors overlapping a body that isn't a sensor.
+     *
+     * @param body    the body
+     * @param results list the found bodies are added to, can be reused between calls
+     * @return the results list
+     */
+    public ArrayList<Body> getSensorOverlaps(Body body, ArrayList<Body> results){
+        for(int p = 0; p < sensorPairCount; p++){
+            if(sensorBodiesA[p] == body){
+                results.add(sensorBodiesB[p]);
+            }else if(sensorBodiesB[p] == body){
+                results.add(sensorBodiesA[p]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Moves bullets that passed into or through other bodies during the step back to where they first touched. The
+     * box covering a bullet at the start and at the end of the step is looked up from the AABB tree, and the time of
+     * impact against each body found is calculated with a swept separating axis test. The bullet is left a slop deep
+     * in the first body it hits, so the next step finds the contact and the solver stops it. The rest of the step is
+     * dropped for that bullet only, the other bodies aren't stepped again.
+     */
+    void sweepBullets(){
+        BodyStorage s = storage;
+        for(int i = 0; i < s.count; i++){
+            Body body = s.bodies[i];
+            if(!body.bullet || body.sensor || !s.awake[i]){
+                continue;
+            }
+            double dx = s.positionX[i] - s.previousX[i];
+            double dy = s.positionY[i] - s.previousY[i];
+            AABB box = body.getAABB();
+            // a body moving less than half of its size can't pass through anything the discrete check misses
+            double size = Math.min(box.maxX - box.minX, box.maxY - box.minY);
+            if((dx * dx + dy * dy) * 4 < size * size){
+                continue;
+            }
+
+            sweptBox.set(Math.min(box.minX, box.minX - dx), Math.min(box.minY, box.minY - dy),
+                    Math.max(box.maxX, box.maxX - dx), Math.max(box.maxY, box.maxY - dy));
+            ArrayList<Body> candidates = sweepResults;
+            candidates.clear();
+            tree.query(sweptBox, candidates);
+            double impact = Double.POSITIVE_INFINITY;
+            double impactDistance = 0;
+            for(int c = 0; c < candidates.size(); c++){
+                Body other = candidates.get(c);
+                if(other == body || other.bullet || other.sensor || !body.shouldCollide(other)){
+                    continue;
+                }
+                int o = other.slot;
+                double rx = dx - (s.positionX[o] - s.previousX[o]);
+                double ry = dy - (s.positionY[o] - s.previousY[o]);
+                double t = CollisionChecker.timeOfImpact(body.getWorldVertices(), body.worldNormals,
+                        other.getWorldVertices(), other.worldNormals, rx, ry);
+                if(t >= 0 && t < impact){
+                    impact = t;
+                    impactDistance = Math.sqrt(rx * rx + ry * ry);
                 }
-                collisionsNow.add(getBodies().get(n));
+            }
+            candidates.clear();
+            if(impact == Double.POSITIVE_INFINITY){
+                continue;
+            }
+
+            double t = Math.min(1, impact + solver.getSlop() / impactDistance);
+            s.positionX[i] = s.previousX[i] + dx * t;
+            s.positionY[i] = s.previousY[i] + dy * t;
+            s.angle[i] = s.previousAngle[i] + (s.angle[i] - s.previousAngle[i]) * t;
+            double scale = deltaTime * pixelsPerMeter;
+            updateProxy(body, s.velocityX[i] * scale, s.velocityY[i] * scale);
+        }
+    }
 
+    /**
+     * Wakes up the sleeping bodies touched by awake bodies, so that a body hit by another falls or is pushed. Bodies
+     * that can't be moved aren't woken, so a floor doesn't wake up everything resting on it.
+     *
+     * @param contacts the contacts of the step
+     */
+    void wakeTouchedBodies(ContactBuffer contacts){
+        BodyStorage s = storage;
+        for(int c = 0; c < contacts.getCount(); c++){
+            int a = SpatialHashGrid.firstOf(contacts.getPair(c));
+            int b = SpatialHashGrid.secondOf(contacts.getPair(c));
+            if(s.awake[a] && !s.awake[b] && s.inverseMass[b] != 0){
+                s.bodies[b].setAwake(true);
+            }else if(s.awake[b] && !s.awake[a] && s.inverseMass[a] != 0){
+                s.bodies[a].setAwake(true);
             }
-            getBodies().get(i).setInCollisionWith(collisionsNow);
         }
+    }
 
-        updateBodies();
+    /**
+     * Counts how long the awake bodies have been slower than the sleep tolerances and puts bodies to sleep when they
+     * have been slow long enough. Bodies touching each other are put to sleep together, when every body of their
+     * island has been slow long enough, so a pile doesn't fall asleep while part of it still moves.
+     */
+    void updateSleep(){
+        BodyStorage s = storage;
+        double linearTolerance = linearSleepTolerance * linearSleepTolerance;
+        double angularTolerance = angularSleepTolerance * angularSleepTolerance;
+        for(int i = 0; i < s.count; i++){
+            if(!s.awake[i]){
+                continue;
+            }
+            double speed = s.velocityX[i] * s.velocityX[i] + s.velocityY[i] * s.velocityY[i];
+            double angularSpeed = s.angularVelocity[i] * s.angularVelocity[i];
+            if(speed > linearTolerance || angularSpeed > angularTolerance){
+                s.sleepTime[i] = 0;
+            }else{
+                s.sleepTime[i] += deltaTime;
+            }
+        }
+
+        for(int island = 0; island < islands.getIslandCount(); island++){
+            int bodyCount = islands.getBodyCount(island);
+            double minSleepTime = Double.POSITIVE_INFINITY;
+            for(int i = 0; i < bodyCount; i++){
+                minSleepTime = Math.min(minSleepTime, s.sleepTime[islands.getBody(island, i)]);
+            }
+            if(minSleepTime >= timeToSleep){
+                for(int i = 0; i < bodyCount; i++){
+                    s.bodies[islands.getBody(island, i)].setAwake(false);
+                }
+            }
+        }
+        for(int i = 0; i < s.count; i++){
+            if(s.awake[i] && s.sleepTime[i] >= timeToSleep && islands.getIsland(i) == -1){
+                s.bodies[i].setAwake(false);
+            }
+        }
+    }
+
+    /**
+     * Clears the forces applied to the bodies.
+     */
+    public void clearForces(){
+        storage.clearForces();
+    }
+
+    /**
+     * Is auto clear forces on. When on, forces applied to bodies only affect the next step.
+     *
+     * @return the boolean
+     */
+    public boolean isAutoClearForces() {
+        return autoClearForces;
+    }
+
+    /**
+     * Sets auto clear forces. When it's off the forces stay until clearForces is called, which makes a force act
+     * for all steps run during one frame.
+     *
+     * @param autoClearForces should forces be cleared after each step
+     */
+    public void setAutoClearForces(boolean autoClearForces) {
+        this.autoClearForces = autoClearForces;
+    }
+
+    /**
+     * Gets the length of the current simulation step in seconds.
+     *
+     * @return the delta time
+     */
+    public double getDeltaTime() {
+        return deltaTime;
     }
 
     /**
@@ -109,7 +855,7 @@ public class PhysicsWorld {
      *
      * @return the gravity
      */
-    public Point2D getGravity() {
+    public Vector2D getGravity() {
         return gravity;
     }
 
@@ -118,25 +864,217 @@ public class PhysicsWorld {
      *
      * @param gravity the gravity
      */
-    public void setGravity(Point2D gravity) {
+    public void setGravity(Vector2D gravity) {
         this.gravity = gravity;
     }
 
     /**
-     * Gets bodies.
+     * Gets bodies. The list can't be modified, use addBody and removeBody instead.
      *
      * @return the bodies
      */
-    public LinkedList<Body> getBodies() {
-        return bodies;
+    public List<Body> getBodies() {
+        return bodiesView;
     }
 
     /**
-     * Sets bodies.
+     * Replaces the bodies of the world with the given bodies.
      *
      * @param bodies the bodies
      */
-    public void setBodies(LinkedList<Body> bodies) {
-        this.bodies = bodies;
+    public void setBodies(List<Body> bodies) {
+        while(!this.bodies.isEmpty()){
+            removeBody(this.bodies.get(this.bodies.size() - 1));
+        }
+        bodies.forEach(this::addBody);
+    }
+
+    /**
+     * Gets the storage holding the state of the bodies in this world.
+     *
+     * @return the body storage
+     */
+    public BodyStorage getBodyStorage() {
+        return storage;
+    }
+
+    /**
+     * Can bodies fall asleep.
+     *
+     * @return true if sleeping is allowed
+     */
+    public boolean isAllowSleeping() {
+        return allowSleeping;
+    }
+
+    /**
+     * Sets can bodies fall asleep. Turning sleeping off wakes up every body.
+     *
+     * @param allowSleeping true to allow sleeping
+     */
+    public void setAllowSleeping(boolean allowSleeping) {
+        this.allowSleeping = allowSleeping;
+        if(!allowSleeping){
+            for(Body body : bodies){
+                body.setAwake(true);
+            }
+        }
+    }
+
+    /**
+     * Gets the speed in meters per second below which a body can fall asleep.
+     *
+     * @return the linear sleep tolerance
+     */
+    public double getLinearSleepTolerance() {
+        return linearSleepTolerance;
+    }
+
+    /**
+     * Sets the speed in meters per second below which a body can fall asleep.
+     *
+     * @param linearSleepTolerance the linear sleep tolerance
+     */
+    public void setLinearSleepTolerance(double linearSleepTolerance) {
+        this.linearSleepTolerance = linearSleepTolerance;
+    }
+
+    /**
+     * Gets the angular speed in radians per second below which a body can fall asleep.
+     *
+     * @return the angular sleep tolerance
+     */
+    public double getAngularSleepTolerance() {
+        return angularSleepTolerance;
+    }
+
+    /**
+     * Sets the angular speed in radians per second below which a body can fall asleep.
+     *
+     * @param angularSleepTolerance the angular sleep tolerance
+     */
+    public void setAngularSleepTolerance(double angularSleepTolerance) {
+        this.angularSleepTolerance = angularSleepTolerance;
+    }
+
+    /**
+     * Gets the time in seconds a body has to stay slow before it falls asleep.
+     *
+     * @return the time to sleep
+     */
+    public double getTimeToSleep() {
+        return timeToSleep;
+    }
+
+    /**
+     * Sets the time in seconds a body has to stay slow before it falls asleep.
+     *
+     * @param timeToSleep the time to sleep
+     */
+    public void setTimeToSleep(double timeToSleep) {
+        this.timeToSleep = timeToSleep;
+    }
+
+    /**
+     * Gets the narrowphase, for example for tuning when its checks are split between threads.
+     *
+     * @return the narrowphase
+     */
+    public Narrowphase getNarrowphase() {
+        return narrowphase;
+    }
+
+    /**
+     * Gets the executor used for the parallel parts of the simulation step.
+     *
+     * @return the executor, null if the whole step runs on the calling thread
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used for the parallel parts of the simulation step, for example ForkJoinPool.commonPool().
+     * Null runs the whole step on the calling thread. The results are the same with and without an executor.
+     *
+     * @param executor the executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        narrowphase.setExecutor(executor);
+    }
+
+    /**
+     * Gets the number of parts the parallel work of a step is divided into.
+     *
+     * @return the worker count
+     */
+    public int getWorkerCount() {
+        return narrowphase.getWorkerCount();
+    }
+
+    /**
+     * Sets the number of parts the parallel work of a step is divided into. Usually the number of threads of the
+     * executor.
+     *
+     * @param workerCount the worker count
+     */
+    public void setWorkerCount(int workerCount) {
+        narrowphase.setWorkerCount(workerCount);
+    }
+
+    /**
+     * Gets the polygon collision check used for the pairs of bodies.
+     *
+     * @return the collision algorithm
+     */
+    public CollisionAlgorithm getCollisionAlgorithm() {
+        return narrowphase.getAlgorithm();
+    }
+
+    /**
+     * Sets the polygon collision check used for the pairs of bodies. SAT suits simple shapes, GJK shapes with many
+     * vertices such as hulls of detailed images, and AUTO chooses by the vertex count of each pair.
+     *
+     * @param collisionAlgorithm the collision algorithm
+     */
+    public void setCollisionAlgorithm(CollisionAlgorithm collisionAlgorithm) {
+        narrowphase.setAlgorithm(collisionAlgorithm);
+    }
+
+    /**
+     * Gets the contact solver, for example for setting its iteration counts.
+     *
+     * @return the contact solver
+     */
+    public ContactSolver getContactSolver() {
+        return solver;
+    }
+
+    /**
+     * Gets the islands of touching bodies found in the last step.
+     *
+     * @return the islands
+     */
+    public ContactIslands getIslands() {
+        return islands;
+    }
+
+    /**
+     * Gets the width and height of the broadphase grid cells.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return broadphase.getCellSize();
+    }
+
+    /**
+     * Sets the width and height of the broadphase grid cells.
+     *
+     * @param cellSize the cell size
+     */
+    public void setCellSize(double cellSize) {
+        broadphase.setCellSize(cellSize);
     }
 }
@@ -0,0 +1,377 @@
+package GameEngine;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of the collision shapes built from images. Building a hull scans every pixel of the image, so
+ * bodies made from the same image at the same height share one ConvexShape instead of each building its own. The
+ * shape holds the hull around its centroid together with the area and moment of inertia, which is everything a body
+ * needs from the image.
+ *
+ * Shapes are keyed by the path of the image file or by a hash of the pixels of an image. The entry of a file
+ * remembers the size and modification time of the file, and a request seeing them changed builds the shape again and
+ * replaces the entry, so an edited file gets a new shape. Concurrent requests for the same key build the shape once.
+ * With a cache directory set the shapes are also written to disk, so the next launch reads the hulls instead of
+ * scanning the images again.
+ */
+public class ShapeCache {
+
+    /**
+     * Version of the file format of the disk cache. Files of other versions are ignored.
+     */
+    static final int FILE_VERSION = 1;
+
+    /**
+     * The shapes by key.
+     */
+    static final ConcurrentHashMap<String, Entry> shapes = new ConcurrentHashMap<String, Entry>();
+    /**
+     * Directory of the disk cache, null if shapes are only kept in memory.
+     */
+    static volatile File directory;
+
+    /**
+     * Gets the shape of an image file scaled to the given height, reading and scanning the image only when the shape
+     * isn't cached.
+     *
+     * @param filePath the path of the image file
+     * @param height   the height the image is scaled to
+     * @return the shape
+     * @throws IOException if the image has to be read and can't be
+     */
+    public static ConvexShape getShape(String filePath, double height) throws IOException{
+        return getShape(filePath, null, height);
+    }
+
+    /**
+     * Gets the shape of an image file scaled to the given height. The image is used if the shape isn't cached, so a
+     * caller that has already read the image doesn't read it again.
+     *
+     * @param filePath the path of the image file
+     * @param img      the image read from the file, null to read it when needed
+     * @param height   the height the image is scaled to
+     * @return the shape
+     * @throws IOException if the image has to be read and can't be
+     */
+    public static ConvexShape getShape(final String filePath, final BufferedImage img, final double height)
+            throws IOException{
+        File file = new File(filePath);
+        String path = file.getAbsolutePath();
+        String stamp = file.length() + ":" + file.lastModified();
+        final String diskKey = "file:" + path + ":" + stamp + ":" + Double.doubleToLongBits(height);
+        return load("file:" + path + ":" + Double.doubleToLongBits(height), stamp, diskKey, () -> {
+            BufferedImage image = img != null ? img : ImageIO.read(new File(filePath));
+            if(image == null){
+                throw new IOException("Not an image: " + filePath);
+            }
+            return build(diskKey, image, height);
+        });
+    }
+
+    /**
+     * Gets the shape of an image scaled to the given height. The image is keyed by a hash of its pixels, so images
+     * that weren't read from a file or are the same in several files share a shape too.
+     *
+     * @param img    the image
+     * @param height the height the image is scaled to
+     * @return the shape
+     */
+    public static ConvexShape getShape(final BufferedImage img, final double height){
+        int width = img.getWidth();
+        int[] row = new int[width];
+        MessageDigest digest = digest();
+        ByteBuffer bytes = ByteBuffer.allocate(width * 4);
+        for(int y = 0; y < img.getHeight(); y++){
+            img.getRGB(0, y, width, 1, row, 0, width);
+            bytes.clear();
+            bytes.asIntBuffer().put(row);
+            digest.update(bytes.array(), 0, width * 4);
+        }
+        final String key = "pixels:" + width + "x" + img.getHeight() + ":" + hex(digest.digest()) + ":"
+                + Double.doubleToLongBits(height);
+        try{
+            return load(key, "", key, () -> build(key, img, height));
+        }catch(IOException e){
+            // building from pixels doesn't read anything
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets a cached shape or builds it. The thread that puts the entry in the map builds the shape outside of it, so
+     * builds of different shapes run in parallel while other threads asking for the same shape wait for the one
+     * build. An entry whose stamp differs from the given one is replaced. A failed build removes its entry, so the
+     * next request tries again.
+     *
+     * @param key     the key of the shape in memory
+     * @param stamp   the version of the source of the shape
+     * @param diskKey the key of the shape in the disk cache
+     * @param builder builds the shape if it isn't on disk either
+     * @return the shape
+     * @throws IOException if the shape can't be built
+     */
+    static ConvexShape load(String key, String stamp, String diskKey, ShapeBuilder builder) throws IOException{
+        Entry entry = shapes.get(key);
+        while(entry == null || !entry.stamp.equals(stamp)){
+            Entry created = new Entry(stamp);
+            boolean added = entry == null ? shapes.putIfAbsent(key, created) == null
+                    : shapes.replace(key, entry, created);
+            if(added){
+                try{
+                    ConvexShape shape = readFromDisk(diskKey);
+                    if(shape == null){
+                        shape = builder.build();
+                    }
+                    created.shape.complete(shape);
+                    return shape;
+                }catch(Throwable e){
+                    shapes.remove(key, created);
+                    created.shape.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            entry = shapes.get(key);
+        }
+        try{
+            return entry.shape.join();
+        }catch(CompletionException e){
+            if(e.getCause() instanceof IOException){
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the shape of an image and writes it to the disk cache.
+     *
+     * @param key    the key of the shape
+     * @param img    the image
+     * @param height the height the image is scaled to
+     * @return the shape
+     */
+    static ConvexShape build(String key, BufferedImage img, double height){
+        ConvexShape shape = new ConvexShape(ShapeCreator.hullShapeFromImg(img, height / img.getHeight()));
+        writeToDisk(key, shape);
+        return shape;
+    }
+
+    /**
+     * Reads a shape from the disk cache.
+     *
+     * @param key the key of the shape
+     * @return the shape, null if there is no disk cache or the shape isn't in it
+     */
+    static ConvexShape readFromDisk(String key){
+        File file = fileOf(key);
+        if(file == null || !file.isFile()){
+            return null;
+        }
+        DataInputStream in = null;
+        try{
+            in = new DataInputStream(new FileInputStream(file));
+            if(in.readInt() != FILE_VERSION || !in.readUTF().equals(key)){
+                return null;
+            }
+            double centroidX = in.readDouble();
+            double centroidY = in.readDouble();
+            double[] vertices = new double[in.readInt() * 2];
+            for(int i = 0; i < vertices.length; i += 2){
+                vertices[i] = in.readDouble() + centroidX;
+                vertices[i + 1] = in.readDouble() + centroidY;
+            }
+            return new ConvexShape(vertices);
+        }catch(IOException | IllegalArgumentException e){
+            // a broken file is only a miss, the shape is built again and the file replaced
+            return null;
+        }finally{
+            close(in);
+        }
+    }
+
+    /**
+     * Writes a shape to the disk cache if there is one. The hull is stored around its centroid, with the centroid,
+     * so reading it back gives the same shape.
+     *
+     * @param key   the key of the shape
+     * @param shape the shape
+     */
+    static void writeToDisk(String key, ConvexShape shape){
+        File file = fileOf(key);
+        if(file == null){
+            return;
+        }
+        File temporary = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        DataOutputStream out = null;
+        try{
+            file.getParentFile().mkdirs();
+            out = new DataOutputStream(new FileOutputStream(temporary));
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(key);
+            out.writeDouble(shape.getCentroidX());
+            out.writeDouble(shape.getCentroidY());
+            double[] vertices = shape.getVertices();
+            out.writeInt(vertices.length / 2);
+            for(double v : vertices){
+                out.writeDouble(v);
+            }
+            out.close();
+            out = null;
+            // the file appears complete or not at all for other processes reading the cache
+            if(!temporary.renameTo(file)){
+                file.delete();
+                temporary.renameTo(file);
+            }
+        }catch(IOException e){
+            // the disk cache only saves time, the shape is still cached in memory
+        }finally{
+            close(out);
+            temporary.delete();
+        }
+    }
+
+    /**
+     * Returns the file of a key in the disk cache.
+     *
+     * @param key the key
+     * @return the file, null if there is no disk cache
+     */
+    static File fileOf(String key){
+        File dir = directory;
+        if(dir == null){
+            return null;
+        }
+        return new File(dir, hex(digest().digest(key.getBytes(StandardCharsets.UTF_8))) + ".hull");
+    }
+
+    /**
+     * Closes a stream, ignoring errors.
+     *
+     * @param stream the stream, can be null
+     */
+    static void close(Closeable stream){
+        if(stream != null){
+            try{
+                stream.close();
+            }catch(IOException e){
+                // nothing to do
+            }
+        }
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return the digest
+     */
+    static MessageDigest digest(){
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        }catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is missing", e);
+        }
+    }
+
+    /**
+     * Formats bytes as hexadecimal digits.
+     *
+     * @param bytes the bytes
+     * @return the digits
+     */
+    static String hex(byte[] bytes){
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes){
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Removes every shape from the memory cache. The disk cache is kept.
+     */
+    public static void clear(){
+        shapes.clear();
+    }
+
+    /**
+     * Gets the number of shapes in the memory cache.
+     *
+     * @return the size
+     */
+    public static int size(){
+        return shapes.size();
+    }
+
+    /**
+     * Gets the directory of the disk cache.
+     *
+     * @return the directory, null if shapes are only kept in memory
+     */
+    public static File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the directory of the disk cache, where the shapes are written when built and read from before building.
+     * Null keeps shapes only in memory.
+     *
+     * @param directory the directory
+     */
+    public static void setDirectory(File directory) {
+        ShapeCache.directory = directory;
+    }
+
+    /**
+     * Builds a shape that isn't cached.
+     */
+    interface ShapeBuilder {
+
+        /**
+         * Builds the shape.
+         *
+         * @return the shape
+         * @throws IOException if the image can't be read
+         */
+        ConvexShape build() throws IOException;
+    }
+
+    /**
+     * A shape in the memory cache, complete or still being built.
+     */
+    static class Entry {
+
+        /**
+         * The version of the source the shape is built from.
+         */
+        final String stamp;
+        /**
+         * The shape, completed by the thread building it.
+         */
+        final CompletableFuture<ConvexShape> shape = new CompletableFuture<ConvexShape>();
+
+        /**
+         * Creates an entry for a shape about to be built.
+         *
+         * @param stamp the version of the source
+         */
+        Entry(String stamp){
+            this.stamp = stamp;
+        }
+    }
+}
@@ -1,24 +1,34 @@
 package GameEngine;
 
 
-import javafx.geometry.Point2D;
-import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Shape;
-
-
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.Raster;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 /**
- * Class creates a convex hull to wrap an image. Class uses GrahamScanner class to do that.
+ * Class creates a convex hull to wrap an image. Class uses HullBuilder class to do that, GrahamScanner gives the same
+ * hull from a list of edge pixels.
  * Hull is created so that it is the smallest possible convex polygon covering all non transparent pixels in an
  * image.
  */
 public  class ShapeCreator {
 
+    /**
+     * Default largest distance in image pixels a hull vertex may be from the hull left after removing it.
+     */
+    public static final double DEFAULT_MAX_ERROR = 0.5;
+    /**
+     * Fewest rows a strip of an image is given when the scan is split between threads.
+     */
+    public static final int MIN_STRIP_ROWS = 64;
 
     /**
      * Maps see through pixels and returns an array boolean [ ] [ ] size of the image. Where true represents solid
@@ -51,11 +61,11 @@ public  class ShapeCreator {
      *
      *
      * @param solidPixels the solid pixels
-     * @return a linked list of Point2D indicating the edge pixesl of a non transparent parts of the image.
+     * @return a linked list of Vector2D indicating the edge pixesl of a non transparent parts of the image.
      */
-    public static LinkedList<Point2D> findEdgePixels(boolean[][] solidPixels){
+    public static LinkedList<Vector2D> findEdgePixels(boolean[][] solidPixels){
 
-        LinkedList<Point2D> edgePixels = new LinkedList<Point2D>();
+        LinkedList<Vector2D> edgePixels = new LinkedList<Vector2D>();
         for ( int x = 0; x < solidPixels.length; x++ ) {
             for (int y = 0; y < solidPixels[x].length; y++) {
                 if (solidPixels[x][y]) {
@@ -74,7 +84,7 @@ public  class ShapeCreator {
                         }
                     }
                     if (solidFound && translucentFound) {
-                        edgePixels.add(new Point2D(x, y));
+                        edgePixels.add(new Vector2D(x, y));
                     }
 
                 }
@@ -85,30 +95,434 @@ public  class ShapeCreator {
     }
 
     /**
-     * Creates a convex hull shape from image.
+     * Packs the solid pixels of an image into a bitmask. Each row takes (width + 63) / 64 longs and pixel x of a row
+     * is bit x % 64 of word x / 64, set when the pixel isn't fully transparent. Rows are read in bulk, straight from
+     * the raster for the int and byte ARGB layouts ImageIO gives and through getRGB for the others.
+     *
+     * @param img the image
+     * @return the bitmask, row after row
+     */
+    public static long[] maskSolidPixels(BufferedImage img){
+        long[] mask = new long[wordsPerRow(img.getWidth()) * img.getHeight()];
+        maskSolidRows(img, mask, 0, img.getHeight());
+        return mask;
+    }
+
+    /**
+     * Packs the solid pixels of a range of rows into a bitmask.
+     *
+     * @param img   the image
+     * @param mask  the bitmask of the whole image
+     * @param start the first row
+     * @param end   the end of the rows, exclusive
+     */
+    static void maskSolidRows(BufferedImage img, long[] mask, int start, int end){
+        int width = img.getWidth();
+        int words = wordsPerRow(width);
+        Raster raster = img.getRaster();
+        int type = img.getType();
+        int[] ints = null;
+        byte[] bytes = null;
+        for(int y = start; y < end; y++){
+            int offset = y * words;
+            if(type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE){
+                ints = (int[]) raster.getDataElements(0, y, width, 1, ints);
+                for(int x = 0; x < width; x++){
+                    if((ints[x] >>> 24) != 0){
+                        mask[offset + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }else if(type == BufferedImage.TYPE_4BYTE_ABGR || type == BufferedImage.TYPE_4BYTE_ABGR_PRE){
+                // the elements come in band order, red, green, blue and alpha
+                bytes = (byte[]) raster.getDataElements(0, y, width, 1, bytes);
+                for(int x = 0; x < width; x++){
+                    if(bytes[x * 4 + 3] != 0){
+                        mask[offset + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }else{
+                if(ints == null){
+                    ints = new int[width];
+                }
+                img.getRGB(0, y, width, 1, ints, 0, width);
+                for(int x = 0; x < width; x++){
+                    if((ints[x] >>> 24) != 0){
+                        mask[offset + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the edge pixels of a bitmask of solid pixels, 64 pixels at a time. A solid pixel is an edge pixel when
+     * its eight neighbours inside the image include both solid and transparent pixels, the same rule findEdgePixels
+     * uses. The neighbours of a whole word come from shifting the words of the row and the rows above and below by
+     * one bit, with the bit crossing from the next word.
+     *
+     * @param solid  the bitmask of the solid pixels
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return a bitmask of the edge pixels in the same layout
+     */
+    public static long[] findEdgeMask(long[] solid, int width, int height){
+        long[] edges = new long[solid.length];
+        findEdgeRows(solid, edges, width, height, 0, height);
+        return edges;
+    }
+
+    /**
+     * Finds the edge pixels of a range of rows of a bitmask of solid pixels.
+     *
+     * @param solid  the bitmask of the solid pixels
+     * @param edges  the bitmask the edge pixels are written to
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param start  the first row
+     * @param end    the end of the rows, exclusive
+     */
+    static void findEdgeRows(long[] solid, long[] edges, int width, int height, int start, int end){
+        int words = wordsPerRow(width);
+        for(int y = start; y < end; y++){
+            for(int w = 0; w < words; w++){
+                long center = solid[y * words + w];
+                if(center == 0){
+                    continue;
+                }
+                // pixels past the right edge of the image don't exist, so they aren't transparent either
+                long inside = w == words - 1 && (width & 63) != 0 ? (1L << width) - 1 : -1L;
+                long anySolid = 0;
+                long anyTransparent = 0;
+                for(int r = Math.max(y - 1, 0); r <= Math.min(y + 1, height - 1); r++){
+                    int row = r * words;
+                    long s = solid[row + w];
+                    long sBefore = w > 0 ? solid[row + w - 1] : 0;
+                    long sAfter = w < words - 1 ? solid[row + w + 1] : 0;
+                    long t = ~s & inside;
+                    long tBefore = w > 0 ? ~sBefore : 0;
+                    long tAfter = w < words - 1 ? ~sAfter & (w + 1 == words - 1 && (width & 63) != 0
+                            ? (1L << width) - 1 : -1L) : 0;
+                    // the neighbour on the left of pixel x is pixel x - 1, and on the right pixel x + 1
+                    anySolid |= (s << 1) | (sBefore >>> 63) | (s >>> 1) | (sAfter << 63);
+                    anyTransparent |= (t << 1) | (tBefore >>> 63) | (t >>> 1) | (tAfter << 63);
+                    if(r != y){
+                        anySolid |= s;
+                        anyTransparent |= t;
+                    }
+                }
+                edges[y * words + w] = center & anySolid & anyTransparent;
+            }
+        }
+    }
+
+    /**
+     * Finds the edge pixels of an image with the bitmask scan. With an executor, images with enough rows are split
+     * into strips of rows that are scanned on the threads of the executor. The strips only read the rows next to
+     * them, so they don't need to wait for each other.
+     *
+     * @param img      the image
+     * @param executor the executor scanning the strips, null to scan on the calling thread
+     * @return a bitmask of the edge pixels, row after row with (width + 63) / 64 longs a row
+     */
+    public static long[] findEdgeMask(final BufferedImage img, ExecutorService executor){
+        final int width = img.getWidth();
+        final int height = img.getHeight();
+        final long[] solid = new long[wordsPerRow(width) * height];
+        final long[] edges = new long[solid.length];
+        int strips = executor == null ? 1 : Math.min(height / MIN_STRIP_ROWS, Runtime.getRuntime().availableProcessors());
+        if(strips < 2){
+            maskSolidRows(img, solid, 0, height);
+            findEdgeRows(solid, edges, width, height, 0, height);
+            return edges;
+        }
+
+        int rows = (height + strips - 1) / strips;
+        List<Callable<Void>> masking = new ArrayList<Callable<Void>>();
+        List<Callable<Void>> edging = new ArrayList<Callable<Void>>();
+        for(int strip = 0; strip < strips; strip++){
+            final int start = strip * rows;
+            final int end = Math.min(start + rows, height);
+            masking.add(() -> {
+                maskSolidRows(img, solid, start, end);
+                return null;
+            });
+            edging.add(() -> {
+                findEdgeRows(solid, edges, width, height, start, end);
+                return null;
+            });
+        }
+        // the edges of a strip need the solid rows of its neighbours, so every strip is masked first
+        runAll(executor, masking);
+        runAll(executor, edging);
+        return edges;
+    }
+
+    /**
+     * Runs tasks on an executor and waits for them.
+     *
+     * @param executor the executor
+     * @param tasks    the tasks
+     */
+    static void runAll(ExecutorService executor, List<Callable<Void>> tasks){
+        try{
+            for(Future<Void> result : executor.invokeAll(tasks)){
+                result.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning an image", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("Scanning an image failed", e.getCause());
+        }
+    }
+
+    /**
+     * Lists the pixels set in a bitmask in the same form and order as findEdgePixels gives them, row after row with
+     * the row in x and the column in y.
+     *
+     * @param mask  the bitmask
+     * @param width the width of the image
+     * @return the pixels
+     */
+    public static LinkedList<Vector2D> pixelsOfMask(long[] mask, int width){
+        int words = wordsPerRow(width);
+        LinkedList<Vector2D> pixels = new LinkedList<Vector2D>();
+        for(int i = 0; i < mask.length; i++){
+            long bits = mask[i];
+            while(bits != 0){
+                int bit = Long.numberOfTrailingZeros(bits);
+                pixels.add(new Vector2D(i / words, (i % words) * 64 + bit));
+                bits &= bits - 1;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Returns the number of longs a row of the given width takes in a bitmask.
+     *
+     * @param width the width in pixels
+     * @return the words per row
+     */
+    static int wordsPerRow(int width){
+        return (width + 63) >>> 6;
+    }
+
+    /**
+     * Creates a convex hull shape from image. Vertices that are less than DEFAULT_MAX_ERROR pixels off the hull
+     * without them are removed.
      *
      * @param img    the image
      * @param scaler the scaler scales the created shape. Used to match the hull size to the size image is scaled to
      *               in the game.
-     * @return the convex hull as a Polygon
+     * @return the vertices of the convex hull as x0, y0, x1, y1...
+     */
+    public static double[] hullShapeFromImg(BufferedImage img,double scaler){
+        return hullShapeFromImg(img, scaler, Integer.MAX_VALUE, DEFAULT_MAX_ERROR);
+    }
+
+    /**
+     * Creates a convex hull shape from image with at most the given number of vertices. The hull is simplified with
+     * simplifyHull, so the fidelity can be tuned for each image.
+     *
+     * @param img         the image
+     * @param scaler      the scaler scales the created shape. Used to match the hull size to the size image is scaled
+     *                    to in the game.
+     * @param maxVertices the largest number of vertices the hull may have, at least three
+     * @param maxError    the largest distance in image pixels a vertex may be off the simplified hull
+     * @return the vertices of the convex hull as x0, y0, x1, y1...
+     */
+    public static double[] hullShapeFromImg(BufferedImage img, double scaler, int maxVertices, double maxError){
+        return hullShapeFromImg(img, scaler, maxVertices, maxError, null);
+    }
+
+    /**
+     * Creates a convex hull shape from image with at most the given number of vertices, scanning strips of rows of
+     * large images on the threads of an executor.
+     *
+     * @param img         the image
+     * @param scaler      the scaler scales the created shape. Used to match the hull size to the size image is scaled
+     *                    to in the game.
+     * @param maxVertices the largest number of vertices the hull may have, at least three
+     * @param maxError    the largest distance in image pixels a vertex may be off the simplified hull
+     * @param executor    the executor scanning the strips, null to scan on the calling thread
+     * @return the vertices of the convex hull as x0, y0, x1, y1...
+     */
+    public static double[] hullShapeFromImg(BufferedImage img, double scaler, int maxVertices, double maxError,
+                                            ExecutorService executor){
+        long[] edges = findEdgeMask(img, executor);
+        double[] convexHull = new HullBuilder().hullShape(edges, img.getWidth(), img.getHeight(), scaler);
+
+        return simplifyHull(convexHull, maxVertices, maxError * scaler);
+    }
+
+    /**
+     * Simplifies a convex polygon by removing the vertices that shape it least, in the way of the Visvalingam-Whyatt
+     * algorithm. A vertex is rated by how far the vertices removed so far and the vertex itself would be from the
+     * edge joining its neighbours, which is how far they would be off the simplified polygon. The vertex with the
+     * smallest rating is taken from a heap and removed, and its neighbours are rated again, until the polygon has at
+     * most maxVertices vertices and removing any vertex left would take some vertex farther than maxError from the
+     * polygon. Removing vertices of a convex polygon keeps it convex.
+     *
+     * @param vertices    the vertices of a convex polygon as x0, y0, x1, y1...
+     * @param maxVertices the largest number of vertices the result may have, at least three
+     * @param maxError    the largest distance a removed vertex may be from the simplified polygon, unless more
+     *                    vertices have to be removed to fit maxVertices
+     * @return the vertices of the simplified polygon in the same order, or the given array if nothing was removed
+     */
+    public static double[] simplifyHull(double[] vertices, int maxVertices, double maxError){
+        if(maxVertices < 3){
+            throw new IllegalArgumentException("A hull needs at least three vertices: " + maxVertices);
+        }
+        int n = vertices.length / 2;
+        int[] previous = new int[n];
+        int[] next = new int[n];
+        double[] error = new double[n];
+        boolean[] removed = new boolean[n];
+        for(int i = 0; i < n; i++){
+            previous[i] = i == 0 ? n - 1 : i - 1;
+            next[i] = i == n - 1 ? 0 : i + 1;
+        }
+        // min-heap of the vertices by error, with the place of each vertex in it for rating a vertex again
+        int[] heap = new int[n];
+        int[] place = new int[n];
+        for(int i = 0; i < n; i++){
+            error[i] = spanError(vertices, previous[i], next[i]);
+            heap[i] = i;
+            place[i] = i;
+        }
+        for(int i = n / 2 - 1; i >= 0; i--){
+            siftDown(heap, place, error, i, n);
+        }
+
+        int count = n;
+        while(count > 3){
+            int cheapest = heap[0];
+            if(count <= maxVertices && error[cheapest] > maxError){
+                break;
+            }
+            removed[cheapest] = true;
+            count--;
+            heap[0] = heap[count];
+            place[heap[0]] = 0;
+            siftDown(heap, place, error, 0, count);
+
+            int before = previous[cheapest];
+            int after = next[cheapest];
+            next[before] = after;
+            previous[after] = before;
+            error[before] = spanError(vertices, previous[before], after);
+            siftUp(heap, place, error, place[before]);
+            siftDown(heap, place, error, place[before], count);
+            error[after] = spanError(vertices, before, next[after]);
+            siftUp(heap, place, error, place[after]);
+            siftDown(heap, place, error, place[after], count);
+        }
+        if(count == n){
+            return vertices;
+        }
+
+        double[] simplified = new double[count * 2];
+        int j = 0;
+        for(int i = 0; i < n; i++){
+            if(!removed[i]){
+                simplified[j++] = vertices[i * 2];
+                simplified[j++] = vertices[i * 2 + 1];
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * Moves an entry of a min-heap towards the root while it is smaller than its parent.
+     *
+     * @param heap  the vertices in the heap
+     * @param place the index of each vertex in the heap
+     * @param error the errors the heap is ordered by
+     * @param i     the index of the entry
      */
-    public static Shape hullShapeFromImg(BufferedImage img,double scaler){
-        boolean[][] solidPixels = mapSeethroughPixels(img);
-        LinkedList<Point2D> imgEdgePixs = findEdgePixels(solidPixels);
-        LinkedList<Point2D> convexHull = new GrahamScanner().convexHull(imgEdgePixs);
+    static void siftUp(int[] heap, int[] place, double[] error, int i){
+        int vertex = heap[i];
+        while(i > 0){
+            int parent = (i - 1) / 2;
+            if(error[heap[parent]] <= error[vertex]){
+                break;
+            }
+            heap[i] = heap[parent];
+            place[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = vertex;
+        place[vertex] = i;
+    }
+
+    /**
+     * Moves an entry of a min-heap towards the leaves while it is larger than its smaller child.
+     *
+     * @param heap  the vertices in the heap
+     * @param place the index of each vertex in the heap
+     * @param error the errors the heap is ordered by
+     * @param i     the index of the entry
+     * @param size  the number of entries in the heap
+     */
+    static void siftDown(int[] heap, int[] place, double[] error, int i, int size){
+        int vertex = heap[i];
+        while(true){
+            int child = i * 2 + 1;
+            if(child >= size){
+                break;
+            }
+            if(child + 1 < size && error[heap[child + 1]] < error[heap[child]]){
+                child++;
+            }
+            if(error[heap[child]] >= error[vertex]){
+                break;
+            }
+            heap[i] = heap[child];
+            place[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = vertex;
+        place[vertex] = i;
+    }
 
-        return shapeFromList(convexHull, scaler);
+    /**
+     * Calculates how far the vertices between two vertices of a convex polygon are from the edge joining them, the
+     * largest distance of them from the segment.
+     *
+     * @param vertices the vertices as x0, y0, x1, y1...
+     * @param a        the index of the vertex the edge starts from, not multiplied by two
+     * @param c        the index of the vertex the edge ends at
+     * @return the largest distance, zero if there are no vertices between
+     */
+    static double spanError(double[] vertices, int a, int c){
+        int n = vertices.length / 2;
+        double ax = vertices[a * 2];
+        double ay = vertices[a * 2 + 1];
+        double cx = vertices[c * 2] - ax;
+        double cy = vertices[c * 2 + 1] - ay;
+        double lengthSquared = cx * cx + cy * cy;
+        double largest = 0;
+        for(int b = a + 1 == n ? 0 : a + 1; b != c; b = b + 1 == n ? 0 : b + 1){
+            double bx = vertices[b * 2] - ax;
+            double by = vertices[b * 2 + 1] - ay;
+            double along = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (bx * cx + by * cy) / lengthSquared));
+            double dx = bx - cx * along;
+            double dy = by - cy * along;
+            largest = Math.max(largest, Math.sqrt(dx * dx + dy * dy));
+        }
+        return largest;
     }
 
     /**
-     * Creates a Polygon from LinkedList of vertices.
+     * Creates a polygon from LinkedList of vertices.
      *
      * @param points the vertices as a list
      * @param scaler the scaler for scaling the created polygon
-     * @return the polygon
+     * @return the vertices of the polygon as x0, y0, x1, y1...
      */
-    static Polygon shapeFromList(LinkedList<Point2D> points, double scaler){
-        Double[] pointsArray = new Double[points.size()*2];
+    static double[] shapeFromList(LinkedList<Vector2D> points, double scaler){
+        double[] pointsArray = new double[points.size()*2];
         for(int i = 0; i<points.size(); i++){
             pointsArray[(i*2)] = points.get(i).getY()*scaler;
 
@@ -116,9 +530,7 @@ public  class ShapeCreator {
             pointsArray[(i*2)+1] = points.get(i).getX()*scaler;
         }
 
-        Polygon polygon = new Polygon();
-        polygon.getPoints().addAll(pointsArray);
-        return polygon;
+        return pointsArray;
     }
     
 
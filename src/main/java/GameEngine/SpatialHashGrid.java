@@ -0,0 +1,301 @@
+package GameEngine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform spatial hash grid used as the broadphase of PhysicsWorld. Every body's AABB is binned to the grid cells it
+ * covers and only bodies sharing a cell are reported as candidate pairs. Each candidate pair is reported once and the
+ * pairs are sorted so that the order is the same as looping through the bodies with two nested loops. Pairs of two
+ * sleeping bodies aren't reported. Pairs with a sensor are collected apart from the others, since they are only
+ * tested for overlap, and pairs of two sensors aren't reported.
+ */
+public class SpatialHashGrid {
+
+    /**
+     * Number of bits reserved for the body index in cell entries.
+     */
+    static final int INDEX_BITS = 24;
+    /**
+     * Mask for reading the body index from a cell entry.
+     */
+    static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    /**
+     * Mask for the cell coordinates packed in a cell entry.
+     */
+    static final long CELL_MASK = (1L << 20) - 1;
+
+    /**
+     * The width and height of one cell in JavaFX units.
+     */
+    double cellSize;
+
+    /**
+     * Cell entries packed as cell x, cell y and body index. Sorting these groups bodies by cell.
+     */
+    long[] entries = new long[64];
+    /**
+     * Number of used cell entries.
+     */
+    int entryCount;
+    /**
+     * Candidate pairs packed as first index in the high bits and second index in the low bits.
+     */
+    long[] pairs = new long[64];
+    /**
+     * Number of candidate pairs found by the last update.
+     */
+    int pairCount;
+    /**
+     * Candidate pairs with a sensor, packed like the other pairs but not sorted.
+     */
+    long[] sensorPairs = new long[16];
+    /**
+     * Number of candidate pairs with a sensor found by the last update.
+     */
+    int sensorPairCount;
+    /**
+     * The lowest cell x coordinate each body covers.
+     */
+    int[] minCellX = new int[16];
+    /**
+     * The lowest cell y coordinate each body covers.
+     */
+    int[] minCellY = new int[16];
+
+    /**
+     * Instantiates a new Spatial hash grid.
+     *
+     * @param cellSize the width and height of one cell in JavaFX units
+     */
+    public SpatialHashGrid(double cellSize){
+        setCellSize(cellSize);
+    }
+
+    /**
+     * Bins the given bodies to the grid and collects the candidate pairs. Bodies are referred to in the pairs by
+     * their index in the list.
+     *
+     * @param bodies the bodies to be tested
+     * @return the number of candidate pairs found
+     */
+    public int findPairs(List<Body> bodies){
+        int bodyCount = bodies.size();
+        if(bodyCount > INDEX_MASK){
+            throw new IllegalArgumentException("Too many bodies for the broadphase: " + bodyCount);
+        }
+        if(minCellX.length < bodyCount){
+            minCellX = new int[Math.max(bodyCount, minCellX.length * 2)];
+            minCellY = new int[minCellX.length];
+        }
+
+        entryCount = 0;
+        pairCount = 0;
+        sensorPairCount = 0;
+
+        for(int i = 0; i < bodyCount; i++){
+            AABB box = bodies.get(i).updateAABB();
+            int x0 = cell(box.minX);
+            int y0 = cell(box.minY);
+            int x1 = cell(box.maxX);
+            int y1 = cell(box.maxY);
+            minCellX[i] = x0;
+            minCellY[i] = y0;
+            for(int x = x0; x <= x1; x++){
+                for(int y = y0; y <= y1; y++){
+                    addEntry(((x & CELL_MASK) << 44) | ((y & CELL_MASK) << INDEX_BITS) | i);
+                }
+            }
+        }
+
+        Arrays.sort(entries, 0, entryCount);
+
+        int runStart = 0;
+        while(runStart < entryCount){
+            long cellKey = entries[runStart] >>> INDEX_BITS;
+            int runEnd = runStart + 1;
+            while(runEnd < entryCount && (entries[runEnd] >>> INDEX_BITS) == cellKey){
+                runEnd++;
+            }
+            if(runEnd - runStart > 1){
+                collectPairs(bodies, runStart, runEnd);
+            }
+            runStart = runEnd;
+        }
+
+        Arrays.sort(pairs, 0, pairCount);
+        return pairCount;
+    }
+
+    /**
+     * Adds pairs from one cell. A pair sharing several cells is only added from the cell where the areas covered by
+     * both bodies start, so every pair is reported once without having to look up pairs already found.
+     *
+     * @param bodies   the bodies being tested
+     * @param runStart index of the first entry of the cell
+     * @param runEnd   index after the last entry of the cell
+     */
+    void collectPairs(List<Body> bodies, int runStart, int runEnd){
+        long cell = entries[runStart] >>> INDEX_BITS;
+        int cellX = (int) (cell >>> 20);
+        int cellY = (int) (cell & CELL_MASK);
+
+        for(int a = runStart; a < runEnd; a++){
+            int i = (int) (entries[a] & INDEX_MASK);
+            for(int b = a + 1; b < runEnd; b++){
+                int j = (int) (entries[b] & INDEX_MASK);
+                int startX = (int) (Math.max(minCellX[i], minCellX[j]) & CELL_MASK);
+                int startY = (int) (Math.max(minCellY[i], minCellY[j]) & CELL_MASK);
+                if(startX != cellX || startY != cellY){
+                    continue;
+                }
+                Body bodyI = bodies.get(i);
+                Body bodyJ = bodies.get(j);
+                // filtered pairs are dropped before any geometry is looked at
+                if(!bodyI.shouldCollide(bodyJ)){
+                    continue;
+                }
+                // two sleeping bodies stay where they are, so they can't start colliding
+                if(!bodyI.isAwake() && !bodyJ.isAwake()){
+                    continue;
+                }
+                if(!bodyI.getAABB().overlaps(bodyJ.getAABB())){
+                    continue;
+                }
+                if(bodyI.sensor || bodyJ.sensor){
+                    if(!(bodyI.sensor && bodyJ.sensor)){
+                        addSensorPair(i, j);
+                    }
+                    continue;
+                }
+                addPair(i, j);
+            }
+        }
+    }
+
+    /**
+     * Returns the cell coordinate of the given world coordinate.
+     *
+     * @param value the world coordinate
+     * @return the cell coordinate
+     */
+    int cell(double value){
+        return (int) Math.floor(value / cellSize);
+    }
+
+    /**
+     * Adds a cell entry, growing the entry array if needed.
+     *
+     * @param entry the packed cell entry
+     */
+    void addEntry(long entry){
+        if(entryCount == entries.length){
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[entryCount++] = entry;
+    }
+
+    /**
+     * Adds a candidate pair, growing the pair array if needed.
+     *
+     * @param i index of the first body, smaller than j
+     * @param j index of the second body
+     */
+    void addPair(int i, int j){
+        if(pairCount == pairs.length){
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        }
+        pairs[pairCount++] = ((long) i << 32) | j;
+    }
+
+    /**
+     * Adds a candidate pair with a sensor, growing the sensor pair array if needed.
+     *
+     * @param i index of the first body, smaller than j
+     * @param j index of the second body
+     */
+    void addSensorPair(int i, int j){
+        if(sensorPairCount == sensorPairs.length){
+            sensorPairs = Arrays.copyOf(sensorPairs, sensorPairs.length * 2);
+        }
+        sensorPairs[sensorPairCount++] = ((long) i << 32) | j;
+    }
+
+    /**
+     * Gets the index of the first body of a packed pair.
+     *
+     * @param pair the packed pair
+     * @return index of the first body
+     */
+    public static int firstOf(long pair){
+        return (int) (pair >>> 32);
+    }
+
+    /**
+     * Gets the index of the second body of a packed pair.
+     *
+     * @param pair the packed pair
+     * @return index of the second body
+     */
+    public static int secondOf(long pair){
+        return (int) pair;
+    }
+
+    /**
+     * Gets the candidate pairs found by the last call of findPairs. Only the first getPairCount() values are valid.
+     *
+     * @return the packed pairs
+     */
+    public long[] getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Gets the number of candidate pairs found by the last call of findPairs.
+     *
+     * @return the pair count
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Gets the candidate pairs with a sensor found by the last call of findPairs. Only the first
+     * getSensorPairCount() values are valid.
+     *
+     * @return the packed sensor pairs
+     */
+    public long[] getSensorPairs() {
+        return sensorPairs;
+    }
+
+    /**
+     * Gets the number of candidate pairs with a sensor found by the last call of findPairs.
+     *
+     * @return the sensor pair count
+     */
+    public int getSensorPairCount() {
+        return sensorPairCount;
+    }
+
+    /**
+     * Gets cell size.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Sets cell size.
+     *
+     * @param cellSize the cell size
+     */
+    public void setCellSize(double cellSize) {
+        if(!(cellSize > 0)){
+            throw new IllegalArgumentException("Cell size has to be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+}
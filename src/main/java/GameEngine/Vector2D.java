@@ -0,0 +1,149 @@
+package GameEngine;
+
+/**
+ * Immutable two dimensional vector used by the physics classes. Has the same methods as javafx.geometry.Point2D
+ * so that the physics can be run without JavaFX.
+ */
+public final class Vector2D {
+
+    /**
+     * The zero vector.
+     */
+    public static final Vector2D ZERO = new Vector2D(0, 0);
+
+    /**
+     * The x coordinate.
+     */
+    final double x;
+    /**
+     * The y coordinate.
+     */
+    final double y;
+
+    /**
+     * Instantiates a new Vector 2D.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public Vector2D(double x, double y){
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Gets x.
+     *
+     * @return the x
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets y.
+     *
+     * @return the y
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Adds a vector to this vector.
+     *
+     * @param other the other vector
+     * @return the sum as a new vector
+     */
+    public Vector2D add(Vector2D other){
+        return new Vector2D(x + other.x, y + other.y);
+    }
+
+    /**
+     * Adds the given coordinates to this vector.
+     *
+     * @param x the x coordinate to add
+     * @param y the y coordinate to add
+     * @return the sum as a new vector
+     */
+    public Vector2D add(double x, double y){
+        return new Vector2D(this.x + x, this.y + y);
+    }
+
+    /**
+     * Subtracts a vector from this vector.
+     *
+     * @param other the other vector
+     * @return the difference as a new vector
+     */
+    public Vector2D subtract(Vector2D other){
+        return new Vector2D(x - other.x, y - other.y);
+    }
+
+    /**
+     * Multiplies this vector with a number.
+     *
+     * @param factor the factor
+     * @return the product as a new vector
+     */
+    public Vector2D multiply(double factor){
+        return new Vector2D(x * factor, y * factor);
+    }
+
+    /**
+     * Dot product of this and the given vector.
+     *
+     * @param other the other vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector2D other){
+        return x * other.x + y * other.y;
+    }
+
+    /**
+     * Length of the vector.
+     *
+     * @return the length
+     */
+    public double magnitude(){
+        return Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Returns a vector with the same direction and length of one. Zero vector is returned as it is.
+     *
+     * @return the normalized vector
+     */
+    public Vector2D normalize(){
+        double length = magnitude();
+        if(length == 0){
+            return ZERO;
+        }
+        return new Vector2D(x / length, y / length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o){
+            return true;
+        }
+        if(!(o instanceof Vector2D)){
+            return false;
+        }
+        Vector2D other = (Vector2D) o;
+        return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = 7L;
+        bits = 31L * bits + Double.doubleToLongBits(x);
+        bits = 31L * bits + Double.doubleToLongBits(y);
+        return (int) (bits ^ (bits >> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Vector2D [x = " + x + ", y = " + y + "]";
+    }
+}
@@ -0,0 +1,104 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AABBTreeTest {
+
+    Body square(double x, double y, double size){
+        ConvexShape shape = new ConvexShape(new double[]{
+                0.0, 0.0,
+                size, 0.0,
+                size, size,
+                0.0, size});
+        return new Body(x, y, null, shape);
+    }
+
+    @Test
+    public void queryMatchesBruteForce() {
+        Random random = new Random(1);
+        AABBTree tree = new AABBTree(5);
+        ArrayList<Body> bodies = new ArrayList<Body>();
+        for(int i = 0; i < 300; i++){
+            Body body = square(random.nextDouble() * 1000, random.nextDouble() * 1000, 5 + random.nextDouble() * 20);
+            body.proxyId = tree.createProxy(body, body.updateAABB());
+            bodies.add(body);
+        }
+        // move some of the bodies far enough to be reinserted
+        for(int i = 0; i < 100; i++){
+            Body body = bodies.get(i);
+            double dx = random.nextDouble() * 100 - 50;
+            double dy = random.nextDouble() * 100 - 50;
+            body.move(dx, dy);
+            tree.moveProxy(body.proxyId, body.updateAABB(), dx, dy);
+        }
+        // and remove some
+        for(int i = 0; i < 50; i++){
+            tree.destroyProxy(bodies.remove(bodies.size() - 1).proxyId);
+        }
+        assertEquals(250, tree.getBodyCount());
+        assertTrue(tree.getHeight() < 20);
+
+        for(int q = 0; q < 50; q++){
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            AABB area = new AABB(x, y, x + 100, y + 100);
+            ArrayList<Body> found = new ArrayList<Body>();
+            tree.query(area, found);
+
+            HashSet<Body> expected = new HashSet<Body>();
+            for(Body body : bodies){
+                if(body.getAABB().overlaps(area)){
+                    expected.add(body);
+                }
+            }
+            assertEquals(expected, new HashSet<Body>(found));
+        }
+    }
+
+    @Test
+    public void pointQueryUsesShape() {
+        AABBTree tree = new AABBTree(5);
+        ConvexShape triangle = new ConvexShape(new double[]{
+                0.0, 0.0,
+                20.0, 0.0,
+                0.0, 20.0});
+        Body body = new Body(0, 0, null, triangle);
+        body.proxyId = tree.createProxy(body, body.updateAABB());
+
+        ArrayList<Body> found = new ArrayList<Body>();
+        tree.queryPoint(5, 5, found);
+        assertEquals(1, found.size());
+        found.clear();
+        tree.queryPoint(15, 15, found);
+        assertEquals(0, found.size());
+    }
+
+    @Test
+    public void raycastReturnsHitsInOrder() {
+        AABBTree tree = new AABBTree(5);
+        Body far = square(200, 0, 10);
+        Body near = square(50, 0, 10);
+        Body off = square(100, 100, 10);
+        far.proxyId = tree.createProxy(far, far.updateAABB());
+        near.proxyId = tree.createProxy(near, near.updateAABB());
+        off.proxyId = tree.createProxy(off, off.updateAABB());
+
+        ArrayList<Body> hits = new ArrayList<Body>();
+        tree.raycast(0, 5, 300, 5, false, hits);
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0) == near);
+        assertTrue(hits.get(1) == far);
+
+        hits.clear();
+        tree.raycast(300, 5, 0, 5, true, hits);
+        assertEquals(1, hits.size());
+        assertTrue(hits.get(0) == far);
+    }
+}
@@ -0,0 +1,59 @@
+package GameEngine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AssetLoaderTest {
+
+    AssetLoader loader = new AssetLoader(Executors.newFixedThreadPool(4), Runnable::run);
+
+    @After
+    public void reset() {
+        loader.shutdown();
+        ShapeCache.clear();
+    }
+
+    @Test
+    public void filesAreLoadedOnce() throws Exception {
+        File png = new File(Files.createTempDirectory("assets").toFile(), "disc.png");
+        ImageIO.write(ShapeCreatorTest.disc(40), "png", png);
+
+        CompletableFuture<BufferedImage> image = loader.loadBufferedImage(png.getPath());
+        assertTrue(image == loader.loadBufferedImage(png.getPath()));
+        ConvexShape shape = loader.loadShape(png.getPath(), 80).get();
+        assertTrue(shape == loader.loadShape(png.getPath(), 80).get());
+        assertTrue(shape == ShapeCache.getShape(png.getPath(), 80));
+        assertFalse(shape == loader.loadShape(png.getPath(), 40).get());
+    }
+
+    @Test
+    public void failedLoadsAreTriedAgain() throws Exception {
+        File png = new File(Files.createTempDirectory("assets").toFile(), "late.png");
+        CompletableFuture<BufferedImage> missing = loader.loadBufferedImage(png.getPath());
+        try{
+            missing.get();
+            fail();
+        }catch(ExecutionException e){
+            // the file isn't there yet
+        }
+
+        ImageIO.write(ShapeCreatorTest.disc(20), "png", png);
+        // the failed future is dropped right after it completes
+        for(int i = 0; i < 1000 && loader.loadBufferedImage(png.getPath()) == missing; i++){
+            Thread.sleep(1);
+        }
+        assertTrue(loader.loadBufferedImage(png.getPath()).get().getWidth() == 20);
+    }
+}
@@ -1,13 +1,13 @@
 package GameEngine;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
-import javafx.geometry.Point2D;
 import org.junit.Test;
-import javafx.scene.shape.Polygon;
 
 import java.util.LinkedList;
+import java.util.Random;
 
 /**
  * Unit test for simple App.
@@ -25,16 +25,15 @@ public class CollisionListenerTest {
 
     @Test
     public void polyToPointTest(){
-        Polygon polygon = new Polygon();
-        polygon.getPoints().addAll(new Double[]{
+        double[] polygon = new double[]{
                 0.0, 0.0,
                 20.0, 10.0,
-                10.0, 20.0 });
-        LinkedList<Point2D> l = CollisionChecker.pointsFromPolygon(polygon);
-        LinkedList<Point2D> tester = new LinkedList<Point2D>();
-        tester.add(new Point2D(0,0));
-        tester.add(new Point2D(20,10));
-        tester.add(new Point2D(10,20));
+                10.0, 20.0 };
+        LinkedList<Vector2D> l = CollisionChecker.pointsFromArray(polygon);
+        LinkedList<Vector2D> tester = new LinkedList<Vector2D>();
+        tester.add(new Vector2D(0,0));
+        tester.add(new Vector2D(20,10));
+        tester.add(new Vector2D(10,20));
 
         assertTrue(l.equals(tester));
 
@@ -42,15 +41,15 @@ public class CollisionListenerTest {
 
     @Test
     public void vecSubtracTestTest(){
-        Point2D tester = new Point2D(1,2);
-        Point2D p =  CollisionChecker.vecSubtract(new Point2D(3,5), new Point2D(2,3));
+        Vector2D tester = new Vector2D(1,2);
+        Vector2D p =  CollisionChecker.vecSubtract(new Vector2D(3,5), new Vector2D(2,3));
         assertTrue(p.equals(tester));
     }
 
     @Test
     public void dotPTest(){
-        Point2D tester = new Point2D(1,2);
-        double p =  CollisionChecker.dotProduct(new Point2D(3,5), new Point2D(2,3));
+        Vector2D tester = new Vector2D(1,2);
+        double p =  CollisionChecker.dotProduct(new Vector2D(3,5), new Vector2D(2,3));
         assertTrue(p==21);
     }
 
@@ -65,26 +64,109 @@ public class CollisionListenerTest {
 
     @Test
     public void collisionCheckTest(){
-        Polygon polygon = new Polygon();
-        polygon.getPoints().addAll(new Double[]{
+        double[] polygon = new double[]{
                 0.0, 0.0,
                 20.0, 10.0,
-                10.0, 20.0 });
+                10.0, 20.0 };
 
-        Polygon polygon2 = new Polygon();
-        polygon2.getPoints().addAll(new Double[]{
+        double[] polygon2 = new double[]{
                 30.0, 30.0,
                 50.0, 400.0,
-                40.0, 50.0 });
+                40.0, 50.0 };
 
-        Polygon polygon3 = new Polygon();
-        polygon3.getPoints().addAll(new Double[]{
+        double[] polygon3 = new double[]{
                 1.0, 1.0,
                 20.0, 10.0,
-                10.0, 20.0 });
+                10.0, 20.0 };
 
-        //assertFalse(CollisionChecker.checkCollision(polygon, polygon2));
-        //assertTrue(CollisionChecker.checkCollision(polygon, polygon3));
+        assertTrue(CollisionChecker.checkCollision(polygon, polygon2) == null);
+        assertTrue(CollisionChecker.checkCollision(polygon, polygon3) != null);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void rotatedBodiesCollide(){
+        double[] square = new double[]{
+                0.0, 0.0,
+                10.0, 0.0,
+                10.0, 10.0,
+                0.0, 10.0 };
+        Body body1 = new Body(0, 0, null, new ConvexShape(square));
+        Body body2 = new Body(11, 0, null, new ConvexShape(square));
+        CollisionInfo info = new CollisionInfo();
+        assertFalse(CollisionChecker.checkCollision(body1, body2, info));
+
+        // the corner of a square turned 45 degrees reaches about 2.07 units further right
+        body1.setAngle(Math.PI / 4);
+        assertTrue(CollisionChecker.checkCollision(body1, body2, info));
+        assertEquals(1, info.getAxisX(), 1e-9);
+        assertEquals(0, info.getAxisY(), 1e-9);
+        assertEquals(5 * Math.sqrt(2) + 5 - 11, info.getOverlap(), 1e-9);
+    }
+
+    @Test
+    public void timeOfImpactTest(){
+        double[] square = new double[]{
+                0.0, 0.0,
+                10.0, 0.0,
+                10.0, 10.0,
+                0.0, 10.0 };
+        double[] normals = new double[8];
+        CollisionChecker.calculateNormals(square, normals);
+        double[] wall = new double[]{
+                50.0, -20.0,
+                52.0, -20.0,
+                52.0, 30.0,
+                50.0, 30.0 };
+        double[] wallNormals = new double[8];
+        CollisionChecker.calculateNormals(wall, wallNormals);
+
+        // moved from x -100 to x 0, the right edge reaches the wall at x 50 after 140 of the 200 units
+        double[] moved = new double[8];
+        for(int i = 0; i < 8; i += 2){
+            moved[i] = square[i] + 100;
+            moved[i + 1] = square[i + 1];
+        }
+        assertEquals(0.7, CollisionChecker.timeOfImpact(moved, normals, wall, wallNormals, 200, 0), 1e-9);
+        // passing above the wall never touches it
+        for(int i = 1; i < 8; i += 2){
+            moved[i] = square[i] - 40;
+        }
+        assertEquals(-1, CollisionChecker.timeOfImpact(moved, normals, wall, wallNormals, 200, 0), 0);
+    }
+
+    @Test
+    public void circleCircleColTest(){
+        assertTrue(CollisionChecker.circleCircleCol(0, 0, 5, 8, 0, 3));
+        assertTrue(CollisionChecker.circleCircleCol(0, 0, 5, 6, 8, 5));
+        assertFalse(CollisionChecker.circleCircleCol(0, 0, 5, 6, 8.1, 5));
+
+        ConvexShape square = new ConvexShape(new double[]{
+                0.0, 0.0,
+                10.0, 0.0,
+                10.0, 10.0,
+                0.0, 10.0 });
+        assertEquals(5 * Math.sqrt(2), square.getBoundingRadius(), 1e-9);
+    }
+
+    @Test
+    public void overlapTestAgreesWithCheckCollision() {
+        Random random = new Random(24);
+        CollisionInfo info = new CollisionInfo();
+        int overlapping = 0;
+        for(int i = 0; i < 500; i++){
+            Body body1 = new Body(0, 0, null,
+                    new ConvexShape(GjkEpaTest.randomPolygon(random, 3 + random.nextInt(20), 20)));
+            Body body2 = new Body(random.nextDouble() * 60 - 30, random.nextDouble() * 60 - 30, null,
+                    new ConvexShape(GjkEpaTest.randomPolygon(random, 3 + random.nextInt(20), 15)));
+            double[] v1 = body1.getWorldVertices();
+            double[] v2 = body2.getWorldVertices();
+            boolean colliding = CollisionChecker.checkCollision(v1, body1.worldNormals, v2, body2.worldNormals, info);
+            assertEquals(colliding, CollisionChecker.overlaps(v1, body1.worldNormals, v2, body2.worldNormals));
+            if(colliding){
+                overlapping++;
+            }
+        }
+        assertTrue(overlapping > 50 && overlapping < 450);
+    }
+}
@@ -0,0 +1,52 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContactCacheTest {
+
+    @Test
+    public void entriesSurviveGrowing() {
+        ContactCache cache = new ContactCache(4);
+        for(int i = 0; i < 1000; i++){
+            int entry = cache.insert(ContactCache.key(i, i * 7 + 1));
+            cache.normalImpulse[entry * 2 + 1] = i;
+        }
+        assertEquals(1000, cache.getCount());
+        for(int i = 0; i < 1000; i++){
+            int entry = cache.find(ContactCache.key(i * 7 + 1, i));
+            assertTrue(entry != -1);
+            assertEquals(i, cache.getNormalImpulse(entry, 1), 0);
+        }
+        assertFalse(cache.contains(5, 6));
+
+        cache.clear();
+        assertEquals(0, cache.getCount());
+        assertFalse(cache.contains(0, 1));
+    }
+
+    @Test
+    public void touchingBodiesAreFoundInTheWorld() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body a = new Body(0, 0, world, PhysicsWorldTest.square(10));
+        Body b = new Body(5, 0, world, PhysicsWorldTest.square(10));
+        Body c = new Body(50, 0, world, PhysicsWorldTest.square(10));
+        world.addBody(a);
+        world.addBody(b);
+        world.addBody(c);
+        world.updateWorld(1.0 / 60);
+
+        assertTrue(a.isTouching(b));
+        assertTrue(b.isTouching(a));
+        assertFalse(a.isTouching(c));
+
+        // removing a moves c to its slot, the pairs are still told apart by id
+        world.removeBody(a);
+        assertFalse(a.isTouching(b));
+        world.updateWorld(1.0 / 60);
+        assertFalse(b.isTouching(c));
+    }
+}
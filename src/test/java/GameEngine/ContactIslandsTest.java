@@ -0,0 +1,84 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContactIslandsTest {
+
+    static Body square(PhysicsWorld world, double x, double y, double size){
+        Body body = new Body(x, y, world, new ConvexShape(new double[]{
+                0.0, 0.0,
+                size, 0.0,
+                size, size,
+                0.0, size}));
+        world.addBody(body);
+        return body;
+    }
+
+    static long pair(int a, int b){
+        return (long) a << 32 | b;
+    }
+
+    @Test
+    public void staticBodiesDontJoinIslands() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body floor = square(world, 0, 100, 1000);
+        floor.setMass(Double.POSITIVE_INFINITY);
+        for(int i = 0; i < 4; i++){
+            square(world, i * 100, 90, 10);
+        }
+        // two piles on the floor, bodies 1 and 2 touch each other
+        ContactBuffer contacts = new ContactBuffer(4);
+        CollisionInfo info = new CollisionInfo();
+        contacts.add(pair(0, 1), info);
+        contacts.add(pair(0, 2), info);
+        contacts.add(pair(0, 4), info);
+        contacts.add(pair(1, 2), info);
+
+        ContactIslands islands = new ContactIslands();
+        assertEquals(2, islands.build(world.getBodyStorage(), contacts));
+        assertEquals(3, islands.getContactCount(0));
+        assertEquals(0, islands.getContact(0, 0));
+        assertEquals(1, islands.getContact(0, 1));
+        assertEquals(3, islands.getContact(0, 2));
+        assertEquals(2, islands.getBodyCount(0));
+        assertEquals(1, islands.getContactCount(1));
+        assertEquals(2, islands.getContact(1, 0));
+        assertEquals(1, islands.getBodyCount(1));
+        assertEquals(4, islands.getBody(1, 0));
+    }
+
+    @Test
+    public void parallelSolvingGivesTheSameVelocities() {
+        PhysicsWorld serial = new PhysicsWorld(10, new Vector2D(0, 10));
+        PhysicsWorld parallel = new PhysicsWorld(10, new Vector2D(0, 10));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        parallel.setExecutor(executor);
+        parallel.setWorkerCount(3);
+        parallel.getNarrowphase().setParallelThreshold(1);
+        try{
+            for(PhysicsWorld world : new PhysicsWorld[]{serial, parallel}){
+                square(world, 0, 300, 2000).setMass(Double.POSITIVE_INFINITY);
+                for(int pile = 0; pile < 10; pile++){
+                    for(int i = 0; i < 5; i++){
+                        square(world, pile * 150 + i * 3, 280 - i * 18, 20);
+                    }
+                }
+            }
+            for(int step = 0; step < 30; step++){
+                serial.updateWorld(1.0 / 60);
+                parallel.updateWorld(1.0 / 60);
+            }
+            for(int i = 0; i < serial.getBodies().size(); i++){
+                assertEquals(serial.getBodies().get(i).getLinearVelocity(), parallel.getBodies().get(i).getLinearVelocity());
+                assertEquals(serial.getBodies().get(i).getCentroid(), parallel.getBodies().get(i).getCentroid());
+            }
+        }finally{
+            executor.shutdown();
+        }
+    }
+}
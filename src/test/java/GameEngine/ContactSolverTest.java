@@ -0,0 +1,60 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContactSolverTest {
+
+    static Body box(PhysicsWorld world, double x, double y, double width, double height){
+        Body body = new Body(x, y, world, new ConvexShape(new double[]{
+                0.0, 0.0,
+                width, 0.0,
+                width, height,
+                0.0, height}));
+        world.addBody(body);
+        return body;
+    }
+
+    @Test
+    public void stackRestsOnTheFloor() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        Body floor = box(world, -100, 200, 400, 20);
+        floor.setMass(Double.POSITIVE_INFINITY);
+        Body[] stack = new Body[5];
+        for(int i = 0; i < stack.length; i++){
+            stack[i] = box(world, 0, 180 - i * 20, 20, 20);
+        }
+
+        for(int step = 0; step < 240; step++){
+            world.updateWorld(1.0 / 60);
+        }
+
+        assertEquals(210, floor.getCentroidY(), 0);
+        for(int i = 0; i < stack.length; i++){
+            // every box rests on the one below it, overlapping at most a little
+            assertEquals(190 - i * 20, stack[i].getCentroidY(), 1.5);
+            assertEquals(10, stack[i].getCentroidX(), 0.5);
+            assertEquals(0, stack[i].getAngle(), 0.01);
+        }
+        assertFalse(stack[stack.length - 1].isAwake());
+    }
+
+    @Test
+    public void offCenterHitTurnsTheBody() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body target = box(world, 0, 0, 20, 100);
+        Body bullet = box(world, -30, 80, 10, 10);
+        bullet.setLinearVelocity(new Vector2D(30, 0));
+
+        for(int step = 0; step < 30 && !target.isTouching(bullet); step++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertTrue(target.isTouching(bullet));
+        assertTrue(target.getLinearVelocity().getX() > 0);
+        // hit below the centroid on the left, so it turns counterclockwise in screen coordinates
+        assertTrue(target.getAngularVelocity() < 0);
+    }
+}
@@ -0,0 +1,56 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FixedStepClockTest {
+
+    static FixedStepClock clock(double stepSize, int maxStepsPerFrame){
+        FixedStepClock clock = new FixedStepClock();
+        clock.setStepSize(stepSize);
+        clock.setMaxStepsPerFrame(maxStepsPerFrame);
+        return clock;
+    }
+
+    @Test
+    public void longFramesRunSeveralSteps() {
+        FixedStepClock clock = clock(0.25, 5);
+        assertEquals(2, clock.advance(0.6));
+        assertEquals(0.1, clock.getAccumulator(), 1e-12);
+        // the time left over adds up with the next frame
+        assertEquals(1, clock.advance(0.2));
+        assertEquals(0.05, clock.getAccumulator(), 1e-12);
+    }
+
+    @Test
+    public void stepsPerFrameAreCapped() {
+        FixedStepClock clock = clock(0.25, 3);
+        assertEquals(3, clock.advance(2.1));
+        // the whole steps that didn't fit are dropped instead of piling up for the next frames
+        assertEquals(0.1, clock.getAccumulator(), 1e-12);
+        assertEquals(0, clock.advance(0.1));
+        assertEquals(0.8, clock.getInterpolation(), 1e-12);
+    }
+
+    @Test
+    public void shortFramesInterpolateBetweenSteps() {
+        FixedStepClock clock = clock(0.25, 5);
+        assertEquals(1, clock.getInterpolation(), 0);
+        assertEquals(0, clock.advance(0.1));
+        assertEquals(0.4, clock.getInterpolation(), 1e-12);
+        assertEquals(0, clock.advance(0.1));
+        assertEquals(0.8, clock.getInterpolation(), 1e-12);
+        assertEquals(1, clock.advance(0.1));
+        assertEquals(0.2, clock.getInterpolation(), 1e-12);
+
+        clock.reset();
+        assertEquals(0, clock.getAccumulator(), 0);
+        assertEquals(1, clock.getInterpolation(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepSizeHasToBePositive() {
+        new FixedStepClock().setStepSize(0);
+    }
+}
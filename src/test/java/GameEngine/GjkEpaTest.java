@@ -0,0 +1,162 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GjkEpaTest {
+
+    static double[] randomPolygon(Random random, int vertexCount, double radius){
+        double[] angles = new double[vertexCount];
+        for(int i = 0; i < vertexCount; i++){
+            angles[i] = random.nextDouble() * Math.PI * 2;
+        }
+        Arrays.sort(angles);
+        double[] vertices = new double[vertexCount * 2];
+        for(int i = 0; i < vertexCount; i++){
+            vertices[i * 2] = Math.cos(angles[i]) * radius;
+            vertices[i * 2 + 1] = Math.sin(angles[i]) * radius;
+        }
+        return vertices;
+    }
+
+    /**
+     * The farthest point of the Minkowski difference of two polygons in a direction, from every pair of vertices.
+     */
+    static double differenceSupport(double[] v1, double[] v2, double dx, double dy){
+        double best = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < v1.length; i += 2){
+            for(int j = 0; j < v2.length; j += 2){
+                best = Math.max(best, (v1[i] - v2[j]) * dx + (v1[i + 1] - v2[j + 1]) * dy);
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void supportClimbsToTheFarthestVertex() {
+        double[] vertices = randomPolygon(new Random(1), 60, 10);
+        for(int start = 0; start < 60; start += 7){
+            for(double angle = 0; angle < Math.PI * 2; angle += 0.3){
+                double dx = Math.cos(angle);
+                double dy = Math.sin(angle);
+                double best = Double.NEGATIVE_INFINITY;
+                for(int i = 0; i < vertices.length; i += 2){
+                    best = Math.max(best, vertices[i] * dx + vertices[i + 1] * dy);
+                }
+                int found = GjkEpa.support(vertices, dx, dy, start);
+                assertEquals(best, vertices[found * 2] * dx + vertices[found * 2 + 1] * dy, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void gjkFindsThePenetrationDepth() {
+        Random random = new Random(7);
+        GjkEpa gjk = new GjkEpa();
+        CollisionInfo sat = new CollisionInfo();
+        CollisionInfo found = new CollisionInfo();
+        int collisions = 0;
+        for(int test = 0; test < 500; test++){
+            Body body1 = new Body(0, 0, null, new ConvexShape(randomPolygon(random, 3 + random.nextInt(40), 20)));
+            Body body2 = new Body(random.nextDouble() * 60 - 30, random.nextDouble() * 60 - 30, null,
+                    new ConvexShape(randomPolygon(random, 3 + random.nextInt(40), 15)));
+            body2.setAngle(random.nextDouble() * Math.PI);
+            double[] v1 = body1.getWorldVertices();
+            double[] v2 = body2.getWorldVertices();
+
+            boolean colliding = CollisionChecker.checkCollision(v1, body1.worldNormals, v2, body2.worldNormals, sat);
+            assertEquals(colliding, gjk.checkCollision(v1, body1.worldNormals, v2, body2.worldNormals, found));
+            if(!colliding){
+                continue;
+            }
+            collisions++;
+            // the depth is the smallest push along an edge normal of either polygon that separates them
+            double depth = Double.POSITIVE_INFINITY;
+            for(int i = 0; i < body1.worldNormals.length; i += 2){
+                depth = Math.min(depth, differenceSupport(v1, v2, body1.worldNormals[i], body1.worldNormals[i + 1]));
+            }
+            for(int i = 0; i < body2.worldNormals.length; i += 2){
+                depth = Math.min(depth, differenceSupport(v1, v2, -body2.worldNormals[i], -body2.worldNormals[i + 1]));
+            }
+            assertEquals(depth, found.getOverlap(), 1e-6);
+            assertEquals(depth, differenceSupport(v1, v2, found.getAxisX(), found.getAxisY()), 1e-6);
+            // SAT measures the overlap of the projections, which is the same unless one projection contains the other
+            assertTrue(sat.getOverlap() <= depth + 1e-6);
+        }
+        assertFalse(collisions == 0);
+    }
+
+    @Test
+    public void worldUsesGjkForDetailedShapes() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        world.setCollisionAlgorithm(CollisionAlgorithm.GJK);
+        Body a = new Body(0, 0, world, new ConvexShape(randomPolygon(new Random(2), 50, 20)));
+        Body b = new Body(35, 0, world, new ConvexShape(randomPolygon(new Random(3), 50, 20)));
+        world.addBody(a);
+        world.addBody(b);
+        b.setLinearVelocity(new Vector2D(-30, 0));
+        for(int step = 0; step < 30 && !a.isTouching(b); step++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertEquals(CollisionAlgorithm.GJK, world.getCollisionAlgorithm());
+        assertEquals(true, a.isTouching(b));
+    }
+
+    @Test
+    public void polygonsSharingAnEdgeTouch() {
+        GjkEpa gjk = new GjkEpa();
+        CollisionInfo found = new CollisionInfo();
+        Body left = new Body(0, 0, null, new ConvexShape(new double[]{0, 0, 10, 0, 10, 10, 0, 10}));
+        Body right = new Body(10, 3, null, new ConvexShape(new double[]{0, 0, 10, 0, 10, 10, 0, 10}));
+        assertTrue(gjk.checkCollision(left.getWorldVertices(), left.worldNormals, right.getWorldVertices(),
+                right.worldNormals, found));
+        assertEquals(0, found.getOverlap(), 0);
+        assertEquals(1, found.getAxisX(), 1e-12);
+        assertEquals(0, found.getAxisY(), 1e-12);
+
+        // triangles on both sides of a diagonal
+        double[] below = {0, 0, 10, 10, 0, 10};
+        double[] above = {0, 0, 10, 0, 10, 10};
+        assertTrue(gjk.checkCollision(below, normals(below), above, normals(above), found));
+        assertEquals(0, found.getOverlap(), 1e-12);
+        assertEquals(Math.sqrt(0.5), found.getAxisX(), 1e-12);
+        assertEquals(-Math.sqrt(0.5), found.getAxisY(), 1e-12);
+    }
+
+    @Test
+    public void polygonsSharingACornerTouch() {
+        GjkEpa gjk = new GjkEpa();
+        CollisionInfo found = new CollisionInfo();
+        Body a = new Body(0, 0, null, new ConvexShape(new double[]{0, 0, 10, 0, 10, 10, 0, 10}));
+        Body b = new Body(10, 10, null, new ConvexShape(new double[]{0, 0, 10, 0, 10, 10, 0, 10}));
+        assertTrue(gjk.checkCollision(a.getWorldVertices(), a.worldNormals, b.getWorldVertices(), b.worldNormals,
+                found));
+        assertEquals(0, found.getOverlap(), 0);
+        assertFalse(Double.isNaN(found.getAxisX()) || Double.isNaN(found.getAxisY()));
+        // b is down and to the right of a, so the axis can't point away from it
+        assertTrue(found.getAxisX() >= 0 && found.getAxisY() >= 0);
+        assertEquals(1, found.getAxisX() * found.getAxisX() + found.getAxisY() * found.getAxisY(), 1e-12);
+    }
+
+    /**
+     * The outward edge normals of a polygon wound like ConvexShape winds it.
+     */
+    static double[] normals(double[] vertices){
+        double[] normals = new double[vertices.length];
+        for(int i = 0; i < vertices.length; i += 2){
+            int j = (i + 2) % vertices.length;
+            double ex = vertices[j] - vertices[i];
+            double ey = vertices[j + 1] - vertices[i + 1];
+            double length = Math.sqrt(ex * ex + ey * ey);
+            normals[i] = ey / length;
+            normals[i + 1] = -ex / length;
+        }
+        return normals;
+    }
+}
@@ -0,0 +1,59 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NarrowphaseTest {
+
+    @Test
+    public void parallelChecksFindTheSameContactsInOrder() {
+        Random random = new Random(3);
+        ArrayList<Body> bodies = new ArrayList<Body>();
+        for(int i = 0; i < 400; i++){
+            ConvexShape shape = new ConvexShape(new double[]{
+                    0.0, 0.0,
+                    10 + random.nextDouble() * 20, 0.0,
+                    5.0, 10 + random.nextDouble() * 20});
+            Body body = new Body(random.nextDouble() * 500, random.nextDouble() * 500, null, shape);
+            body.setAngle(random.nextDouble() * Math.PI);
+            bodies.add(body);
+        }
+        Body[] bodyArray = bodies.toArray(new Body[0]);
+        SpatialHashGrid grid = new SpatialHashGrid(30);
+        int pairCount = grid.findPairs(bodies);
+
+        Narrowphase serial = new Narrowphase();
+        ContactBuffer expected = serial.findContacts(bodyArray, grid.getPairs(), pairCount);
+        assertTrue(expected.getCount() > 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            Narrowphase parallel = new Narrowphase();
+            parallel.setExecutor(executor);
+            parallel.setWorkerCount(7);
+            parallel.setParallelThreshold(1);
+            ContactBuffer found = parallel.findContacts(bodyArray, grid.getPairs(), pairCount);
+
+            assertEquals(expected.getCount(), found.getCount());
+            CollisionInfo a = new CollisionInfo();
+            CollisionInfo b = new CollisionInfo();
+            for(int i = 0; i < found.getCount(); i++){
+                assertEquals(expected.getPair(i), found.getPair(i));
+                expected.get(i, a);
+                found.get(i, b);
+                assertEquals(a.getOverlap(), b.getOverlap(), 0);
+                assertEquals(a.getAxisX(), b.getAxisX(), 0);
+                assertEquals(a.getCollisionPointY(), b.getCollisionPointY(), 0);
+            }
+        }finally{
+            executor.shutdown();
+        }
+    }
+}
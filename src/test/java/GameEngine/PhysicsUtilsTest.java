@@ -1,7 +1,5 @@
 package GameEngine;
 
-import javafx.geometry.Point2D;
-import javafx.scene.shape.Polygon;
 import org.junit.Test;
 
 
@@ -13,19 +11,18 @@ public class PhysicsUtilsTest {
     @Test
     public void area() {
 
-        Polygon polygon = new Polygon();
-        polygon.getPoints().addAll(new Double[]{
+        double[] polygon = new double[]{
                 0.0, 0.0,
                 50.0, 0.0,
                 50.0, 60.0,
-                0.0, 60.0});
+                0.0, 60.0};
 
         double area = PhysicEngineUtils.calculatePolygonArea(polygon);
 
         //assertTrue(PhysicEngineUtils.calculatePolygonArea(polygon)==200.0);
 
         System.out.println("inertia " +PhysicEngineUtils.polygonMmoi(polygon, PhysicEngineUtils.calculateCentroid(polygon)));
-        Point2D p = new Point2D(2,2);
+        Vector2D p = new Vector2D(2,2);
 
     }
 
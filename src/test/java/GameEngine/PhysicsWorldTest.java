@@ -0,0 +1,345 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhysicsWorldTest {
+
+    static ConvexShape square(double size){
+        return new ConvexShape(new double[]{
+                0.0, 0.0,
+                size, 0.0,
+                size, size,
+                0.0, size});
+    }
+
+    @Test
+    public void bodiesKeepTheirStateWhenSlotsMove() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body a = new Body(0, 0, world, square(10));
+        Body b = new Body(100, 0, world, square(10));
+        Body c = new Body(200, 0, world, square(10));
+        c.setLinearVelocity(new Vector2D(3, 4));
+        world.addBody(a);
+        world.addBody(b);
+        world.addBody(c);
+
+        assertTrue(world.removeBody(a));
+        assertEquals(2, world.getBodyStorage().getCount());
+        assertEquals(0, c.getSlot());
+        assertTrue(world.getBodies().get(0) == c);
+        assertEquals(new Vector2D(3, 4), c.getLinearVelocity());
+        assertEquals(205, c.getCentroidX(), 1e-9);
+
+        // the removed body still works on its own
+        assertEquals(new Vector2D(5, 5), a.getCentroid());
+        a.move(1, 0);
+        assertEquals(6, a.getCentroidX(), 1e-9);
+    }
+
+    @Test
+    public void gravityMovesBodies() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        Body body = new Body(0, 0, world, square(10));
+        world.addBody(body);
+
+        world.updateWorld(0.5);
+        assertEquals(new Vector2D(0, 5), body.getLinearVelocity());
+        // moved 5 m/s * 0.5 s * 10 px/m
+        assertEquals(5 + 25, body.getCentroidY(), 1e-9);
+    }
+
+    @Test
+    public void worldVerticesFollowRotation() {
+        Body body = new Body(0, 0, null, square(10));
+        double[] vertices = body.getWorldVertices();
+        assertEquals(0, vertices[0], 1e-9);
+        assertEquals(0, vertices[1], 1e-9);
+
+        // cached until the body turns
+        assertTrue(body.getWorldVertices() == vertices);
+        body.setAngle(Math.PI / 2);
+        body.getWorldVertices();
+        assertEquals(10, vertices[0], 1e-9);
+        assertEquals(0, vertices[1], 1e-9);
+        assertEquals(0, body.getAABB().getMinX(), 1e-9);
+        assertEquals(10, body.getAABB().getMaxX(), 1e-9);
+
+        body.move(5, 0);
+        assertEquals(15, body.getAABB().getMaxX(), 1e-9);
+    }
+
+    @Test
+    public void stillBodiesFallAsleepAndWakeUp() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body still = new Body(0, 0, world, square(10));
+        Body moving = new Body(100, 0, world, square(10));
+        world.addBody(still);
+        world.addBody(moving);
+        moving.setLinearVelocity(new Vector2D(1, 0));
+
+        for(int i = 0; i < 40; i++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertFalse(still.isAwake());
+        assertTrue(moving.isAwake());
+
+        still.applyForce(new Vector2D(10, 0), Vector2D.ZERO);
+        assertTrue(still.isAwake());
+        world.updateWorld(1.0 / 60);
+        assertTrue(still.getLinearVelocity().getX() > 0);
+    }
+
+    @Test
+    public void sleepingBodiesWakeWhenHit() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        Body target = new Body(0, 0, world, square(10));
+        Body bullet = new Body(30, 0, world, square(10));
+        world.addBody(target);
+        world.addBody(bullet);
+        target.setAwake(false);
+        bullet.setLinearVelocity(new Vector2D(-60, 0));
+
+        for(int i = 0; i < 5 && !target.isAwake(); i++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertTrue(target.isAwake());
+    }
+
+    @Test
+    public void bulletsDontPassThroughThinWalls() {
+        for(int pass = 0; pass < 2; pass++){
+            PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+            Body wall = new Body(100, -50, world, new ConvexShape(new double[]{
+                    0.0, 0.0,
+                    4.0, 0.0,
+                    4.0, 100.0,
+                    0.0, 100.0}));
+            wall.setMass(Double.POSITIVE_INFINITY);
+            world.addBody(wall);
+            Body bullet = new Body(0, 0, world, square(10));
+            world.addBody(bullet);
+            bullet.setBullet(pass == 1);
+            // 50 units a step, further than the wall is thick
+            bullet.setLinearVelocity(new Vector2D(300, 0));
+
+            for(int step = 0; step < 10; step++){
+                world.updateWorld(1.0 / 60);
+            }
+            if(bullet.isBullet()){
+                assertTrue(bullet.getCentroidX() < 100);
+                assertTrue(bullet.isTouching(wall) || bullet.getLinearVelocity().getX() <= 0);
+            }else{
+                assertTrue(bullet.getCentroidX() > 104);
+            }
+        }
+    }
+
+    @Test
+    public void prototypeBodiesAreCreatedInTheWorld() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        BodyPrototype debris = new BodyPrototype(square(4), 2, 10);
+        Body reference = new Body(0, 0, world, square(4));
+        for(int i = 0; i < 1000; i++){
+            Body body = world.createBody(debris, (i % 50) * 10, (i / 50) * 10);
+            assertTrue(body.getShape() == debris.getShape());
+            assertTrue(body.storage == world.getBodyStorage());
+        }
+        assertEquals(1000, world.getBodies().size());
+        Body last = world.getBodies().get(999);
+        assertEquals(49 * 10 + 2, last.getCentroidX(), 1e-9);
+        assertEquals(reference.getMass() * 2, last.getMass(), 1e-9);
+        assertEquals(reference.getMmoi() * 2, last.getMmoi(), 1e-9);
+
+        world.updateWorld(0.1);
+        assertEquals(1, last.getLinearVelocity().getY(), 1e-9);
+
+        try{
+            new PhysicsWorld(20, new Vector2D(0, 0)).createBody(debris, 0, 0);
+            fail();
+        }catch(IllegalArgumentException e){
+            // made for another scale
+        }
+    }
+
+    @Test
+    public void releasedBodiesAreReused() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        BodyPrototype small = new BodyPrototype(square(4), 10);
+        BodyPrototype big = new BodyPrototype(square(20), 10);
+        Body a = world.acquireBody(small, 0, 0);
+        Body b = world.acquireBody(small, 50, 0);
+        a.setLinearVelocity(new Vector2D(5, 0));
+        a.setBullet(true);
+        int firstId = a.getId();
+
+        assertTrue(world.releaseBody(a));
+        assertFalse(world.releaseBody(a));
+        assertEquals(1, world.getBodies().size());
+        assertEquals(1, world.getPooledBodyCount());
+        assertEquals(0, b.getSlot());
+
+        Body c = world.acquireBody(big, 100, 100);
+        assertTrue(c == a);
+        assertEquals(0, world.getPooledBodyCount());
+        assertTrue(c.getId() != firstId);
+        assertTrue(c.getShape() == big.getShape());
+        assertFalse(c.isBullet());
+        assertEquals(new Vector2D(0, 0), c.getLinearVelocity());
+        assertEquals(110, c.getCentroidX(), 1e-9);
+        assertEquals(120, c.getAABB().getMaxX(), 1e-9);
+        assertEquals(1, world.queryAABB(new AABB(105, 105, 106, 106)).size());
+    }
+
+    @Test
+    public void filteredPairsDontCollide() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        BodyPrototype box = new BodyPrototype(square(10), 10);
+        Body player = world.createBody(box, 0, 0);
+        Body bulletA = world.createBody(box, 5, 0);
+        Body bulletB = world.createBody(box, 5, 5);
+        Body wall = world.createBody(box, 0, 5);
+        // enemy bullets hit the player and walls but not each other
+        player.setCategoryBits(1);
+        wall.setCategoryBits(4);
+        bulletA.setCategoryBits(2);
+        bulletB.setCategoryBits(2);
+        bulletA.setMaskBits(1 | 4);
+        bulletB.setMaskBits(1 | 4);
+        wall.setMaskBits(1 | 2);
+
+        world.updateWorld(0.01);
+        assertTrue(bulletA.isTouching(player));
+        assertTrue(bulletB.isTouching(wall));
+        assertFalse(bulletA.isTouching(bulletB));
+        assertTrue(player.isTouching(wall));
+        assertFalse(bulletA.shouldCollide(bulletB));
+
+        // a shared negative group overrides the categories, a positive one makes them collide anyway
+        player.setGroupIndex(-1);
+        wall.setGroupIndex(-1);
+        bulletA.setGroupIndex(3);
+        bulletB.setGroupIndex(3);
+        world.updateWorld(0.01);
+        assertFalse(player.isTouching(wall));
+        assertTrue(bulletA.isTouching(bulletB));
+
+        // the filter survives a move to another slot
+        world.removeBody(player);
+        assertEquals(3, bulletB.getGroupIndex());
+        assertEquals(2, bulletB.getCategoryBits());
+        assertEquals(1 | 2, wall.getMaskBits());
+    }
+
+    @Test
+    public void sensorsOnlyRegisterOverlaps() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        Body zone = world.createBody(new BodyPrototype(square(100), 10), 0, 0);
+        zone.setMass(Double.POSITIVE_INFINITY);
+        zone.setSensor(true);
+        Body other = world.createBody(new BodyPrototype(square(100), 10), 200, 0);
+        other.setMass(Double.POSITIVE_INFINITY);
+        other.setSensor(true);
+        Body box = world.createBody(new BodyPrototype(square(10), 10), 45, 20);
+
+        world.updateWorld(0.01);
+        assertTrue(zone.isTouching(box));
+        assertFalse(zone.isTouching(other));
+        assertEquals(0, world.narrowphase.getContacts().getCount());
+        ArrayList<Body> found = world.getSensorOverlaps(zone, new ArrayList<Body>());
+        assertEquals(1, found.size());
+        assertTrue(found.get(0) == box);
+        // the sensor doesn't push the box, it falls freely
+        assertEquals(0.1, box.getLinearVelocity().getY(), 1e-9);
+        assertEquals(0, box.getLinearVelocity().getX(), 0);
+
+        // touching sensors aren't paired
+        other.move(-100, 0);
+        world.updateWorld(0.01);
+        assertFalse(zone.isTouching(other));
+
+        box.move(0, 500);
+        world.updateWorld(0.01);
+        assertFalse(zone.isTouching(box));
+        assertEquals(0, world.getSensorOverlaps(zone, new ArrayList<Body>()).size());
+    }
+
+    @Test
+    public void everyContactIsSolvedWhenTheCacheGrows() {
+        // more contacts than the caches have held before, so they grow during the step
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 0));
+        BodyPrototype box = new BodyPrototype(square(10), 10);
+        Body[] left = new Body[300];
+        Body[] right = new Body[300];
+        for(int i = 0; i < 300; i++){
+            left[i] = world.createBody(box, (i % 20) * 50, (i / 20) * 50);
+            right[i] = world.createBody(box, (i % 20) * 50 + 8, (i / 20) * 50);
+            left[i].setLinearVelocity(new Vector2D(1, 0));
+            right[i].setLinearVelocity(new Vector2D(-1, 0));
+        }
+
+        world.updateWorld(1.0 / 60);
+        for(int i = 0; i < 300; i++){
+            assertTrue(left[i].isTouching(right[i]));
+            // the solver stops every pair from moving further into each other
+            assertTrue(right[i].getLinearVelocity().getX() - left[i].getLinearVelocity().getX() > -1e-6);
+        }
+    }
+
+    /**
+     * Builds a box on a box on a floor and steps until the stack has fallen asleep.
+     */
+    static Body[] sleepingStack(PhysicsWorld world){
+        Body floor = world.createBody(new BodyPrototype(new ConvexShape(new double[]{
+                0.0, 0.0,
+                100.0, 0.0,
+                100.0, 10.0,
+                0.0, 10.0}), 10), -45, 20);
+        floor.setMass(Double.POSITIVE_INFINITY);
+        floor.setMmoi(Double.POSITIVE_INFINITY);
+        BodyPrototype box = new BodyPrototype(square(10), 10);
+        Body lower = world.createBody(box, 0, 10);
+        Body upper = world.createBody(box, 0, 0);
+        for(int step = 0; step < 600 && upper.isAwake(); step++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertFalse(upper.isAwake());
+        assertFalse(lower.isAwake());
+        return new Body[]{floor, lower, upper};
+    }
+
+    @Test
+    public void removingASupportWakesWhatRestedOnIt() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        Body[] stack = sleepingStack(world);
+        double restingY = stack[2].getCentroidY();
+
+        world.removeBody(stack[1]);
+        assertTrue(stack[2].isAwake());
+        for(int step = 0; step < 120; step++){
+            world.updateWorld(1.0 / 60);
+        }
+        // fell onto the floor
+        assertEquals(restingY + 10, stack[2].getCentroidY(), 1);
+    }
+
+    @Test
+    public void releasingASupportWakesWhatRestedOnIt() {
+        PhysicsWorld world = new PhysicsWorld(10, new Vector2D(0, 10));
+        Body[] stack = sleepingStack(world);
+        double restingY = stack[2].getCentroidY();
+
+        world.releaseBody(stack[1]);
+        assertTrue(stack[2].isAwake());
+        for(int step = 0; step < 120; step++){
+            world.updateWorld(1.0 / 60);
+        }
+        assertEquals(restingY + 10, stack[2].getCentroidY(), 1);
+    }
+}
@@ -0,0 +1,89 @@
+package GameEngine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShapeCacheTest {
+
+    @After
+    public void reset() {
+        ShapeCache.setDirectory(null);
+        ShapeCache.clear();
+    }
+
+    @Test
+    public void bodiesFromTheSameImageShareTheShape() {
+        BufferedImage img = ShapeCreatorTest.disc(32);
+        Body a = new Body(0, 0, null, img, 64);
+        Body b = new Body(100, 0, null, ShapeCreatorTest.disc(32), 64);
+        Body c = new Body(0, 0, null, img, 32);
+        assertTrue(a.getShape() == b.getShape());
+        assertFalse(a.getShape() == c.getShape());
+        assertEquals(a.getMass(), b.getMass(), 0);
+    }
+
+    @Test
+    public void shapesAreReadBackFromDisk() throws Exception {
+        File dir = Files.createTempDirectory("shapes").toFile();
+        File png = new File(dir, "disc.png");
+        ImageIO.write(ShapeCreatorTest.disc(40), "png", png);
+        ShapeCache.setDirectory(dir);
+
+        ConvexShape built = ShapeCache.getShape(png.getPath(), 80);
+        assertTrue(built == ShapeCache.getShape(png.getPath(), 80));
+
+        // a new launch finds the hull on disk and doesn't scan the image, which here has no hull at all
+        ShapeCache.clear();
+        BufferedImage empty = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        ConvexShape loaded = ShapeCache.getShape(png.getPath(), empty, 80);
+        assertFalse(built == loaded);
+        assertArrayEquals(built.getVertices(), loaded.getVertices(), 1e-12);
+        assertEquals(built.getAreaMmoi(), loaded.getAreaMmoi(), 1e-6);
+    }
+
+    @Test
+    public void anEditedFileReplacesItsShape() throws Exception {
+        File png = File.createTempFile("shape", ".png");
+        png.deleteOnExit();
+        ImageIO.write(ShapeCreatorTest.disc(40), "png", png);
+        ConvexShape before = ShapeCache.getShape(png.getPath(), 80);
+
+        BufferedImage square = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        for(int y = 5; y < 35; y++){
+            for(int x = 5; x < 35; x++){
+                square.setRGB(x, y, 0xFF000000);
+            }
+        }
+        ImageIO.write(square, "png", png);
+        png.setLastModified(png.lastModified() + 2000);
+        ConvexShape after = ShapeCache.getShape(png.getPath(), 80);
+
+        assertFalse(before == after);
+        assertEquals(4, after.getVertices().length / 2);
+        assertEquals(1, ShapeCache.size());
+        assertTrue(after == ShapeCache.getShape(png.getPath(), 80));
+    }
+
+    @Test
+    public void aFailedBuildIsNotCached() throws Exception {
+        File missing = new File(Files.createTempDirectory("shapes").toFile(), "missing.png");
+        try{
+            ShapeCache.getShape(missing.getPath(), 80);
+            fail();
+        }catch(IOException e){
+            assertEquals(0, ShapeCache.size());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShapeCreatorTest {
+
+    static BufferedImage disc(int size){
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        double r = size / 2.0;
+        for(int y = 0; y < size; y++){
+            for(int x = 0; x < size; x++){
+                double dx = x + 0.5 - r;
+                double dy = y + 0.5 - r;
+                if(dx * dx + dy * dy <= r * r){
+                    img.setRGB(x, y, 0xFF000000);
+                }
+            }
+        }
+        return img;
+    }
+
+    @Test
+    public void collinearVerticesAreRemoved() {
+        double[] square = new double[]{
+                0.0, 0.0,
+                5.0, 0.0,
+                10.0, 0.0,
+                10.0, 5.0,
+                10.0, 10.0,
+                5.0, 10.01,
+                0.0, 10.0};
+        double[] simplified = ShapeCreator.simplifyHull(square, 100, 0.1);
+        assertEquals(8, simplified.length);
+        assertEquals(10.0, simplified[2], 0);
+        assertEquals(0.0, simplified[3], 0);
+    }
+
+    @Test
+    public void hullFitsTheVertexBudget() {
+        BufferedImage img = disc(64);
+        double[] full = ShapeCreator.hullShapeFromImg(img, 1, Integer.MAX_VALUE, 0);
+        double[] simplified = ShapeCreator.hullShapeFromImg(img, 1, 12, 0);
+        assertTrue(full.length > 24);
+        assertEquals(24, simplified.length);
+
+        // a hull of a subset of the vertices loses only a little of the area
+        double fullArea = new ConvexShape(full).getArea();
+        double area = new ConvexShape(simplified).getArea();
+        assertTrue(area <= fullArea);
+        assertTrue(area > fullArea * 0.9);
+    }
+
+    @Test
+    public void removedVerticesStayNearTheSimplifiedHull() {
+        // removing a vertex moves the edge away from the vertices removed next to it before
+        Random random = new Random(5);
+        for(int test = 0; test < 100; test++){
+            double[] polygon = GjkEpaTest.randomPolygon(random, 20 + random.nextInt(60), 50);
+            double maxError = 0.5 + random.nextDouble() * 2;
+            double[] simplified = ShapeCreator.simplifyHull(polygon, 1000, maxError);
+            for(int i = 0; i < polygon.length; i += 2){
+                assertTrue(distanceToPolygon(simplified, polygon[i], polygon[i + 1]) <= maxError + 1e-9);
+            }
+        }
+    }
+
+    /**
+     * The distance of a point from the nearest edge of a polygon.
+     */
+    static double distanceToPolygon(double[] vertices, double x, double y){
+        double nearest = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < vertices.length; i += 2){
+            int j = (i + 2) % vertices.length;
+            double ex = vertices[j] - vertices[i];
+            double ey = vertices[j + 1] - vertices[i + 1];
+            double along = Math.max(0, Math.min(1, ((x - vertices[i]) * ex + (y - vertices[i + 1]) * ey)
+                    / (ex * ex + ey * ey)));
+            nearest = Math.min(nearest, Math.hypot(x - vertices[i] - ex * along, y - vertices[i + 1] - ey * along));
+        }
+        return nearest;
+    }
+
+    @Test
+    public void bitmaskFindsTheSameEdges() {
+        Random random = new Random(18);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            int[][] sizes = {{70, 33}, {64, 64}, {1, 40}, {130, 300}, {200, 1}};
+            int[] types = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_RGB};
+            for(int[] size : sizes){
+                for(int type : types){
+                    BufferedImage img = new BufferedImage(size[0], size[1], type);
+                    for(int y = 0; y < size[1]; y++){
+                        for(int x = 0; x < size[0]; x++){
+                            if(random.nextInt(3) != 0){
+                                img.setRGB(x, y, 0xFF000000 | random.nextInt());
+                            }
+                        }
+                    }
+                    String expected = ShapeCreator.findEdgePixels(ShapeCreator.mapSeethroughPixels(img)).toString();
+                    assertEquals(expected, ShapeCreator.pixelsOfMask(
+                            ShapeCreator.findEdgeMask(img, null), size[0]).toString());
+                    assertEquals(expected, ShapeCreator.pixelsOfMask(
+                            ShapeCreator.findEdgeMask(img, executor), size[0]).toString());
+                }
+            }
+
+            BufferedImage img = disc(300);
+            assertArrayEquals(ShapeCreator.hullShapeFromImg(img, 1),
+                    ShapeCreator.hullShapeFromImg(img, 1, Integer.MAX_VALUE, ShapeCreator.DEFAULT_MAX_ERROR, executor),
+                    0);
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hullBuilderMatchesGrahamScan() {
+        Random random = new Random(19);
+        HullBuilder builder = new HullBuilder();
+        for(int i = 0; i < 50; i++){
+            int width = 3 + random.nextInt(150);
+            int height = 3 + random.nextInt(100);
+            BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            // a few random blobs, so the hull has long edges as well as many short ones
+            for(int blob = 0; blob < 3; blob++){
+                int cx = random.nextInt(width);
+                int cy = random.nextInt(height);
+                int r = 1 + random.nextInt(Math.max(width, height) / 2);
+                for(int y = 0; y < height; y++){
+                    for(int x = 0; x < width; x++){
+                        if((x - cx) * (x - cx) + (y - cy) * (y - cy) <= r * r){
+                            img.setRGB(x, y, 0xFF000000);
+                        }
+                    }
+                }
+            }
+            long[] edges = ShapeCreator.findEdgeMask(img, null);
+            LinkedList<Vector2D> pixels = ShapeCreator.pixelsOfMask(edges, width);
+            if(pixels.size() < 3){
+                // a blob covering the whole image has no edge pixels
+                continue;
+            }
+            LinkedList<Vector2D> graham = new GrahamScanner().convexHull(pixels);
+            assertArrayEquals(ShapeCreator.shapeFromList(graham, 0.5),
+                    builder.hullShape(edges, width, height, 0.5), 0);
+        }
+    }
+}
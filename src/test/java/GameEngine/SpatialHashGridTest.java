@@ -0,0 +1,62 @@
+package GameEngine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpatialHashGridTest {
+
+    Body square(double x, double y, double size){
+        ConvexShape shape = new ConvexShape(new double[]{
+                0.0, 0.0,
+                size, 0.0,
+                size, size,
+                0.0, size});
+        return new Body(x, y, null, shape);
+    }
+
+    @Test
+    public void onlyNearbyBodiesArePaired() {
+        ArrayList<Body> bodies = new ArrayList<Body>();
+        bodies.add(square(0, 0, 10));
+        bodies.add(square(500, 500, 10));
+        bodies.add(square(5, 5, 10));
+
+        SpatialHashGrid grid = new SpatialHashGrid(20);
+        assertEquals(1, grid.findPairs(bodies));
+        long pair = grid.getPairs()[0];
+        assertEquals(0, SpatialHashGrid.firstOf(pair));
+        assertEquals(2, SpatialHashGrid.secondOf(pair));
+    }
+
+    @Test
+    public void pairsSharingManyCellsAreReportedOnce() {
+        ArrayList<Body> bodies = new ArrayList<Body>();
+        bodies.add(square(0, 0, 100));
+        bodies.add(square(10, 10, 100));
+
+        SpatialHashGrid grid = new SpatialHashGrid(10);
+        assertEquals(1, grid.findPairs(bodies));
+    }
+
+    @Test
+    public void pairsAreSortedByBodyOrder() {
+        ArrayList<Body> bodies = new ArrayList<Body>();
+        for(int i = 0; i < 5; i++){
+            bodies.add(square(-20 + i * 5, -20 + i * 5, 30));
+        }
+
+        SpatialHashGrid grid = new SpatialHashGrid(16);
+        assertEquals(10, grid.findPairs(bodies));
+        int n = 0;
+        for(int i = 0; i < 5; i++){
+            for(int j = i + 1; j < 5; j++){
+                long pair = grid.getPairs()[n++];
+                assertEquals(i, SpatialHashGrid.firstOf(pair));
+                assertEquals(j, SpatialHashGrid.secondOf(pair));
+            }
+        }
+    }
+}